@@ -2,10 +2,16 @@ package com.skillshare;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class SkillShareApplication {
+    // Enough for every context and bean step of this application; drained once ready
+    private static final int STARTUP_STEP_CAPACITY = 4096;
+
     public static void main(String[] args) {
-        SpringApplication.run(SkillShareApplication.class, args);
+        SpringApplication application = new SpringApplication(SkillShareApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEP_CAPACITY));
+        application.run(args);
     }
-} 
\ No newline at end of file
+}
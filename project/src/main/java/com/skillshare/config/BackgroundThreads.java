@@ -0,0 +1,53 @@
+package com.skillshare.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factories for the application's own background executors.
+ *
+ * <p>When {@code spring.threads.virtual.enabled} is set on Java 21+, the same
+ * condition Boot uses for Tomcat and its task executors, the factories make
+ * virtual threads; otherwise named daemon platform threads. CPU-bound pools
+ * such as the recommender's fork/join pool should keep platform threads.
+ */
+@Component
+public class BackgroundThreads {
+    private final boolean virtual;
+
+    public BackgroundThreads(Environment environment) {
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /** Threads for a single-threaded executor, all called {@code name}. */
+    public ThreadFactory named(String name) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(name + "-").getVirtualThreadFactory();
+        }
+        return task -> platformThread(task, name);
+    }
+
+    /** Threads for a pool, called {@code prefix-1}, {@code prefix-2}, ... */
+    public ThreadFactory numbered(String prefix) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(prefix + "-").getVirtualThreadFactory();
+        }
+        AtomicInteger threads = new AtomicInteger();
+        return task -> platformThread(task, prefix + "-" + threads.incrementAndGet());
+    }
+
+    private static Thread platformThread(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
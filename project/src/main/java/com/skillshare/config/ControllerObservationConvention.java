@@ -0,0 +1,34 @@
+package com.skillshare.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Adds {@code controller} and {@code handler} tags to the
+ * {@code http.server.requests} timers, so latency and error rates can be
+ * summed per controller (e.g. {@code PostController}) as well as read per
+ * route. Requests that never reached a controller are tagged {@code none}.
+ */
+@Component
+public class ControllerObservationConvention extends DefaultServerRequestObservationConvention {
+    private static final String NONE = "none";
+
+    @Override
+    @NonNull
+    public KeyValues getLowCardinalityKeyValues(@NonNull ServerRequestObservationContext context) {
+        String controller = NONE;
+        String handler = NONE;
+        if (context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod method) {
+            controller = method.getBeanType().getSimpleName();
+            handler = controller + "." + method.getMethod().getName();
+        }
+        return super.getLowCardinalityKeyValues(context)
+            .and(KeyValue.of("controller", controller), KeyValue.of("handler", handler));
+    }
+}
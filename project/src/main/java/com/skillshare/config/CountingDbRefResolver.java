@@ -0,0 +1,56 @@
+package com.skillshare.config;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+
+import java.util.List;
+
+/**
+ * {@link DefaultDbRefResolver} that counts resolutions per target collection
+ * and marks the commands it issues with a {@code dbref:<collection>}
+ * operation, so that N+1 reads through DBRefs stand out in the metrics.
+ */
+class CountingDbRefResolver extends DefaultDbRefResolver {
+    private final ObjectProvider<MongoCommandMetrics> commandMetrics;
+
+    CountingDbRefResolver(MongoDatabaseFactory databaseFactory, ObjectProvider<MongoCommandMetrics> commandMetrics) {
+        super(databaseFactory);
+        this.commandMetrics = commandMetrics;
+    }
+
+    @Override
+    public Document fetch(DBRef dbRef) {
+        count(dbRef.getCollectionName(), 1);
+        String previous = MongoCommandContext.enter("dbref:" + dbRef.getCollectionName());
+        try {
+            return super.fetch(dbRef);
+        } finally {
+            MongoCommandContext.restore(previous);
+        }
+    }
+
+    @Override
+    public List<Document> bulkFetch(List<DBRef> refs) {
+        if (refs.isEmpty()) {
+            return super.bulkFetch(refs);
+        }
+        String collection = refs.get(0).getCollectionName();
+        count(collection, refs.size());
+        String previous = MongoCommandContext.enter("dbref:" + collection);
+        try {
+            return super.bulkFetch(refs);
+        } finally {
+            MongoCommandContext.restore(previous);
+        }
+    }
+
+    private void count(String collection, int references) {
+        MongoCommandMetrics metrics = commandMetrics.getIfAvailable();
+        if (metrics != null) {
+            metrics.recordDbRefResolution(collection, references);
+        }
+    }
+}
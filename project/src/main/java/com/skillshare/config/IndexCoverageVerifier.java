@@ -0,0 +1,95 @@
+package com.skillshare.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Explains every query in the {@link IndexRegistry} with
+ * {@code queryPlanner} verbosity, which needs no data and does not execute
+ * the query, and reports the ones whose winning plan is a collection scan.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndexCoverageVerifier {
+    private static final String COLLSCAN = "COLLSCAN";
+
+    private final MongoTemplate mongoTemplate;
+    private final IndexRegistry indexRegistry;
+
+    public record QueryCoverage(
+        String method,
+        String collection,
+        String expectedIndex,
+        List<String> stages,
+        List<String> indexesUsed,
+        boolean covered
+    ) {}
+
+    public record CoverageReport(boolean allCovered, int queries, int collectionScans, List<QueryCoverage> results) {}
+
+    public CoverageReport verify() {
+        List<QueryCoverage> results = new ArrayList<>();
+        int collectionScans = 0;
+        for (IndexRegistry.RegisteredQuery query : indexRegistry.getQueries()) {
+            QueryCoverage coverage = explain(query);
+            results.add(coverage);
+            if (!coverage.covered()) {
+                collectionScans++;
+                log.warn("Query {} on {} is a collection scan (expected index {}): {}",
+                    query.method(), query.collection(), query.index().name(), coverage.stages());
+            }
+        }
+        log.info("Index coverage: {} of {} registered queries use an index", results.size() - collectionScans, results.size());
+        return new CoverageReport(collectionScans == 0, results.size(), collectionScans, results);
+    }
+
+    private QueryCoverage explain(IndexRegistry.RegisteredQuery query) {
+        Document find = new Document("find", query.collection())
+            .append("filter", query.filter())
+            .append("limit", 20);
+        if (query.sort() != null) {
+            find.append("sort", query.sort());
+        }
+        return coverage(query, mongoTemplate.getDb().runCommand(
+            new Document("explain", find).append("verbosity", "queryPlanner")));
+    }
+
+    /** Reads the winning plan out of an explain result; a plan without any stage counts as uncovered. */
+    static QueryCoverage coverage(IndexRegistry.RegisteredQuery query, Document result) {
+        Document queryPlanner = result.get("queryPlanner", Document.class);
+        List<String> stages = new ArrayList<>();
+        List<String> indexesUsed = new ArrayList<>();
+        collectStages(queryPlanner != null ? queryPlanner.get("winningPlan", Document.class) : null, stages, indexesUsed);
+        return new QueryCoverage(query.method(), query.collection(), query.index().name(),
+            stages, indexesUsed, !stages.isEmpty() && !stages.contains(COLLSCAN));
+    }
+
+    private static void collectStages(Document plan, List<String> stages, List<String> indexesUsed) {
+        if (plan == null) {
+            return;
+        }
+        // Plans from the slot-based engine nest the classic plan tree under queryPlan
+        collectStages(plan.get("queryPlan", Document.class), stages, indexesUsed);
+
+        String stage = plan.getString("stage");
+        if (stage != null) {
+            stages.add(stage);
+        }
+        String indexName = plan.getString("indexName");
+        if (indexName != null) {
+            indexesUsed.add(indexName);
+        }
+        collectStages(plan.get("inputStage", Document.class), stages, indexesUsed);
+        List<Document> inputStages = plan.getList("inputStages", Document.class);
+        if (inputStages != null) {
+            inputStages.forEach(input -> collectStages(input, stages, indexesUsed));
+        }
+    }
+}
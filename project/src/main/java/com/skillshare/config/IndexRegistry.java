@@ -0,0 +1,147 @@
+package com.skillshare.config;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declares, per repository or service query, the index it depends on and a
+ * representative form of the query as it reaches the server.
+ *
+ * <p>{@link MongoIndexInitializer} creates the declared indexes and
+ * {@link IndexCoverageVerifier} explains every registered query against them.
+ * Unanchored case-insensitive regex searches cannot use a B-tree index and are
+ * deliberately not registered.
+ */
+@Component
+public class IndexRegistry {
+    public record RequiredIndex(String collection, String name, Document keys, Document partialFilter, boolean unique, boolean sparse) {}
+
+    /** An index no query uses any more, dropped once the declared indexes are built. */
+    public record RetiredIndex(String collection, String name) {}
+
+    public record RegisteredQuery(String method, String collection, Document filter, Document sort, RequiredIndex index) {}
+
+    private final Map<String, RequiredIndex> indexes = new LinkedHashMap<>();
+    private final List<RegisteredQuery> queries = new ArrayList<>();
+    private final List<RetiredIndex> retired = new ArrayList<>();
+
+    public IndexRegistry() {
+        RequiredIndex usersByEmail = unique("users", "email", new Document("email", 1));
+        query("UserRepository.findByEmail", usersByEmail, new Document("email", "user@example.com"), null);
+
+        RequiredIndex postsByUser = index("posts", "user_created_idx", new Document("user", 1).append("created_at", -1));
+        query("PostRepository.findByUserOrderByCreatedAtDesc", postsByUser,
+            new Document("user", ref("users")), new Document("created_at", -1));
+        query("PostRepository.findByUserInOrderByCreatedAtDesc", postsByUser,
+            new Document("user", new Document("$in", List.of(ref("users"), ref("users")))), new Document("created_at", -1));
+
+        RequiredIndex postsByCommits = index("posts", "commits_created_idx", new Document("commits", 1).append("created_at", -1));
+        query("PostRepository.findByCommitsContainingOrderByCreatedAtDesc", postsByCommits,
+            new Document("commits", ref("users")), new Document("created_at", -1));
+
+        RequiredIndex openCommitments = index("posts", "commitment_open_deadline_idx",
+            new Document("is_commitment_complete", 1).append("commitment_deadline", 1));
+        query("PostRepository.findByCommitmentDeadlineGreaterThanAndIsCommitmentCompleteFalseOrderByCommitmentDeadlineAsc",
+            openCommitments,
+            new Document("commitment_deadline", new Document("$gt", new Date())).append("is_commitment_complete", false),
+            new Document("commitment_deadline", 1));
+
+        RequiredIndex commitmentDeadline = index("posts", "commitment_deadline_idx", new Document("commitment_deadline", 1));
+        query("PostRepository.findOpenCommitments", commitmentDeadline,
+            new Document("commitment_deadline", new Document("$gt", new Date())), null);
+
+        RequiredIndex commentsByPost = index("comments", "post_created_idx", new Document("post", 1).append("created_at", -1));
+        query("CommentRepository.findByPostOrderByCreatedAtDesc", commentsByPost,
+            new Document("post", ref("posts")), new Document("created_at", -1));
+
+        RequiredIndex topLevelComments = index("comments", "post_parent_path_idx",
+            new Document("post", 1).append("parent_id", 1).append("path", 1));
+        query("CommentService.getTopLevelComments", topLevelComments,
+            new Document("post", ref("posts")).append("parent_id", null), new Document("path", -1));
+
+        RequiredIndex commentThreads = index("comments", "post_path_idx", new Document("post", 1).append("path", 1));
+        query("CommentService.getThread", commentThreads,
+            new Document("post", ref("posts")).append("path", new Document("$gt", "a/").append("$lt", "a0")),
+            new Document("path", 1));
+
+        RequiredIndex plansByUser = index("learning_plans", "user_created_idx", new Document("user", 1).append("created_at", -1));
+        query("LearningPlanRepository.findByUserOrderByCreatedAtDesc", plansByUser,
+            new Document("user", ref("users")), new Document("created_at", -1));
+
+        RequiredIndex plansByTag = index("learning_plans", "tags_id_idx", new Document("tags", 1).append("_id", -1));
+        query("LearningPlanService.discoverPlans(all)", plansByTag,
+            new Document("tags", new Document("$all", List.of("java", "spring"))), new Document("_id", -1));
+        query("LearningPlanService.discoverPlans(any)", plansByTag,
+            new Document("tags", new Document("$in", List.of("java", "spring"))), new Document("_id", -1));
+
+        RequiredIndex resourcesByUrlHash = declare(
+            new RequiredIndex("resources", "url_hash_idx", new Document("url_hash", 1), null, true, true));
+        query("ResourceRepository.findByUrlHash", resourcesByUrlHash, new Document("url_hash", "0"), null);
+
+        RequiredIndex resourcesByUser = index("resources", "user_idx", new Document("user", 1));
+        query("ResourceRepository.findByUser", resourcesByUser, new Document("user", ref("users")), null);
+        // Owners used to be matched on the id inside the DBRef
+        retire("resources", "user_id_idx");
+
+        RequiredIndex resourcesByCategory = index("resources", "skill_category_idx", new Document("skill_category", 1));
+        query("ResourceRepository.findBySkillCategory", resourcesByCategory, new Document("skill_category", "java"), null);
+
+        RequiredIndex resourcesByType = index("resources", "resource_type_idx", new Document("resource_type", 1));
+        query("ResourceRepository.findByResourceType", resourcesByType, new Document("resource_type", "VIDEO"), null);
+
+        RequiredIndex pendingReminders = declare(new RequiredIndex("due_date_reminders", "pending_remind_at_idx",
+            new Document("remind_at", 1).append("_id", 1), new Document("sent", false), false, false));
+        query("ReminderScheduler.load", pendingReminders,
+            new Document("sent", false).append("remind_at", new Document("$lt", new Date())),
+            new Document("remind_at", 1).append("_id", 1));
+
+        RequiredIndex popularTags = index("plan_tags", "count_idx", new Document("count", -1));
+        query("PlanTagService.getPopularTags", popularTags, new Document(), new Document("count", -1));
+    }
+
+    public List<RegisteredQuery> getQueries() {
+        return queries;
+    }
+
+    public Collection<RequiredIndex> getIndexes() {
+        return indexes.values();
+    }
+
+    public List<RetiredIndex> getRetiredIndexes() {
+        return retired;
+    }
+
+    private RequiredIndex index(String collection, String name, Document keys) {
+        return declare(new RequiredIndex(collection, name, keys, null, false, false));
+    }
+
+    private RequiredIndex unique(String collection, String name, Document keys) {
+        return declare(new RequiredIndex(collection, name, keys, null, true, false));
+    }
+
+    private RequiredIndex declare(RequiredIndex index) {
+        indexes.putIfAbsent(index.collection() + "." + index.name(), index);
+        return index;
+    }
+
+    private void retire(String collection, String name) {
+        retired.add(new RetiredIndex(collection, name));
+    }
+
+    private void query(String method, RequiredIndex index, Document filter, Document sort) {
+        queries.add(new RegisteredQuery(method, index.collection(), filter, sort, index));
+    }
+
+    private static DBRef ref(String collection) {
+        return new DBRef(collection, new ObjectId());
+    }
+}
@@ -0,0 +1,36 @@
+package com.skillshare.config;
+
+/**
+ * Names the operation on the current thread that issues MongoDB commands,
+ * such as {@code PostRepository.findByUserOrderByCreatedAtDesc} or
+ * {@code dbref:users}, so command metrics can be attributed to it. The sync
+ * driver publishes command events on the calling thread.
+ */
+public final class MongoCommandContext {
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private MongoCommandContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Sets the operation name and returns the previous one, which the caller
+     * must pass to {@link #restore(String)} when done.
+     */
+    public static String enter(String operation) {
+        String previous = CURRENT.get();
+        CURRENT.set(operation);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
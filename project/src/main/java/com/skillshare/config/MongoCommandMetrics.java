@@ -0,0 +1,241 @@
+package com.skillshare.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command listener on the MongoDB client that records, per command,
+ * collection and calling operation (see {@link MongoCommandContext}):
+ * <ul>
+ *   <li>{@code mongodb.command} latency histograms, tagged with the outcome</li>
+ *   <li>{@code mongodb.command.documents}, documents returned per cursor batch</li>
+ *   <li>{@code mongodb.dbref.resolutions}, reported by {@link CountingDbRefResolver}</li>
+ * </ul>
+ * Commands slower than {@code mongo.metrics.slow-command-threshold-ms} are
+ * sampled into the {@link SlowCommandLog} with their filter shape: field
+ * names and operators are kept, every value is replaced by {@code ?}. Only the
+ * raw bytes of the filter are kept while a command runs; the shape is built
+ * for slow commands alone. Meters are registered once per tag set and reused.
+ */
+@Slf4j
+@Component
+public class MongoCommandMetrics implements CommandListener {
+    private static final String NONE = "none";
+    private static final BsonString REDACTED = new BsonString("?");
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+    private static final Set<String> IGNORED_COMMANDS = Set.of(
+        "hello", "isMaster", "ismaster", "ping", "saslStart", "saslContinue", "buildInfo", "endSessions");
+
+    private final MeterRegistry meterRegistry;
+    private final SlowCommandLog slowCommandLog;
+    private final long slowThresholdNanos;
+    private final Map<Integer, StartedCommand> inFlight = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<MeterKey, DistributionSummary> documentSummaries = new ConcurrentHashMap<>();
+    private final Map<String, Counter> dbRefCounters = new ConcurrentHashMap<>();
+
+    private record StartedCommand(String collection, String operation, RawBsonDocument source) {}
+
+    private record MeterKey(String command, String collection, String operation, boolean failed) {}
+
+    public MongoCommandMetrics(MeterRegistry meterRegistry,
+                               SlowCommandLog slowCommandLog,
+                               @Value("${mongo.metrics.slow-command-threshold-ms:100}") long slowThresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.slowCommandLog = slowCommandLog;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (IGNORED_COMMANDS.contains(event.getCommandName())) {
+            return;
+        }
+        // The command document is only valid during this callback, so the filter bytes are copied now
+        BsonDocument command = event.getCommand();
+        String operation = MongoCommandContext.current();
+        inFlight.put(event.getRequestId(), new StartedCommand(
+            collectionOf(event.getCommandName(), command),
+            operation != null ? operation : NONE,
+            sourceOf(event.getCommandName(), command)));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        StartedCommand started = inFlight.remove(event.getRequestId());
+        if (started == null) {
+            return;
+        }
+        Integer documents = documentsIn(event.getResponse());
+        record(event.getCommandName(), started, event.getElapsedTime(TimeUnit.NANOSECONDS), documents, false);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        StartedCommand started = inFlight.remove(event.getRequestId());
+        if (started == null) {
+            return;
+        }
+        record(event.getCommandName(), started, event.getElapsedTime(TimeUnit.NANOSECONDS), null, true);
+    }
+
+    public void recordDbRefResolution(String collection, int references) {
+        dbRefCounters.computeIfAbsent(collection, name -> Counter.builder("mongodb.dbref.resolutions")
+                .description("DBRefs resolved by the mapping layer")
+                .tag("collection", name)
+                .register(meterRegistry))
+            .increment(references);
+    }
+
+    private void record(String commandName, StartedCommand started, long elapsedNanos, Integer documents, boolean failed) {
+        MeterKey key = new MeterKey(commandName, started.collection(), started.operation(), failed);
+        timers.computeIfAbsent(key, this::timer).record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (documents != null) {
+            documentSummaries.computeIfAbsent(new MeterKey(commandName, started.collection(), started.operation(), false),
+                    this::documentSummary)
+                .record(documents);
+        }
+
+        if (elapsedNanos >= slowThresholdNanos) {
+            slowCommandLog.add(new SlowCommandLog.SlowCommand(
+                Instant.now(),
+                commandName,
+                started.collection(),
+                started.operation(),
+                started.source() != null ? shapeOf(started.source()).toJson() : null,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                documents,
+                failed));
+        }
+    }
+
+    private Timer timer(MeterKey key) {
+        return Timer.builder("mongodb.command")
+            .description("MongoDB command latency")
+            .tag("command", key.command())
+            .tag("collection", key.collection())
+            .tag("operation", key.operation())
+            .tag("status", key.failed() ? "failed" : "success")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    private DistributionSummary documentSummary(MeterKey key) {
+        return DistributionSummary.builder("mongodb.command.documents")
+            .description("Documents returned per MongoDB command")
+            .baseUnit("documents")
+            .tag("command", key.command())
+            .tag("collection", key.collection())
+            .tag("operation", key.operation())
+            .register(meterRegistry);
+    }
+
+    private static String collectionOf(String commandName, BsonDocument command) {
+        BsonValue target = "getMore".equals(commandName) ? command.get("collection") : command.get(commandName);
+        return target != null && target.isString() ? target.asString().getValue() : NONE;
+    }
+
+    /**
+     * Copies the parts of a command its shape is built from, unredacted, or
+     * returns {@code null} for commands that have no shape.
+     */
+    private static RawBsonDocument sourceOf(String commandName, BsonDocument command) {
+        BsonDocument source = new BsonDocument();
+        switch (commandName) {
+            case "find" -> {
+                copy(command, "filter", source);
+                copy(command, "sort", source);
+            }
+            case "aggregate" -> copy(command, "pipeline", source);
+            case "count", "distinct", "findAndModify" -> copy(command, "query", source);
+            case "update" -> copyFirstStatement(command, "updates", source);
+            case "delete" -> copyFirstStatement(command, "deletes", source);
+            default -> {
+                return null;
+            }
+        }
+        return new RawBsonDocument(source, CODEC);
+    }
+
+    /** Redacts every part of the source except the sort, which has no values. */
+    private static BsonDocument shapeOf(RawBsonDocument source) {
+        BsonDocument shape = new BsonDocument();
+        for (Map.Entry<String, BsonValue> entry : source.entrySet()) {
+            shape.append(entry.getKey(), "sort".equals(entry.getKey()) ? entry.getValue() : redact(entry.getValue()));
+        }
+        return shape;
+    }
+
+    private static void copy(BsonDocument command, String field, BsonDocument source) {
+        BsonValue value = command.get(field);
+        if (value != null) {
+            source.append(field, value);
+        }
+    }
+
+    private static void copyFirstStatement(BsonDocument command, String field, BsonDocument source) {
+        BsonValue statements = command.get(field);
+        if (statements != null && statements.isArray() && !statements.asArray().isEmpty()) {
+            BsonValue first = statements.asArray().get(0);
+            if (first.isDocument()) {
+                copy(first.asDocument(), "q", source);
+            }
+        }
+    }
+
+    private static BsonValue redact(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument redacted = new BsonDocument();
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                redacted.append(entry.getKey(), redact(entry.getValue()));
+            }
+            return redacted;
+        }
+        if (value.isArray()) {
+            // Keep the structure of $and/$or clauses and pipelines; value lists such as $in collapse to ?
+            BsonArray array = value.asArray();
+            if (array.isEmpty() || !array.get(0).isDocument()) {
+                return REDACTED;
+            }
+            BsonArray redacted = new BsonArray();
+            for (BsonValue element : array) {
+                redacted.add(redact(element));
+            }
+            return redacted;
+        }
+        return REDACTED;
+    }
+
+    private static Integer documentsIn(BsonDocument response) {
+        BsonValue cursor = response.get("cursor");
+        if (cursor == null || !cursor.isDocument()) {
+            return null;
+        }
+        BsonValue batch = cursor.asDocument().containsKey("firstBatch")
+            ? cursor.asDocument().get("firstBatch")
+            : cursor.asDocument().get("nextBatch");
+        return batch != null && batch.isArray() ? batch.asArray().size() : null;
+    }
+}
@@ -2,26 +2,49 @@ package com.skillshare.config;
 
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
+import com.mongodb.reactivestreams.client.MongoClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
-import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
 import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
 import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
 import org.springframework.beans.factory.annotation.Value;
-import com.mongodb.MongoException;
 import org.springframework.lang.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import java.util.Collection;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.ArrayList;
-import java.util.List;
-import org.springframework.core.convert.converter.Converter;
 
+/**
+ * The single MongoDB client configuration.
+ *
+ * <p>Startup does no round trips to the server: the client connects lazily,
+ * entities are not scanned up front and automatic index creation is off.
+ * Indexes and collection validators are applied in the background once the
+ * application is ready, by {@link MongoIndexInitializer}.
+ *
+ * <p>The client reports every command to {@link MongoCommandMetrics} and its
+ * connection pool size and checkouts to {@code mongodb.driver.pool.*}, and
+ * repository calls and DBRef resolution name the operation their commands
+ * are attributed to. A second, reactive client backs the non-blocking read
+ * endpoints. The two drivers cannot share a client, so the reactive one has
+ * its own, separately sized pool.
+ */
 @Slf4j
 @Configuration
 @EnableMongoRepositories(basePackages = "com.skillshare.repository")
@@ -48,6 +71,24 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
     @Value("${spring.data.mongodb.socket-timeout:60000}")
     private int socketTimeout;
 
+    @Value("${spring.data.mongodb.server-selection-timeout:30000}")
+    private int serverSelectionTimeout;
+
+    @Value("${mongo.reactive.connection-pool-max-size:20}")
+    private int reactiveMaxConnectionPoolSize;
+
+    @Value("${mongo.reactive.connection-pool-min-size:0}")
+    private int reactiveMinConnectionPoolSize;
+
+    @Value("${mongo.reactive.max-wait-time-ms:2000}")
+    private int reactiveMaxWaitTime;
+
+    @Autowired
+    private ObjectProvider<MongoCommandMetrics> commandMetrics;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
     @Override
     @NonNull
     protected String getDatabaseName() {
@@ -56,85 +97,124 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
 
     @Override
     protected boolean autoIndexCreation() {
-        return true;
+        return false;
     }
 
     @Override
-    @Bean
     @NonNull
-    public MongoClient mongoClient() {
-        try {
-            log.info("Initializing MongoDB client with URI: {}", mongoUri.replaceAll("://.*@", "://*****@"));
-            ConnectionString connectionString = new ConnectionString(mongoUri);
-            MongoClientSettings settings = MongoClientSettings.builder()
-                .applyConnectionString(connectionString)
-                .applyToConnectionPoolSettings(builder -> {
-                    builder.maxSize(maxConnectionPoolSize)
-                           .minSize(minConnectionPoolSize)
-                           .maxConnectionIdleTime(maxConnectionIdleTime, TimeUnit.MILLISECONDS);
-                    log.debug("Configured connection pool: max={}, min={}, idleTime={}ms", 
-                             maxConnectionPoolSize, minConnectionPoolSize, maxConnectionIdleTime);
-                })
-                .applyToSocketSettings(builder -> {
-                    builder.connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
-                           .readTimeout(socketTimeout, TimeUnit.MILLISECONDS);
-                    log.debug("Configured socket settings: connectTimeout={}ms, readTimeout={}ms", 
-                             connectTimeout, socketTimeout);
-                })
-                .build();
-            
-            MongoClient client = MongoClients.create(settings);
-            
-            // Verify connection
-            log.info("Testing MongoDB connection...");
-            client.getDatabase(getDatabaseName()).runCommand(new org.bson.Document("ping", 1));
-            log.info("Successfully connected to MongoDB database: {}", getDatabaseName());
-            
-            return client;
-        } catch (MongoException e) {
-            String errorMessage = String.format("Failed to create MongoDB client: %s", e.getMessage());
-            log.error(errorMessage, e);
-            throw new RuntimeException(errorMessage, e);
-        }
+    protected Collection<String> getMappingBasePackages() {
+        // Entities are registered on first use instead of by a classpath scan
+        return Set.of();
     }
 
-    @Bean
-    @NonNull
-    public MongoTemplate mongoTemplate() {
-        try {
-            log.debug("Creating MongoTemplate...");
-            MongoTemplate template = new MongoTemplate(mongoClient(), getDatabaseName());
-            MappingMongoConverter converter = (MappingMongoConverter) template.getConverter();
-            
-            // Remove _class field from documents
-            converter.setTypeMapper(new DefaultMongoTypeMapper(null));
-            log.debug("Configured MongoConverter to remove _class field");
-            
-            // Set up custom conversions if needed
-            converter.setCustomConversions(customConversions());
-            
-            // Set up mapping context
-            MongoMappingContext mappingContext = (MongoMappingContext) converter.getMappingContext();
-            mappingContext.setAutoIndexCreation(true);
-            log.debug("Enabled auto index creation");
-            
-            converter.afterPropertiesSet();
-            log.info("Successfully created MongoTemplate");
-            return template;
-        } catch (Exception e) {
-            String errorMessage = String.format("Failed to create MongoTemplate: %s", e.getMessage());
-            log.error(errorMessage, e);
-            throw new RuntimeException(errorMessage, e);
-        }
+    @Override
+    protected void configureClientSettings(@NonNull MongoClientSettings.Builder builder) {
+        log.info("Configuring MongoDB client with URI: {}", mongoUri.replaceAll("://.*@", "://*****@"));
+        builder.applyConnectionString(new ConnectionString(mongoUri))
+            .applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxConnectionPoolSize)
+                .minSize(minConnectionPoolSize)
+                .maxConnectionIdleTime(maxConnectionIdleTime, TimeUnit.MILLISECONDS))
+            .applyToSocketSettings(socket -> socket
+                .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+                .readTimeout(socketTimeout, TimeUnit.MILLISECONDS))
+            .applyToClusterSettings(cluster -> cluster
+                .serverSelectionTimeout(serverSelectionTimeout, TimeUnit.MILLISECONDS));
+        commandMetrics.ifAvailable(builder::addCommandListener);
+        meterRegistry.ifAvailable(registry -> builder.applyToConnectionPoolSettings(pool -> pool
+            .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(registry))));
+        log.debug("Configured connection pool: max={}, min={}, idleTime={}ms, connectTimeout={}ms, readTimeout={}ms",
+            maxConnectionPoolSize, minConnectionPoolSize, maxConnectionIdleTime, connectTimeout, socketTimeout);
+    }
+
+    @Override
+    protected void configureConverters(@NonNull MongoCustomConversions.MongoConverterConfigurationAdapter adapter) {
+        adapter.registerConverter(new MongoConverters.DateToLocalDateTimeConverter());
+        adapter.registerConverter(new MongoConverters.LocalDateTimeToDateConverter());
     }
 
     @Bean
     @Override
     @NonNull
-    public MongoCustomConversions customConversions() {
-        List<Converter<?, ?>> converters = new ArrayList<>();
-        converters.add(new MongoConverters.DateToLocalDateTimeConverter());
-        converters.add(new MongoConverters.LocalDateTimeToDateConverter());
-        return new MongoCustomConversions(converters);
+    public MappingMongoConverter mappingMongoConverter(@NonNull MongoDatabaseFactory databaseFactory,
+                                                       @NonNull MongoCustomConversions customConversions,
+                                                       @NonNull MongoMappingContext mappingContext) {
+        MappingMongoConverter converter = new MappingMongoConverter(
+            new CountingDbRefResolver(databaseFactory, commandMetrics), mappingContext);
+        converter.setCustomConversions(customConversions);
+        converter.setCodecRegistryProvider(databaseFactory);
+        // Remove _class field from documents
+        converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+        return converter;
+    }
+
+    /**
+     * Reactive Streams client for the non-blocking read endpoints. It has the
+     * blocking client's timeouts and listeners but its own pool, sized by
+     * {@code mongo.reactive.*}: a few connections are enough for many
+     * requests in flight, which wait up to the max wait time for one instead
+     * of each holding a thread. It keeps no idle connections by default.
+     */
+    @Bean(destroyMethod = "close")
+    public com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient() {
+        MongoClientSettings settings = MongoClientSettings.builder(mongoClientSettings())
+            .applyToConnectionPoolSettings(pool -> pool
+                .maxSize(reactiveMaxConnectionPoolSize)
+                .minSize(reactiveMinConnectionPoolSize)
+                .maxWaitTime(reactiveMaxWaitTime, TimeUnit.MILLISECONDS))
+            .build();
+        log.debug("Configured reactive connection pool: max={}, min={}, maxWait={}ms",
+            reactiveMaxConnectionPoolSize, reactiveMinConnectionPoolSize, reactiveMaxWaitTime);
+        return MongoClients.create(settings);
+    }
+
+    @Bean
+    public ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory(
+            com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient) {
+        return new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient, getDatabaseName());
+    }
+
+    /**
+     * DBRefs cannot be resolved without blocking, so the reactive template's
+     * converter refuses to: callers read raw documents and load references
+     * in bulk themselves.
+     */
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory,
+                                                       MongoCustomConversions customConversions,
+                                                       MongoMappingContext mappingContext) {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(customConversions);
+        converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+        converter.afterPropertiesSet();
+        return new ReactiveMongoTemplate(reactiveMongoDatabaseFactory, converter);
+    }
+
+    /**
+     * Marks MongoDB commands issued from within a repository method with
+     * {@code <Repository>.<method>}.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryOperationTagging() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(@NonNull Object bean, @NonNull String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                        (proxyFactory, repositoryInformation) -> {
+                            String repository = repositoryInformation.getRepositoryInterface().getSimpleName();
+                            proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+                                String previous = MongoCommandContext.enter(repository + "." + invocation.getMethod().getName());
+                                try {
+                                    return invocation.proceed();
+                                } finally {
+                                    MongoCommandContext.restore(previous);
+                                }
+                            });
+                        }));
+                }
+                return bean;
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -1,24 +1,17 @@
 package com.skillshare.config;
 
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
-import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import org.springframework.lang.NonNull;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.Arrays;
 import java.util.Date;
 
-@Configuration
-public class MongoConverters {
+/**
+ * Converters registered with the mapping converter in {@link MongoConfig}.
+ */
+public final class MongoConverters {
 
-    @Bean
-    public MongoCustomConversions customConversions() {
-        return new MongoCustomConversions(Arrays.asList(
-            new DateToLocalDateTimeConverter(),
-            new LocalDateTimeToDateConverter()
-        ));
+    private MongoConverters() {
     }
 
     public static class DateToLocalDateTimeConverter implements Converter<Date, LocalDateTime> {
@@ -36,4 +29,4 @@ public class MongoConverters {
                 Date.from(source.atZone(ZoneId.systemDefault()).toInstant());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,301 @@
+package com.skillshare.config;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.ValidationOptions;
+import com.mongodb.client.result.UpdateResult;
+import com.skillshare.model.LearningPlan;
+import com.skillshare.model.Post;
+import com.skillshare.model.Resource;
+import com.skillshare.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Applies collection validators and the indexes declared on entities once the
+ * application is ready, on a background thread, so startup never waits for
+ * index builds. Until a build finishes, queries simply run without that index.
+ *
+ * <p>Indexes from the {@link IndexRegistry} are then rolled out one at a time,
+ * pausing {@code mongo.index-build.pause-ms} after each build, and skipped if
+ * an index with the same keys already exists under any name. Retired indexes
+ * are dropped after that, so queries are never left without an index. Finally
+ * the registered queries are checked with {@link IndexCoverageVerifier}.
+ *
+ * <p>Before any of that, documents written before versioning was introduced
+ * get {@code version: 0}, even when index builds are disabled; without it
+ * saving such a document would be treated as an insert. The backfill scans
+ * whole collections, so it runs as a one-off migration: once it has completed
+ * it is recorded in the {@code migrations} collection and never run again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer {
+    private static final String ENTITY_PACKAGE = "com.skillshare.model";
+    private static final List<Class<?>> VERSIONED_ENTITIES =
+        List.of(Post.class, Resource.class, User.class, LearningPlan.class);
+    private static final String MIGRATIONS = "migrations";
+    private static final String VERSION_BACKFILL = "backfill-entity-versions";
+
+    private final MongoTemplate mongoTemplate;
+    private final IndexRegistry indexRegistry;
+    private final IndexCoverageVerifier indexCoverageVerifier;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${mongo.index-build.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mongo.index-build.pause-ms:500}")
+    private long pauseMs;
+
+    @Value("${mongo.index-coverage.verify-on-startup:true}")
+    private boolean verifyOnStartup;
+
+    private volatile boolean completed;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        backgroundThreads.named("mongo-index-builder").newThread(() -> {
+            backfillVersions();
+            if (enabled) {
+                initialize();
+            } else {
+                log.info("Background index build disabled");
+            }
+        }).start();
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    private void backfillVersions() {
+        MongoCollection<Document> migrations = mongoTemplate.getCollection(MIGRATIONS);
+        try {
+            if (migrations.countDocuments(Filters.eq("_id", VERSION_BACKFILL)) > 0) {
+                return;
+            }
+        } catch (Exception e) {
+            log.error("Failed to read migrations: {}", e.getMessage());
+            return;
+        }
+
+        // Idempotent, so instances starting together may both run it
+        boolean complete = true;
+        for (Class<?> entityType : VERSIONED_ENTITIES) {
+            String collection = mongoTemplate.getCollectionName(entityType);
+            try {
+                UpdateResult result = mongoTemplate.getCollection(collection)
+                    .updateMany(Filters.exists("version", false), Updates.set("version", 0L));
+                if (result.getModifiedCount() > 0) {
+                    log.info("Initialised version on {} documents in {}", result.getModifiedCount(), collection);
+                }
+            } catch (Exception e) {
+                complete = false;
+                log.error("Failed to initialise versions in {}: {}", collection, e.getMessage());
+            }
+        }
+        if (complete) {
+            migrations.updateOne(Filters.eq("_id", VERSION_BACKFILL),
+                Updates.set("completed_at", new Date()), new UpdateOptions().upsert(true));
+            log.info("Migration {} completed", VERSION_BACKFILL);
+        }
+    }
+
+    private void initialize() {
+        long start = System.currentTimeMillis();
+        try {
+            ensureUserValidation();
+        } catch (Exception e) {
+            log.error("Error initializing MongoDB collections and validation", e);
+        }
+
+        MongoPersistentEntityIndexResolver resolver =
+            new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        int built = 0;
+        int failed = 0;
+        for (Class<?> entityType : scanEntities()) {
+            for (IndexDefinition index : resolver.resolveIndexFor(entityType)) {
+                try {
+                    mongoTemplate.indexOps(entityType).ensureIndex(index);
+                    built++;
+                } catch (Exception e) {
+                    failed++;
+                    log.error("Failed to create index {} on {}: {}", index.getIndexKeys(), entityType.getSimpleName(), e.getMessage());
+                }
+            }
+        }
+
+        for (IndexRegistry.RequiredIndex index : indexRegistry.getIndexes()) {
+            try {
+                if (ensureRegisteredIndex(index)) {
+                    built++;
+                    Thread.sleep(pauseMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failed++;
+                log.error("Failed to create index {} on {}: {}", index.name(), index.collection(), e.getMessage());
+            }
+        }
+        for (IndexRegistry.RetiredIndex index : indexRegistry.getRetiredIndexes()) {
+            try {
+                dropRetiredIndex(index);
+            } catch (Exception e) {
+                log.error("Failed to drop index {} on {}: {}", index.name(), index.collection(), e.getMessage());
+            }
+        }
+        completed = true;
+        log.info("Ensured MongoDB indexes ({} built or confirmed, {} failed) in {}ms",
+            built, failed, System.currentTimeMillis() - start);
+
+        if (verifyOnStartup) {
+            try {
+                indexCoverageVerifier.verify();
+            } catch (Exception e) {
+                log.error("Index coverage verification failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Creates a registered index unless one with the same key pattern exists.
+     *
+     * @return whether an index was built
+     */
+    private boolean ensureRegisteredIndex(IndexRegistry.RequiredIndex index) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(index.collection());
+        for (Document existing : collection.listIndexes()) {
+            if (sameKeys(existing.get("key", Document.class), index.keys())) {
+                return false;
+            }
+        }
+
+        IndexOptions options = new IndexOptions()
+            .name(index.name())
+            .unique(index.unique())
+            .sparse(index.sparse())
+            .background(true);
+        if (index.partialFilter() != null) {
+            options.partialFilterExpression(index.partialFilter());
+        }
+        long start = System.currentTimeMillis();
+        collection.createIndex(index.keys(), options);
+        log.info("Built index {} on {} in {}ms", index.name(), index.collection(), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    private void dropRetiredIndex(IndexRegistry.RetiredIndex index) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(index.collection());
+        for (Document existing : collection.listIndexes()) {
+            if (index.name().equals(existing.getString("name"))) {
+                collection.dropIndex(index.name());
+                log.info("Dropped retired index {} on {}", index.name(), index.collection());
+                return;
+            }
+        }
+    }
+
+    private boolean sameKeys(Document existing, Document wanted) {
+        if (existing == null || existing.size() != wanted.size()) {
+            return false;
+        }
+        List<String> existingFields = new ArrayList<>(existing.keySet());
+        List<String> wantedFields = new ArrayList<>(wanted.keySet());
+        if (!existingFields.equals(wantedFields)) {
+            return false;
+        }
+        for (String field : wantedFields) {
+            Object a = existing.get(field);
+            Object b = wanted.get(field);
+            boolean equal = a instanceof Number x && b instanceof Number y
+                ? Integer.signum(x.intValue()) == Integer.signum(y.intValue())
+                : String.valueOf(a).equals(String.valueOf(b));
+            if (!equal) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Class<?>> scanEntities() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(org.springframework.data.mongodb.core.mapping.Document.class));
+
+        List<Class<?>> entities = new ArrayList<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(ENTITY_PACKAGE)) {
+            try {
+                entities.add(ClassUtils.forName(candidate.getBeanClassName(), getClass().getClassLoader()));
+            } catch (ClassNotFoundException e) {
+                log.warn("Skipping entity {}: {}", candidate.getBeanClassName(), e.getMessage());
+            }
+        }
+        return entities;
+    }
+
+    private void ensureUserValidation() {
+        if (mongoTemplate.collectionExists("users")) {
+            return;
+        }
+
+        Document userValidator = Document.parse("""
+            {
+                $jsonSchema: {
+                    bsonType: "object",
+                    required: ["email", "password", "name"],
+                    properties: {
+                        email: {
+                            bsonType: "string",
+                            pattern: "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$"
+                        },
+                        password: {
+                            bsonType: "string",
+                            minLength: 6
+                        },
+                        name: {
+                            bsonType: "string",
+                            minLength: 2
+                        },
+                        enabled: {
+                            bsonType: "bool"
+                        },
+                        profilePicture: {
+                            bsonType: ["string", "null"]
+                        },
+                        bio: {
+                            bsonType: ["string", "null"],
+                            maxLength: 500
+                        }
+                    }
+                }
+            }
+        """);
+
+        mongoTemplate.getDb().createCollection("users", new CreateCollectionOptions()
+            .validationOptions(new ValidationOptions().validator(userValidator)));
+        log.info("Created users collection with validation rules");
+    }
+}
@@ -1,9 +1,16 @@
 package com.skillshare.config;
 
+import jakarta.servlet.DispatcherType;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.Customizer;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -11,19 +18,26 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.StringUtils;
 import java.util.Arrays;
 import java.util.List;
 import com.skillshare.service.CustomUserDetailsService; // Added import for CustomUserDetailsService
 
+@Slf4j
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthFilter;
@@ -44,13 +58,65 @@ public class SecurityConfig {
     @Value("${cors.max-age}")
     private long maxAge;
 
+    @Value("${metrics.scrape.username}")
+    private String scrapeUsername;
+
+    @Value("${metrics.scrape.password}")
+    private String scrapePassword;
+
+    /**
+     * Actuator endpoints (metrics, Prometheus scrape) use HTTP Basic with a
+     * dedicated scrape account rather than user JWTs; only health is public.
+     * The chain has its own authentication manager, so scrape credentials are
+     * never looked up in the users collection. There is no default account:
+     * until both scrape credentials are configured, every endpoint but health
+     * is denied.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher(EndpointRequest.toAnyEndpoint())
+            .csrf(csrf -> csrf.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+        if (!StringUtils.hasText(scrapeUsername) || !StringUtils.hasText(scrapePassword)) {
+            log.warn("metrics.scrape.username/password not set; actuator endpoints other than health are disabled");
+            http.authorizeHttpRequests(auth -> auth
+                .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                .anyRequest().denyAll()
+            );
+            return http.build();
+        }
+
+        DaoAuthenticationProvider scrapeProvider = new DaoAuthenticationProvider();
+        scrapeProvider.setUserDetailsService(new InMemoryUserDetailsManager(User.withUsername(scrapeUsername)
+            .password(passwordEncoder().encode(scrapePassword))
+            .roles("ACTUATOR")
+            .build()));
+        scrapeProvider.setPasswordEncoder(passwordEncoder());
+
+        http
+            .authorizeHttpRequests(auth -> auth
+                .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                .anyRequest().hasRole("ACTUATOR")
+            )
+            .authenticationManager(new ProviderManager(scrapeProvider))
+            .httpBasic(Customizer.withDefaults());
+
+        return http.build();
+    }
+
     @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Reactive handlers resume on an async dispatch of an already authorized request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Public endpoints
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/public/**").permitAll()
@@ -59,10 +125,15 @@ public class SecurityConfig {
                 .requestMatchers(
                     "/api/resources",
                     "/api/resources/categories",
-                    "/api/resources/featured"
+                    "/api/resources/featured",
+                    "/api/reactive/resources"
                 ).permitAll()
+                // Media is fetched by <img>/<video> tags, which cannot send a bearer token; URLs are content hashes
+                .requestMatchers(HttpMethod.GET, "/api/media/**").permitAll()
                 // Swagger UI
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                // Operational endpoints: rebuilds, reconciles, benchmarks and diagnostics
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 // Protected endpoints
                 .requestMatchers("/api/users/**").authenticated()
                 .requestMatchers("/api/posts/**").authenticated()
@@ -0,0 +1,59 @@
+package com.skillshare.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring buffer of the most recent slow MongoDB commands. Writers
+ * claim a slot with one atomic increment and never block each other.
+ */
+@Component
+public class SlowCommandLog {
+    public record SlowCommand(
+        Instant at,
+        String command,
+        String collection,
+        String operation,
+        String shape,
+        long durationMs,
+        Integer documents,
+        boolean failed
+    ) {}
+
+    private final AtomicReferenceArray<SlowCommand> slots;
+    private final AtomicLong next = new AtomicLong();
+
+    public SlowCommandLog(@Value("${mongo.metrics.slow-command-capacity:256}") int capacity) {
+        this.slots = new AtomicReferenceArray<>(Math.max(1, capacity));
+    }
+
+    public void add(SlowCommand command) {
+        slots.set((int) (next.getAndIncrement() % slots.length()), command);
+    }
+
+    /**
+     * Returns the buffered commands, newest first.
+     */
+    public List<SlowCommand> snapshot() {
+        long end = next.get();
+        long start = Math.max(0, end - slots.length());
+        List<SlowCommand> commands = new ArrayList<>((int) (end - start));
+        for (long i = end - 1; i >= start; i--) {
+            SlowCommand command = slots.get((int) (i % slots.length()));
+            if (command != null) {
+                commands.add(command);
+            }
+        }
+        return commands;
+    }
+
+    public long getTotal() {
+        return next.get();
+    }
+}
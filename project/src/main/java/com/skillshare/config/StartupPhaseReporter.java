@@ -0,0 +1,74 @@
+package com.skillshare.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logs where startup time went once the application is ready: the total,
+ * the time per recorded startup phase and the slowest bean instantiations.
+ * The buffered timeline is drained afterwards so it does not stay in memory.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StartupPhaseReporter {
+    private static final int SLOWEST_BEANS = 10;
+
+    private final ApplicationStartup applicationStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        long jvmUptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        Duration timeTaken = event.getTimeTaken();
+        log.info("Startup: ready in {}ms (JVM up {}ms, {}ms before SpringApplication.run)",
+            timeTaken != null ? timeTaken.toMillis() : -1, jvmUptime,
+            timeTaken != null ? jvmUptime - timeTaken.toMillis() : -1);
+
+        if (!(applicationStartup instanceof BufferingApplicationStartup buffering)) {
+            return;
+        }
+        List<StartupTimeline.TimelineEvent> events = buffering.drainBufferedTimeline().getEvents();
+
+        Map<String, Duration> phases = new LinkedHashMap<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (StartupTimeline.TimelineEvent timelineEvent : events) {
+            String name = timelineEvent.getStartupStep().getName();
+            phases.merge(name, timelineEvent.getDuration(), Duration::plus);
+            counts.merge(name, 1, Integer::sum);
+        }
+        phases.entrySet().stream()
+            .sorted(Map.Entry.<String, Duration>comparingByValue().reversed())
+            .forEach(phase -> log.info("Startup phase {}: {}ms ({} steps)",
+                phase.getKey(), phase.getValue().toMillis(), counts.get(phase.getKey())));
+
+        events.stream()
+            .filter(timelineEvent -> "spring.beans.instantiate".equals(timelineEvent.getStartupStep().getName()))
+            .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+            .limit(SLOWEST_BEANS)
+            .forEach(timelineEvent -> log.info("Startup bean {}: {}ms",
+                beanName(timelineEvent.getStartupStep()), timelineEvent.getDuration().toMillis()));
+    }
+
+    private String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+}
@@ -0,0 +1,103 @@
+package com.skillshare.controller;
+
+import com.skillshare.config.IndexCoverageVerifier;
+import com.skillshare.config.SlowCommandLog;
+import com.skillshare.service.MediaVariantService;
+import com.skillshare.service.PlanTagService;
+import com.skillshare.service.ReminderScheduler;
+import com.skillshare.service.ResourceDeduplicationService;
+import com.skillshare.service.ResourceRecommendationService;
+import com.skillshare.service.SerializationBenchmarkService;
+import com.skillshare.service.UserStatsService;
+import com.skillshare.service.WriteBehindService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+    private static final int MAX_BENCHMARK_ITEMS = 100;
+    private static final int MAX_BENCHMARK_ITERATIONS = 1000;
+
+    private final WriteBehindService writeBehindService;
+    private final ReminderScheduler reminderScheduler;
+    private final PlanTagService planTagService;
+    private final IndexCoverageVerifier indexCoverageVerifier;
+    private final SlowCommandLog slowCommandLog;
+    private final SerializationBenchmarkService serializationBenchmarkService;
+    private final UserStatsService userStatsService;
+    private final ResourceRecommendationService resourceRecommendationService;
+    private final ResourceDeduplicationService resourceDeduplicationService;
+    private final MediaVariantService mediaVariantService;
+
+    @GetMapping("/write-behind")
+    public ResponseEntity<WriteBehindService.Stats> getWriteBehindStats() {
+        return ResponseEntity.ok(writeBehindService.getStats());
+    }
+
+    @GetMapping("/reminders")
+    public ResponseEntity<ReminderScheduler.Stats> getReminderStats() {
+        return ResponseEntity.ok(reminderScheduler.getStats());
+    }
+
+    @PostMapping("/plan-tags/rebuild")
+    public ResponseEntity<Long> rebuildPlanTags() {
+        log.info("Rebuilding plan tag counts");
+        return ResponseEntity.ok(planTagService.rebuild());
+    }
+
+    @PostMapping("/user-stats/reconcile")
+    public ResponseEntity<UserStatsService.ReconcileResult> reconcileUserStats() {
+        log.info("Reconciling user stats");
+        return ResponseEntity.ok(userStatsService.reconcile());
+    }
+
+    @PostMapping("/recommendations/rebuild")
+    public ResponseEntity<ResourceRecommendationService.RebuildResult> rebuildRecommendations() {
+        log.info("Rebuilding resource recommendations");
+        return ResponseEntity.ok(resourceRecommendationService.rebuild());
+    }
+
+    /** Merges resources sharing a canonical URL into the oldest one; destructive. */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/resources/deduplicate")
+    public ResponseEntity<ResourceDeduplicationService.DeduplicationResult> deduplicateResources() {
+        log.info("Collapsing duplicate resources");
+        return ResponseEntity.ok(resourceDeduplicationService.collapseDuplicates());
+    }
+
+    @GetMapping("/media/variants")
+    public ResponseEntity<MediaVariantService.Stats> getMediaVariantStats() {
+        return ResponseEntity.ok(mediaVariantService.getStats());
+    }
+
+    @GetMapping("/indexes/coverage")
+    public ResponseEntity<IndexCoverageVerifier.CoverageReport> getIndexCoverage() {
+        return ResponseEntity.ok(indexCoverageVerifier.verify());
+    }
+
+    // Slow commands carry query shapes, collection names and timings
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/mongo/slow-commands")
+    public ResponseEntity<List<SlowCommandLog.SlowCommand>> getSlowCommands() {
+        return ResponseEntity.ok(slowCommandLog.snapshot());
+    }
+
+    @GetMapping("/serialization/benchmark")
+    public ResponseEntity<SerializationBenchmarkService.Report> benchmarkSerialization(
+            @RequestParam(defaultValue = "POSTS") SerializationBenchmarkService.Sample sample,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "200") int iterations) throws IOException {
+        return ResponseEntity.ok(serializationBenchmarkService.run(sample,
+            Math.min(Math.max(size, 1), MAX_BENCHMARK_ITEMS),
+            Math.min(Math.max(iterations, 1), MAX_BENCHMARK_ITERATIONS)));
+    }
+}
@@ -1,6 +1,7 @@
 package com.skillshare.controller;
 
 import com.skillshare.model.User;
+import com.skillshare.model.UserDTO;
 import com.skillshare.service.JwtService;
 import com.skillshare.service.UserService;
 import jakarta.validation.Valid;
@@ -42,7 +43,7 @@ public class AuthController {
 
             Map<String, Object> response = new HashMap<>();
             response.put("token", token);
-            response.put("user", user);
+            response.put("user", UserDTO.fromUser(user));
             response.put("status", "success");
             response.put("message", "Login successful");
 
@@ -108,7 +109,7 @@ public class AuthController {
 
             Map<String, Object> response = new HashMap<>();
             response.put("token", token);
-            response.put("user", savedUser);
+            response.put("user", UserDTO.fromUser(savedUser));
             response.put("status", "success");
             response.put("message", "Registration successful");
 
@@ -143,7 +144,7 @@ public class AuthController {
 
             return ResponseEntity.ok(Map.of(
                 "status", "success",
-                "user", user,
+                "user", UserDTO.fromUser(user),
                 "message", "Token is valid"
             ));
         } catch (Exception e) {
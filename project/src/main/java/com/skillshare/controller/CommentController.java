@@ -0,0 +1,127 @@
+package com.skillshare.controller;
+
+import com.skillshare.exception.WriteBehindRejectedException;
+import com.skillshare.model.Comment;
+import com.skillshare.model.CommentDTO;
+import com.skillshare.model.CursorPage;
+import com.skillshare.service.CommentService;
+import com.skillshare.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/posts/{postId}/comments")
+@RequiredArgsConstructor
+public class CommentController {
+    private final CommentService commentService;
+    private final UserService userService;
+
+    @GetMapping
+    public ResponseEntity<CursorPage<CommentDTO>> getComments(
+            @PathVariable String postId,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        String currentUserId = currentUserId(authentication).orElse(null);
+        log.debug("Getting comments for post: {} before: {}, limit: {}", postId, before, limit);
+
+        CursorPage<Comment> comments = commentService.getTopLevelComments(postId, before, limit);
+        return ResponseEntity.ok(comments.map(c -> CommentDTO.fromComment(c, currentUserId)));
+    }
+
+    @GetMapping("/{commentId}/replies")
+    public ResponseEntity<CursorPage<CommentDTO>> getReplies(
+            @PathVariable String postId,
+            @PathVariable String commentId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        String currentUserId = currentUserId(authentication).orElse(null);
+        log.debug("Getting replies to comment: {} on post: {} after: {}, limit: {}", commentId, postId, after, limit);
+
+        try {
+            CursorPage<Comment> replies = commentService.getThread(postId, commentId, after, limit);
+            return ResponseEntity.ok(replies.map(c -> CommentDTO.fromComment(c, currentUserId)));
+        } catch (RuntimeException e) {
+            log.warn("Error getting replies to comment {}: {}", commentId, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping
+    public ResponseEntity<CommentDTO> addComment(
+            @PathVariable String postId,
+            @RequestBody CommentRequest request,
+            Authentication authentication) {
+        if (authentication == null) {
+            log.warn("Attempt to comment without authentication");
+            return ResponseEntity.status(401).build();
+        }
+        if (request.content() == null || request.content().isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<String> userId = currentUserId(authentication);
+        if (userId.isEmpty()) {
+            return ResponseEntity.status(401).build();
+        }
+        String currentUserId = userId.get();
+        log.debug("Adding comment to post: {} for user: {}, parent: {}", postId, currentUserId, request.parentId());
+
+        try {
+            Comment comment = commentService.addCommentToPost(postId, currentUserId, request.content(), request.parentId());
+            return ResponseEntity.ok(CommentDTO.fromComment(comment, currentUserId));
+        } catch (WriteBehindRejectedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.error("Error adding comment to post {}: {}", postId, e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/{commentId}")
+    public ResponseEntity<Void> deleteComment(
+            @PathVariable String postId,
+            @PathVariable String commentId,
+            Authentication authentication) {
+        if (authentication == null) {
+            log.warn("Attempt to delete comment without authentication");
+            return ResponseEntity.status(401).build();
+        }
+        Optional<String> userId = currentUserId(authentication);
+        if (userId.isEmpty()) {
+            return ResponseEntity.status(401).build();
+        }
+        String currentUserId = userId.get();
+
+        Comment comment = commentService.getCommentById(commentId).orElse(null);
+        if (comment == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!currentUserId.equals(comment.getUserId())) {
+            log.warn("User {} attempted to delete comment {} owned by {}", currentUserId, commentId, comment.getUserId());
+            return ResponseEntity.status(403).build();
+        }
+
+        commentService.deleteComment(commentId);
+        log.debug("Deleted comment {} and its replies from post {}", commentId, postId);
+        return ResponseEntity.noContent().build();
+    }
+
+    private Optional<String> currentUserId(Authentication authentication) {
+        if (authentication == null) {
+            return Optional.empty();
+        }
+        return userService.getUserIdByEmail(authentication.getName());
+    }
+}
+
+record CommentRequest(
+    String content,
+    String parentId
+) {}
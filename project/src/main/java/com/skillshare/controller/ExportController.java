@@ -0,0 +1,78 @@
+package com.skillshare.controller;
+
+import com.skillshare.service.ExportService;
+import com.skillshare.service.ExportService.ExportType;
+import com.skillshare.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class ExportController {
+    private final ExportService exportService;
+    private final UserService userService;
+
+    /**
+     * Streams a collection as NDJSON. Administrators receive every document;
+     * other users receive only the documents they own.
+     */
+    @GetMapping("/{type}")
+    public ResponseEntity<StreamingResponseBody> export(
+            @PathVariable String type,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            Authentication authentication) {
+        if (authentication == null) {
+            log.warn("Attempt to export {} without authentication", type);
+            return ResponseEntity.status(401).build();
+        }
+
+        Optional<ExportType> exportType = ExportType.fromPath(type);
+        if (exportType.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        boolean admin = authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .anyMatch("ROLE_ADMIN"::equals);
+        String ownerId = null;
+        if (!admin) {
+            Optional<String> userId = userService.getUserIdByEmail(authentication.getName());
+            if (userId.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            ownerId = userId.get();
+        }
+        String owner = ownerId;
+        log.debug("Exporting {} after {} for user: {}, own documents only: {}, gzip: {}",
+            type, after, authentication.getName(), !admin, gzip);
+
+        StreamingResponseBody body = output -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(output, 64 * 1024);
+                exportService.export(exportType.get(), owner, after, compressed);
+                compressed.finish();
+            } else {
+                exportService.export(exportType.get(), owner, after, output);
+            }
+        };
+
+        String fileName = type.toLowerCase() + (gzip ? ".ndjson.gz" : ".ndjson");
+        return ResponseEntity.ok()
+            .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+            .body(body);
+    }
+}
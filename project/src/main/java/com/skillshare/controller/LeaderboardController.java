@@ -0,0 +1,33 @@
+package com.skillshare.controller;
+
+import com.skillshare.service.LeaderboardService;
+import com.skillshare.service.LeaderboardService.Leaderboard;
+import com.skillshare.service.LeaderboardService.Window;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/leaderboards")
+@RequiredArgsConstructor
+public class LeaderboardController {
+    private final LeaderboardService leaderboardService;
+
+    @GetMapping
+    public ResponseEntity<List<String>> getCategories() {
+        return ResponseEntity.ok(leaderboardService.getCategories());
+    }
+
+    @GetMapping("/{category}")
+    public ResponseEntity<Leaderboard> getLeaderboard(
+            @PathVariable String category,
+            @RequestParam(defaultValue = "ALL_TIME") Window window,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
+        String callerEmail = authentication != null ? authentication.getName() : null;
+        return ResponseEntity.ok(leaderboardService.getLeaderboard(category, window, limit, callerEmail));
+    }
+}
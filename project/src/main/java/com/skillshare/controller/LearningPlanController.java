@@ -0,0 +1,204 @@
+package com.skillshare.controller;
+
+import com.skillshare.model.CursorPage;
+import com.skillshare.model.LearningPlan;
+import com.skillshare.model.Milestone;
+import com.skillshare.model.PlanTag;
+import com.skillshare.model.PlanTemplate;
+import com.skillshare.service.EntityVersionService;
+import com.skillshare.service.LearningPlanService;
+import com.skillshare.service.PlanTagService;
+import com.skillshare.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/plans")
+@RequiredArgsConstructor
+public class LearningPlanController {
+    private final LearningPlanService learningPlanService;
+    private final PlanTagService planTagService;
+    private final EntityVersionService entityVersionService;
+    private final UserService userService;
+
+    /**
+     * Tag discovery: plans carrying all ({@code match=all}) or any of the given
+     * tags, newest first. Pass the returned {@code nextCursor} as {@code before}
+     * for the next page.
+     */
+    @GetMapping
+    public ResponseEntity<CursorPage<LearningPlan>> discoverPlans(
+            @RequestParam(required = false) Set<String> tags,
+            @RequestParam(defaultValue = "all") String match,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "20") int limit) {
+        log.debug("Discovering plans by tags {} (match {}), before: {}", tags, match, before);
+        boolean matchAll = !"any".equalsIgnoreCase(match);
+        return ResponseEntity.ok(learningPlanService.discoverPlans(tags, matchAll, before, limit));
+    }
+
+    @GetMapping("/tags")
+    public ResponseEntity<List<PlanTag>> getPopularTags(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(planTagService.getPopularTags(Math.max(1, Math.min(limit, 500))));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<LearningPlan> getLearningPlan(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return learningPlanService.getLearningPlanById(id)
+            .map(plan -> {
+                String etag = entityVersionService.etag(plan);
+                return EntityVersionService.matches(ifNoneMatch, etag)
+                    ? ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<LearningPlan>build()
+                    : ResponseEntity.ok().eTag(etag).body(plan);
+            })
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{planId}/milestones")
+    public ResponseEntity<Milestone> addMilestone(
+            @PathVariable String planId,
+            @RequestBody Milestone milestone,
+            Authentication authentication) {
+        log.debug("Adding milestone to plan: {}", planId);
+        HttpStatus access = checkOwner(planId, authentication);
+        if (access != HttpStatus.OK) {
+            return ResponseEntity.status(access).build();
+        }
+        try {
+            return ResponseEntity.ok(learningPlanService.addMilestoneToPlan(planId, milestone));
+        } catch (RuntimeException e) {
+            log.warn("Error adding milestone to plan {}: {}", planId, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PatchMapping("/{planId}/milestones/{milestoneId}")
+    public ResponseEntity<Void> updateMilestoneStatus(
+            @PathVariable String planId,
+            @PathVariable String milestoneId,
+            @RequestParam boolean completed,
+            Authentication authentication) {
+        log.debug("Setting milestone {} of plan {} completed: {}", milestoneId, planId, completed);
+        HttpStatus access = checkOwner(planId, authentication);
+        if (access != HttpStatus.OK) {
+            return ResponseEntity.status(access).build();
+        }
+        try {
+            learningPlanService.updateMilestoneStatus(planId, milestoneId, completed);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            log.warn("Error updating milestone {} of plan {}: {}", milestoneId, planId, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PutMapping("/{planId}/milestones/{milestoneId}/position")
+    public ResponseEntity<Void> reorderMilestone(
+            @PathVariable String planId,
+            @PathVariable String milestoneId,
+            @RequestParam int index,
+            Authentication authentication) {
+        log.debug("Moving milestone {} of plan {} to position {}", milestoneId, planId, index);
+        HttpStatus access = checkOwner(planId, authentication);
+        if (access != HttpStatus.OK) {
+            return ResponseEntity.status(access).build();
+        }
+        try {
+            learningPlanService.reorderMilestone(planId, milestoneId, index);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            log.warn("Error moving milestone {} of plan {}: {}", milestoneId, planId, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/{planId}/template")
+    public ResponseEntity<PlanTemplate> createTemplate(
+            @PathVariable String planId,
+            Authentication authentication) {
+        log.debug("Publishing plan {} as template, requested by: {}", planId, authentication.getName());
+        HttpStatus status = checkOwner(planId, authentication);
+        if (status != HttpStatus.OK) {
+            return ResponseEntity.status(status).build();
+        }
+        String currentUserId = currentUserId(authentication).orElseThrow();
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(learningPlanService.createTemplateFromPlan(planId, currentUserId));
+    }
+
+    @GetMapping("/templates/{templateId}")
+    public ResponseEntity<PlanTemplate> getTemplate(@PathVariable String templateId) {
+        return learningPlanService.getTemplateById(templateId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/templates/{templateId}")
+    public ResponseEntity<PlanTemplate> updateTemplate(
+            @PathVariable String templateId,
+            @RequestBody PlanTemplate changes,
+            Authentication authentication) {
+        PlanTemplate template = learningPlanService.getTemplateById(templateId).orElse(null);
+        if (template == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String currentUserId = currentUserId(authentication).orElse(null);
+        if (currentUserId == null || !currentUserId.equals(template.getAuthorId())) {
+            log.warn("User {} attempted to update template {} authored by {}", currentUserId, templateId, template.getAuthorId());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(learningPlanService.updateTemplate(templateId, changes));
+    }
+
+    @PostMapping("/templates/{templateId}/clone")
+    public ResponseEntity<LearningPlan> cloneTemplate(
+            @PathVariable String templateId,
+            Authentication authentication) {
+        log.debug("Cloning template {} for user: {}", templateId, authentication.getName());
+        Optional<String> currentUserId = currentUserId(authentication);
+        if (currentUserId.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .body(learningPlanService.cloneTemplate(templateId, currentUserId.get()));
+        } catch (RuntimeException e) {
+            log.warn("Error cloning template {}: {}", templateId, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /** {@code OK} if the caller owns the plan, otherwise the status to answer with. */
+    private HttpStatus checkOwner(String planId, Authentication authentication) {
+        LearningPlan plan = learningPlanService.getLearningPlanById(planId).orElse(null);
+        if (plan == null) {
+            return HttpStatus.NOT_FOUND;
+        }
+        Optional<String> currentUserId = currentUserId(authentication);
+        if (currentUserId.isEmpty() || plan.getUser() == null || !currentUserId.get().equals(plan.getUser().getId())) {
+            log.warn("User {} attempted to change plan {} they do not own",
+                authentication != null ? authentication.getName() : null, planId);
+            return HttpStatus.FORBIDDEN;
+        }
+        return HttpStatus.OK;
+    }
+
+    private Optional<String> currentUserId(Authentication authentication) {
+        if (authentication == null) {
+            return Optional.empty();
+        }
+        return userService.getUserIdByEmail(authentication.getName());
+    }
+}
@@ -0,0 +1,126 @@
+package com.skillshare.controller;
+
+import com.skillshare.model.MediaAsset;
+import com.skillshare.service.MediaStorageService;
+import com.skillshare.service.MediaStorageService.StoredMedia;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Serves stored media by content hash, with single byte ranges for seeking.
+ * The file is handed to Tomcat's sendfile when the connector supports it, so
+ * its bytes go from the page cache to the socket without passing through the
+ * JVM.
+ *
+ * <p>Media shares the API's origin, so every response forbids content
+ * sniffing and is sandboxed, and content of a type uploads are no longer
+ * allowed to have (such as SVG stored before the type list was narrowed) is
+ * only offered as a download.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/media")
+@RequiredArgsConstructor
+public class MediaController {
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final MediaStorageService mediaStorageService;
+
+    @GetMapping("/{hash}")
+    public void download(
+            @PathVariable String hash,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        Optional<StoredMedia> stored = mediaStorageService.find(hash);
+        if (stored.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        MediaAsset asset = stored.get().asset();
+        long length = asset.getSize();
+        String etag = "\"" + hash + "\"";
+
+        // Content never changes under its hash
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader("Content-Security-Policy", "sandbox");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        HttpStatus status = HttpStatus.OK;
+        List<HttpRange> ranges = requestedRanges(request, etag);
+        // Multiple ranges are answered with the whole file, which RFC 9110 allows
+        if (ranges.size() == 1) {
+            try {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            status = HttpStatus.PARTIAL_CONTENT;
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setStatus(status.value());
+        response.setContentType(asset.getContentType());
+        response.setContentLengthLong(count);
+        ContentDisposition.Builder disposition = mediaStorageService.isAllowed(asset.getContentType())
+            ? ContentDisposition.inline()
+            : ContentDisposition.attachment();
+        if (asset.getFilename() != null) {
+            disposition.filename(asset.getFilename(), StandardCharsets.UTF_8);
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.build().toString());
+        if (count == 0 || HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, stored.get().path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        mediaStorageService.transfer(stored.get().path(), start, count, response.getOutputStream());
+    }
+
+    /** The ranges asked for, ignoring malformed headers and ranges of an older representation. */
+    private static List<HttpRange> requestedRanges(HttpServletRequest request, String etag) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range == null || (ifRange != null && !ifRange.equals(etag))) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed Range header: {}", range);
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.skillshare.controller;
+
+import com.skillshare.model.Notification;
+import com.skillshare.service.NotificationService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+public class NotificationController {
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final NotificationService notificationService;
+
+    @GetMapping
+    public ResponseEntity<Page<Notification>> getNotifications(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        Optional<String> userId = currentUserId(authentication);
+        if (userId.isEmpty()) {
+            return ResponseEntity.status(401).build();
+        }
+        PageRequest pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        return ResponseEntity.ok(notificationService.getNotifications(userId.get(), pageable));
+    }
+
+    @GetMapping("/unread-count")
+    public ResponseEntity<Map<String, Long>> getUnreadCount(Authentication authentication) {
+        return currentUserId(authentication)
+            .map(userId -> ResponseEntity.ok(Map.of("unread", notificationService.countUnread(userId))))
+            .orElseGet(() -> ResponseEntity.status(401).build());
+    }
+
+    @PostMapping("/{notificationId}/read")
+    public ResponseEntity<Void> markRead(@PathVariable String notificationId, Authentication authentication) {
+        Optional<String> userId = currentUserId(authentication);
+        if (userId.isEmpty()) {
+            return ResponseEntity.status(401).build();
+        }
+        return notificationService.markRead(userId.get(), notificationId)
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/read-all")
+    public ResponseEntity<Map<String, Long>> markAllRead(Authentication authentication) {
+        return currentUserId(authentication)
+            .map(userId -> ResponseEntity.ok(Map.of("updated", notificationService.markAllRead(userId))))
+            .orElseGet(() -> ResponseEntity.status(401).build());
+    }
+
+    /**
+     * Streams new and updated notifications as server-sent events. Reconnecting
+     * clients send {@code Last-Event-ID} and first receive what they missed.
+     * The response is written directly with non-blocking I/O.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void stream(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            Authentication authentication,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        Optional<String> userId = currentUserId(authentication);
+        if (userId.isEmpty()) {
+            response.setStatus(401);
+            return;
+        }
+        log.debug("Opening notification stream for user {} after event {}", userId.get(), lastEventId);
+        notificationService.openStream(userId.get(), lastEventId, request, response);
+    }
+
+    private Optional<String> currentUserId(Authentication authentication) {
+        if (authentication == null) {
+            return Optional.empty();
+        }
+        return notificationService.userIdByEmail(authentication.getName());
+    }
+}
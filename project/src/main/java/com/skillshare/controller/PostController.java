@@ -1,14 +1,28 @@
 package com.skillshare.controller;
 
+import com.skillshare.model.MediaAsset;
 import com.skillshare.model.Post;
 import com.skillshare.model.User;
+import com.skillshare.service.EntityVersionService;
+import com.skillshare.service.LiveCounterService;
+import com.skillshare.service.MediaStorageService;
+import com.skillshare.service.MediaVariantService;
 import com.skillshare.service.PostService;
 import com.skillshare.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
 
 @RestController
@@ -20,18 +34,56 @@ public class PostController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private EntityVersionService entityVersionService;
+
+    @Autowired
+    private MediaStorageService mediaStorageService;
+
+    @Autowired
+    private MediaVariantService mediaVariantService;
+
+    @Autowired
+    private LiveCounterService liveCounterService;
+
     @PostMapping
     public ResponseEntity<Post> createPost(@RequestBody Post post) {
         return ResponseEntity.ok(postService.createPost(post));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Post> getPostById(@PathVariable String id) {
+    public ResponseEntity<Post> getPostById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         Optional<Post> post = postService.getPostById(id);
-        return post.map(ResponseEntity::ok)
+        return post.map(p -> {
+                String etag = entityVersionService.etag(p);
+                return EntityVersionService.matches(ifNoneMatch, etag)
+                    ? ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<Post>build()
+                    : ResponseEntity.ok().eTag(etag).body(p);
+            })
             .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Streams the post's like and commitment counts instead of polling the post. The response is written directly with non-blocking
+     * I/O; a caller has a limited number of these streams open at once.
+     */
+    @GetMapping(value = "/{id}/counts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void streamCounts(
+            @PathVariable String id,
+            Authentication authentication,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (authentication == null) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        if (!liveCounterService.subscribe(LiveCounterService.Item.POST, id, authentication.getName(), request, response)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Post> updatePost(@PathVariable String id, @RequestBody Post post) {
         post.setId(id);
@@ -44,6 +96,69 @@ public class PostController {
         return ResponseEntity.ok().build();
     }
 
+    // Multipart parts are spooled to disk by the container, up to spring.servlet.multipart.max-file-size
+    @PostMapping(value = "/{postId}/media", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Post> uploadMedia(
+            @PathVariable String postId,
+            @RequestParam("file") MultipartFile file,
+            Authentication authentication) throws IOException {
+        Optional<Post> post = postService.getPostById(postId);
+        HttpStatus access = checkMediaUpload(post, file.getContentType(), authentication);
+        if (access != HttpStatus.OK) {
+            return ResponseEntity.status(access).build();
+        }
+        try (InputStream content = file.getInputStream()) {
+            return attachMedia(postId, content, file.getContentType(), file.getOriginalFilename());
+        }
+    }
+
+    /**
+     * Streams the request body into the media store, for files up to
+     * {@code media.max-upload-size}, which is larger than the multipart limit.
+     */
+    @PutMapping("/{postId}/media")
+    public ResponseEntity<Post> streamMedia(
+            @PathVariable String postId,
+            @RequestParam(required = false) String filename,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+        if (request.getContentLengthLong() > mediaStorageService.getMaxUploadSize().toBytes()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        Optional<Post> post = postService.getPostById(postId);
+        HttpStatus access = checkMediaUpload(post, request.getContentType(), authentication);
+        if (access != HttpStatus.OK) {
+            return ResponseEntity.status(access).build();
+        }
+        try (InputStream content = request.getInputStream()) {
+            return attachMedia(postId, content, request.getContentType(), filename);
+        }
+    }
+
+    /** {@code OK} if the caller owns the post and the type is accepted, otherwise the status to answer with. */
+    private HttpStatus checkMediaUpload(Optional<Post> post, String contentType, Authentication authentication) {
+        if (post.isEmpty()) {
+            return HttpStatus.NOT_FOUND;
+        }
+        User owner = post.get().getUser();
+        if (authentication == null || owner == null || !authentication.getName().equals(owner.getEmail())) {
+            return HttpStatus.FORBIDDEN;
+        }
+        if (!mediaStorageService.isAllowed(contentType)) {
+            return HttpStatus.UNSUPPORTED_MEDIA_TYPE;
+        }
+        return HttpStatus.OK;
+    }
+
+    private ResponseEntity<Post> attachMedia(String postId, InputStream content, String contentType, String filename)
+            throws IOException {
+        MediaAsset asset = mediaStorageService.store(content, contentType, filename);
+        Optional<Post> updated = postService.addMedia(postId, asset, mediaStorageService.url(asset.getHash()));
+        // Only once the post shows the original can generated variants be copied onto it
+        mediaVariantService.enqueue(asset);
+        return updated.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<Page<Post>> getPostsByUser(
         @PathVariable String userId,
@@ -81,8 +196,6 @@ public class PostController {
         postService.unlikePost(postId, userId);
         return ResponseEntity.ok().build();
     }
-<<<<<<< Updated upstream
-=======
 
     @GetMapping("/search")
     public ResponseEntity<Page<Post>> searchPosts(
@@ -148,5 +261,4 @@ public class PostController {
     public ResponseEntity<Page<Post>> getOpenCommitments(Pageable pageable) {
         return ResponseEntity.ok(postService.getOpenCommitments(pageable));
     }
->>>>>>> Stashed changes
 }
\ No newline at end of file
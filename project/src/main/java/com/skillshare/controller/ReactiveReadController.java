@@ -0,0 +1,50 @@
+package com.skillshare.controller;
+
+import com.skillshare.model.Post;
+import com.skillshare.model.ResourceDTO;
+import com.skillshare.service.ReactiveReadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterparts of the feed, resource listing and search
+ * endpoints. Handlers return a {@link Mono}, so the request thread goes back
+ * to the pool while MongoDB is queried and the response is written when the
+ * reactive pipeline completes.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+public class ReactiveReadController {
+    private final ReactiveReadService reactiveReadService;
+
+    @GetMapping("/posts/feed/{userId}")
+    public Mono<ResponseEntity<Page<Post>>> getFeedPosts(@PathVariable String userId, Pageable pageable) {
+        return reactiveReadService.getFeedPosts(userId, pageable).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/posts/search")
+    public Mono<ResponseEntity<Page<Post>>> searchPosts(@RequestParam String keyword, Pageable pageable) {
+        return reactiveReadService.searchPosts(keyword, pageable).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/resources")
+    public Mono<ResponseEntity<Page<ResourceDTO>>> getAllResources(Pageable pageable, Authentication authentication) {
+        String currentUserId = authentication != null ? authentication.getName() : null;
+        return reactiveReadService.getAllResources(pageable, currentUserId).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/resources/search")
+    public Mono<ResponseEntity<Page<ResourceDTO>>> searchResources(
+            @RequestParam String keyword,
+            Pageable pageable,
+            Authentication authentication) {
+        String currentUserId = authentication != null ? authentication.getName() : null;
+        return reactiveReadService.searchResources(keyword, pageable, currentUserId).map(ResponseEntity::ok);
+    }
+}
@@ -1,24 +1,53 @@
 package com.skillshare.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.skillshare.exception.DuplicateResourceException;
 import com.skillshare.model.Resource;
 import com.skillshare.model.ResourceDTO;
 import com.skillshare.model.ResourceType;
+import com.skillshare.service.EntityVersionService;
+import com.skillshare.service.LiveCounterService;
+import com.skillshare.service.ResourceImportService;
+import com.skillshare.service.ResourceImportService.ImportFormat;
+import com.skillshare.service.ResourceRecommendationService;
 import com.skillshare.service.ResourceService;
+import com.skillshare.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.security.core.Authentication;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/resources")
 @RequiredArgsConstructor
 public class ResourceController {
     private final ResourceService resourceService;
+    private final ResourceImportService resourceImportService;
+    private final ResourceRecommendationService resourceRecommendationService;
+    private final EntityVersionService entityVersionService;
+    private final LiveCounterService liveCounterService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public ResponseEntity<Page<ResourceDTO>> getAllResources(Pageable pageable, Authentication authentication) {
@@ -33,15 +62,22 @@ public class ResourceController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ResourceDTO> getResource(@PathVariable String id, Authentication authentication) {
+    public ResponseEntity<ResourceDTO> getResource(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication authentication) {
         String currentUserId = authentication != null ? authentication.getName() : null;
         log.debug("Getting resource with id: {} for user: {}", id, currentUserId);
         
         Resource resource = resourceService.getResourceById(id);
         ResourceDTO dto = ResourceDTO.fromResource(resource, currentUserId);
+        String etag = entityVersionService.etag(dto);
+        if (EntityVersionService.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         
         log.debug("Found resource: {}", dto);
-        return ResponseEntity.ok(dto);
+        return ResponseEntity.ok().eTag(etag).body(dto);
     }
 
     @GetMapping("/search")
@@ -109,6 +145,10 @@ public class ResourceController {
             
             log.debug("Successfully created resource: {}", dto);
             return ResponseEntity.ok(dto);
+        } catch (DuplicateResourceException e) {
+            log.debug("Redirecting duplicate resource to canonical resource: {}", e.getCanonicalResource().getId());
+            return ResponseEntity.status(409)
+                .body(ResourceDTO.fromResource(e.getCanonicalResource(), authentication.getName()));
         } catch (Exception e) {
             log.error("Error creating resource: {}", e.getMessage(), e);
             return ResponseEntity.badRequest().build();
@@ -142,6 +182,10 @@ public class ResourceController {
             
             log.debug("Successfully updated resource: {}", dto);
             return ResponseEntity.ok(dto);
+        } catch (DuplicateResourceException e) {
+            log.debug("Update of resource {} duplicates canonical resource: {}", id, e.getCanonicalResource().getId());
+            return ResponseEntity.status(409)
+                .body(ResourceDTO.fromResource(e.getCanonicalResource(), authentication.getName()));
         } catch (Exception e) {
             log.error("Error updating resource {}: {}", id, e.getMessage(), e);
             return ResponseEntity.badRequest().build();
@@ -190,6 +234,39 @@ public class ResourceController {
         return ResponseEntity.ok(dtos);
     }
 
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<ResourceDTO>> getRelatedResources(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
+        String currentUserId = authentication != null ? authentication.getName() : null;
+        log.debug("Getting resources related to {} for user: {}", id, currentUserId);
+
+        return resourceRecommendationService.getRelated(id, Math.max(1, limit))
+            .map(related -> related.stream().map(r -> ResourceDTO.fromResource(r, currentUserId)).toList())
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Streams the resource's like count instead of polling the resource. The response is written directly with non-blocking
+     * I/O; a caller has a limited number of these streams open at once.
+     */
+    @GetMapping(value = "/{id}/counts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void streamCounts(
+            @PathVariable String id,
+            Authentication authentication,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (authentication == null) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        if (!liveCounterService.subscribe(LiveCounterService.Item.RESOURCE, id, authentication.getName(), request, response)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
     @PostMapping("/{id}/like")
     public ResponseEntity<ResourceDTO> toggleLike(
             @PathVariable String id,
@@ -212,4 +289,52 @@ public class ResourceController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    @PostMapping(
+        value = "/import",
+        consumes = { MediaType.APPLICATION_NDJSON_VALUE, "text/csv" },
+        produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public ResponseEntity<StreamingResponseBody> importResources(
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+        if (authentication == null) {
+            log.warn("Attempt to import resources without authentication");
+            return ResponseEntity.status(401).build();
+        }
+        Optional<String> userId = userService.getUserIdByEmail(authentication.getName());
+        if (userId.isEmpty()) {
+            return ResponseEntity.status(401).build();
+        }
+        String currentUserId = userId.get();
+        ImportFormat format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+            ? ImportFormat.NDJSON
+            : ImportFormat.CSV;
+        log.debug("Importing {} resources for user: {}", format, currentUserId);
+
+        InputStream input = request.getInputStream();
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+
+        StreamingResponseBody body = output -> {
+            try {
+                resourceImportService.importResources(input, format, currentUserId, report -> {
+                    try {
+                        output.write(writer.writeValueAsBytes(report));
+                        output.write('\n');
+                        output.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.error("Resource import failed for user {}: {}", currentUserId, e.getMessage(), e);
+                output.write(writer.writeValueAsBytes(Map.of("status", "error", "message", String.valueOf(e.getMessage()))));
+                output.write('\n');
+            }
+        };
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
 }
\ No newline at end of file
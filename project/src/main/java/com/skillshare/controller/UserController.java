@@ -1,10 +1,26 @@
 package com.skillshare.controller;
 
+import com.skillshare.model.MediaAsset;
 import com.skillshare.model.User;
+import com.skillshare.model.UserDTO;
+import com.skillshare.model.UserProfile;
+import com.skillshare.model.UserStats;
+import com.skillshare.service.EntityVersionService;
+import com.skillshare.service.MediaStorageService;
+import com.skillshare.service.MediaVariantService;
+import com.skillshare.service.UserProfileService;
 import com.skillshare.service.UserService;
+import com.skillshare.service.UserStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
 
 @RestController
@@ -13,18 +29,82 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private EntityVersionService entityVersionService;
+
+    @Autowired
+    private UserProfileService userProfileService;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private MediaStorageService mediaStorageService;
+
+    @Autowired
+    private MediaVariantService mediaVariantService;
+
     @PostMapping
     public ResponseEntity<User> createUser(@RequestBody User user) {
         return ResponseEntity.ok(userService.createUser(user));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable String id) {
+    public ResponseEntity<User> getUserById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         Optional<User> user = userService.getUserById(id);
-        return user.map(ResponseEntity::ok)
+        return user.map(u -> {
+                String etag = entityVersionService.etag(u);
+                return EntityVersionService.matches(ifNoneMatch, etag)
+                    ? ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<User>build()
+                    : ResponseEntity.ok().eTag(etag).body(u);
+            })
             .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/profile")
+    public ResponseEntity<UserProfile> getUserProfile(@PathVariable String id, Authentication authentication) {
+        String callerEmail = authentication != null ? authentication.getName() : null;
+        return userProfileService.getProfile(id, callerEmail)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<UserStats> getUserStats(@PathVariable String id) {
+        return userStatsService.getStats(id)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping(value = "/{id}/profile-picture", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<UserDTO> uploadProfilePicture(
+            @PathVariable String id,
+            @RequestParam("file") MultipartFile file,
+            Authentication authentication) throws IOException {
+        Optional<User> user = userService.getUserById(id);
+        if (user.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (authentication == null || !authentication.getName().equals(user.get().getEmail())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        String contentType = file.getContentType();
+        if (contentType == null || !contentType.startsWith("image/") || !mediaStorageService.isAllowed(contentType)) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
+
+        MediaAsset asset;
+        try (InputStream content = file.getInputStream()) {
+            asset = mediaStorageService.store(content, contentType, file.getOriginalFilename());
+        }
+        User updated = userService.setProfilePicture(user.get(), mediaStorageService.url(asset.getHash()), asset.getVariants());
+        // Only once the user shows the original can generated variants be copied onto it
+        mediaVariantService.enqueue(asset);
+        return ResponseEntity.ok(UserDTO.fromUser(updated));
+    }
+
     @GetMapping("/email/{email}")
     public ResponseEntity<User> getUserByEmail(@PathVariable String email) {
         Optional<User> user = userService.getUserByEmail(email);
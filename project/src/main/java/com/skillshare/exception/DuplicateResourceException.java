@@ -0,0 +1,16 @@
+package com.skillshare.exception;
+
+import com.skillshare.model.Resource;
+
+public class DuplicateResourceException extends RuntimeException {
+    private final Resource canonicalResource;
+
+    public DuplicateResourceException(Resource canonicalResource) {
+        super("Resource already exists with id: " + canonicalResource.getId());
+        this.canonicalResource = canonicalResource;
+    }
+
+    public Resource getCanonicalResource() {
+        return canonicalResource;
+    }
+}
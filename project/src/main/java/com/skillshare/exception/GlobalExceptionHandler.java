@@ -1,5 +1,6 @@
 package com.skillshare.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -35,6 +36,26 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return buildResponseEntity(apiError);
     }
 
+    @ExceptionHandler(WriteBehindRejectedException.class)
+    protected ResponseEntity<Object> handleWriteBehindRejectedException(WriteBehindRejectedException ex) {
+        ApiError apiError = new ApiError(HttpStatus.SERVICE_UNAVAILABLE);
+        apiError.setMessage("Server is busy, please retry");
+        apiError.setDebugMessage(ex.getMessage());
+        
+        log.warn("Write-behind queue rejected write: {}", ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    protected ResponseEntity<Object> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        ApiError apiError = new ApiError(HttpStatus.CONFLICT);
+        apiError.setMessage("The resource was modified concurrently, please reload and retry");
+        apiError.setDebugMessage(ex.getMessage());
+        
+        log.warn("Optimistic locking failure: {}", ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
             MethodArgumentNotValidException ex,
             HttpHeaders headers,
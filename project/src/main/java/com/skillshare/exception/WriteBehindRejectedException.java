@@ -0,0 +1,7 @@
+package com.skillshare.exception;
+
+public class WriteBehindRejectedException extends RuntimeException {
+    public WriteBehindRejectedException(String message) {
+        super(message);
+    }
+}
@@ -1,27 +1,72 @@
 package com.skillshare.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import lombok.Data;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @Document(collection = "comments")
+@CompoundIndexes({
+    @CompoundIndex(name = "post_path_idx", def = "{'post': 1, 'path': 1}"),
+    @CompoundIndex(name = "post_parent_path_idx", def = "{'post': 1, 'parent_id': 1, 'path': 1}"),
+    @CompoundIndex(name = "post_created_idx", def = "{'post': 1, 'created_at': -1}")
+})
 public class Comment {
+    public static final char PATH_SEPARATOR = '/';
+
     @Id
     private String id;
 
     @Field(name = "content")
     private String content;
 
-    @DBRef
+    @DBRef(lazy = true)
     private User user;
 
-    @DBRef
+    @DBRef(lazy = true)
     private Post post;
 
+    @Field(name = "user_id")
+    private String userId;
+
+    @Field(name = "user_name")
+    private String userName;
+
+    /** Id of the comment this one replies to, or {@code null} for a top-level comment. */
+    @Field(name = "parent_id")
+    private String parentId;
+
+    /** Ids of all ancestors and of this comment, joined by {@link #PATH_SEPARATOR}. */
+    @Field(name = "path")
+    private String path;
+
+    @Field(name = "depth")
+    private int depth;
+
+    @Field(name = "reply_count")
+    private int replyCount;
+
+    /**
+     * {@code false} from insert until the post and parent counters include this
+     * comment; {@code null} on comments written before that was tracked.
+     */
+    @JsonIgnore
+    @Field(name = "counted")
+    private Boolean counted;
+
+    /** Tokens of the latest reply batches counted into {@link #replyCount}, see {@code CommentBatchWriter}. */
+    @JsonIgnore
+    @Field(name = "reply_batches")
+    private List<String> replyBatches = new ArrayList<>();
+
     @Field(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -36,4 +81,4 @@ public class Comment {
     public void onUpdate() {
         updatedAt = LocalDateTime.now();
     }
-}
\ No newline at end of file
+}
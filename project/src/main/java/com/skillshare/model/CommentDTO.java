@@ -0,0 +1,32 @@
+package com.skillshare.model;
+
+import lombok.Data;
+
+@Data
+public class CommentDTO {
+    private String id;
+    private String parentId;
+    private String path;
+    private int depth;
+    private String content;
+    private String userId;
+    private String userName;
+    private int replyCount;
+    private String createdAt;
+    private boolean isOwner;
+
+    public static CommentDTO fromComment(Comment comment, String currentUserId) {
+        CommentDTO dto = new CommentDTO();
+        dto.setId(comment.getId());
+        dto.setParentId(comment.getParentId());
+        dto.setPath(comment.getPath());
+        dto.setDepth(comment.getDepth());
+        dto.setContent(comment.getContent());
+        dto.setUserId(comment.getUserId());
+        dto.setUserName(comment.getUserName());
+        dto.setReplyCount(comment.getReplyCount());
+        dto.setCreatedAt(comment.getCreatedAt() != null ? comment.getCreatedAt().toString() : null);
+        dto.setOwner(currentUserId != null && currentUserId.equals(comment.getUserId()));
+        return dto;
+    }
+}
@@ -0,0 +1,33 @@
+package com.skillshare.model;
+
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class CommentPreview {
+    @Field(name = "comment_id")
+    private String commentId;
+
+    @Field(name = "user_id")
+    private String userId;
+
+    @Field(name = "user_name")
+    private String userName;
+
+    @Field(name = "content")
+    private String content;
+
+    @Field(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public static CommentPreview fromComment(Comment comment) {
+        CommentPreview preview = new CommentPreview();
+        preview.setCommentId(comment.getId());
+        preview.setUserId(comment.getUserId());
+        preview.setUserName(comment.getUserName());
+        preview.setContent(comment.getContent());
+        preview.setCreatedAt(comment.getCreatedAt());
+        return preview;
+    }
+}
@@ -0,0 +1,19 @@
+package com.skillshare.model;
+
+import lombok.Data;
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+public class CursorPage<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(items.stream().<R>map(mapper).toList(), nextCursor);
+    }
+}
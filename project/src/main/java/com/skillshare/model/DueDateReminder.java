@@ -0,0 +1,81 @@
+package com.skillshare.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Index entry for an upcoming plan or milestone due date. The id is derived
+ * from the plan and milestone ids so that rescheduling is an upsert.
+ * Entries of completed milestones are kept, marked {@code completed}, so that
+ * reopening the milestone re-arms them with their sent state.
+ */
+@Data
+@Document(collection = "due_date_reminders")
+@CompoundIndexes({
+    @CompoundIndex(name = "pending_remind_at_idx", def = "{'remind_at': 1, '_id': 1}", partialFilter = "{ 'sent': false }"),
+    @CompoundIndex(name = "plan_idx", def = "{'plan_id': 1}")
+})
+public class DueDateReminder {
+    public enum Kind {
+        MILESTONE,
+        PLAN
+    }
+
+    @Id
+    private String id;
+
+    @Field(name = "kind")
+    private Kind kind;
+
+    @Field(name = "plan_id")
+    private String planId;
+
+    @Field(name = "milestone_id")
+    private String milestoneId;
+
+    @Field(name = "user_id")
+    private String userId;
+
+    @Field(name = "plan_title")
+    private String planTitle;
+
+    @Field(name = "title")
+    private String title;
+
+    @Field(name = "due_at")
+    private LocalDateTime dueAt;
+
+    @Field(name = "remind_at")
+    private LocalDateTime remindAt;
+
+    @Field(name = "completed")
+    private boolean completed;
+
+    @Field(name = "sent")
+    private boolean sent;
+
+    @Field(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    /** Sinks that have delivered this reminder; it is sent once every configured sink has. */
+    @Field(name = "delivered_to")
+    private Set<String> deliveredTo = new HashSet<>();
+
+    /** Instance delivering this reminder until {@link #claimUntil}; the others skip it meanwhile. */
+    @Field(name = "claim_owner")
+    private String claimOwner;
+
+    @Field(name = "claim_until")
+    private LocalDateTime claimUntil;
+
+    public static String idFor(String planId, String milestoneId) {
+        return milestoneId != null ? planId + ":" + milestoneId : planId + ":plan";
+    }
+}
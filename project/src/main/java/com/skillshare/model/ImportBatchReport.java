@@ -0,0 +1,35 @@
+package com.skillshare.model;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportBatchReport {
+    public static final int MAX_ERRORS_PER_BATCH = 100;
+
+    private int batch;
+    private long firstLine;
+    private long lastLine;
+    private int received;
+    private int inserted;
+    private int duplicates;
+    private int invalid;
+    private int failed;
+    private long totalInserted;
+    private long elapsedMs;
+    private boolean last;
+    private List<RowError> errors = new ArrayList<>();
+
+    public void addError(long line, String message) {
+        if (errors.size() < MAX_ERRORS_PER_BATCH) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    @Data
+    public static class RowError {
+        private final long line;
+        private final String message;
+    }
+}
@@ -0,0 +1,44 @@
+package com.skillshare.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of the points a user earned in one skill category during one
+ * time bucket of a leaderboard window, as recorded by one node. All-time
+ * scores use bucket 0.
+ */
+@Data
+@Document(collection = "leaderboard_scores")
+@CompoundIndex(name = "window_category_bucket_user_node_idx", def = "{'window': 1, 'category': 1, 'bucket': 1, 'user_id': 1, 'node': 1}", unique = true)
+public class LeaderboardScore {
+    @Id
+    private String id;
+
+    @Field(name = "window")
+    private String window;
+
+    @Field(name = "category")
+    private String category;
+
+    /** Start of the bucket in epoch milliseconds. */
+    @Field(name = "bucket")
+    private long bucket;
+
+    @Field(name = "user_id")
+    private String userId;
+
+    /** The node that earned the points; absent on scores written before they were kept per node. */
+    @Field(name = "node")
+    private String node;
+
+    @Field(name = "points")
+    private long points;
+
+    @Field(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -1,18 +1,28 @@
 package com.skillshare.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import lombok.Data;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Data
 @Document(collection = "learning_plans")
+@CompoundIndex(name = "tags_id_idx", def = "{'tags': 1, '_id': -1}")
 public class LearningPlan {
     @Id
     private String id;
@@ -27,6 +37,7 @@ public class LearningPlan {
     private List<Milestone> milestones = new ArrayList<>();
 
     @DBRef
+    @JsonIgnoreProperties({"resources", "posts", "learningPlans", "followers", "following"})
     private User user;
 
     @Field(name = "start_date")
@@ -35,6 +46,11 @@ public class LearningPlan {
     @Field(name = "target_date")
     private LocalDateTime targetDate;
 
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Field(name = "version")
+    private Long version;
+
     @Field(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -47,6 +63,24 @@ public class LearningPlan {
     @Field(name = "progress")
     private int progress;
 
+    // Set on clones: milestones then only holds the plan's own additions, and
+    // template milestones are resolved on read with these overrides applied
+    @Indexed(name = "template_idx", sparse = true)
+    @Field(name = "template_id")
+    private String templateId;
+
+    @Field(name = "milestone_overrides")
+    private Map<String, MilestoneOverride> milestoneOverrides = new HashMap<>();
+
+    // Version of the template this clone was resolved against, part of its ETag
+    @Transient
+    @JsonIgnore
+    private Long templateVersion;
+
+    public boolean isClone() {
+        return templateId != null;
+    }
+
     public void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
@@ -0,0 +1,50 @@
+package com.skillshare.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An uploaded file, stored once per distinct content under its SHA-256 hash.
+ * The first upload of the content decides the recorded type and file name.
+ */
+@Data
+@Document(collection = "media_assets")
+// Finds the original a variant was generated from, when sweeping unreferenced media
+@CompoundIndex(name = "variants_hash_idx", def = "{'variants.hash': 1}", sparse = true)
+public class MediaAsset {
+    /** Hex SHA-256 of the content. */
+    @Id
+    private String hash;
+
+    @Field(name = "content_type")
+    private String contentType;
+
+    @Field(name = "size")
+    private long size;
+
+    @Field(name = "filename")
+    private String filename;
+
+    /** Pixel dimensions of images, known once their variants are generated. */
+    @Field(name = "width")
+    private Integer width;
+
+    @Field(name = "height")
+    private Integer height;
+
+    @Field(name = "variants")
+    private List<MediaVariant> variants = new ArrayList<>();
+
+    @Field(name = "created_at")
+    private LocalDateTime createdAt;
+
+    /** When the content was last uploaded; recent media is never swept, see {@code MediaStorageService}. */
+    @Field(name = "stored_at")
+    private LocalDateTime storedAt;
+}
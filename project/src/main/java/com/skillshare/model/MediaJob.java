@@ -0,0 +1,50 @@
+package com.skillshare.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Pending or finished variant generation for one uploaded image. A worker
+ * claims a job by moving it to RUNNING with a lease; a job whose lease ran
+ * out is claimed again.
+ */
+@Data
+@Document(collection = "media_jobs")
+@CompoundIndex(name = "status_next_attempt_idx", def = "{'status': 1, 'next_attempt_at': 1}")
+public class MediaJob {
+    public enum Status {
+        PENDING,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    /** Hash of the original image. */
+    @Id
+    private String hash;
+
+    @Field(name = "status")
+    private Status status;
+
+    @Field(name = "attempts")
+    private int attempts;
+
+    @Field(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Field(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Field(name = "last_error")
+    private String lastError;
+
+    @Field(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Field(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,48 @@
+package com.skillshare.model;
+
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import java.util.List;
+
+/** A downscaled copy of an uploaded image, itself stored as media. */
+@Data
+public class MediaVariant {
+    /** Width requested for avatars in user listings and profiles. */
+    public static final int AVATAR_WIDTH = 160;
+
+    /** Width requested for images on feed cards. */
+    public static final int CARD_WIDTH = 640;
+
+    @Field(name = "hash")
+    private String hash;
+
+    @Field(name = "url")
+    private String url;
+
+    @Field(name = "width")
+    private int width;
+
+    @Field(name = "height")
+    private int height;
+
+    @Field(name = "content_type")
+    private String contentType;
+
+    @Field(name = "size")
+    private long size;
+
+    /**
+     * The URL of the narrowest variant at least {@code width} pixels wide, or
+     * {@code original} when there is none. Variants are kept narrowest first.
+     */
+    public static String smallestAtLeast(List<MediaVariant> variants, int width, String original) {
+        if (variants != null) {
+            for (MediaVariant variant : variants) {
+                if (variant.getWidth() >= width) {
+                    return variant.getUrl();
+                }
+            }
+        }
+        return original;
+    }
+}
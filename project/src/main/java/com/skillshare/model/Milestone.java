@@ -1,7 +1,11 @@
 package com.skillshare.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Field;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.time.LocalDateTime;
 
 @Data
@@ -26,6 +30,11 @@ public class Milestone {
     @Field(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Back-reference only; milestones are embedded in their plan
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private LearningPlan learningPlan;
 
     public void onCreate() {
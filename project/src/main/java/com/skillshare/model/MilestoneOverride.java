@@ -0,0 +1,34 @@
+package com.skillshare.model;
+
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Per-plan changes to a template milestone. Null fields inherit the
+ * template's current value.
+ */
+@Data
+public class MilestoneOverride {
+    @Field(name = "title")
+    private String title;
+
+    @Field(name = "description")
+    private String description;
+
+    @Field(name = "target_date")
+    private LocalDateTime targetDate;
+
+    @Field(name = "completed")
+    private boolean completed;
+
+    @Field(name = "hidden")
+    private boolean hidden;
+
+    @Field(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public boolean isEmpty() {
+        return title == null && description == null && targetDate == null && !completed && !hidden;
+    }
+}
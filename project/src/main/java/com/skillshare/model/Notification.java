@@ -0,0 +1,73 @@
+package com.skillshare.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An in-app notification. Activity on the same target (likes of one post,
+ * new followers, ...) is folded into one unread notification per recipient,
+ * keeping the most recent actors and naming the latest few; reminders are
+ * stored one per due date. Notifications expire 30 days after their last
+ * update.
+ */
+@Data
+@Document(collection = "notifications")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_updated_idx", def = "{'user_id': 1, 'updated_at': -1}"),
+    // At most one unread notification per recipient and group, so concurrent folds cannot insert two
+    @CompoundIndex(name = "unread_group_idx", def = "{'user_id': 1, 'group_key': 1}", unique = true,
+        partialFilter = "{ 'read': false, 'group_key': { $exists: true } }")
+})
+public class Notification {
+    @Id
+    private String id;
+
+    @Field(name = "user_id")
+    private String userId;
+
+    @Field(name = "type")
+    private String type;
+
+    /** The post, resource, user or plan the notification is about. */
+    @Field(name = "target_id")
+    private String targetId;
+
+    @JsonIgnore
+    @Field(name = "group_key")
+    private String groupKey;
+
+    /** Distinct actors, counted as they are added to {@code actorIds}. */
+    @Field(name = "count")
+    private int count = 1;
+
+    /** The most recent distinct actors, at most {@code NotificationService.MAX_ACTOR_IDS}. */
+    @JsonIgnore
+    @Field(name = "actor_ids")
+    private List<String> actorIds;
+
+    /** Names of the latest actors, oldest first. */
+    @Field(name = "actors")
+    private List<String> actors = new ArrayList<>();
+
+    @Field(name = "message")
+    private String message;
+
+    @Field(name = "read")
+    private boolean read;
+
+    @Field(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Field(name = "updated_at")
+    @Indexed(name = "updated_at_ttl_idx", expireAfter = "30d")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,26 @@
+package com.skillshare.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.IndexDirection;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Number of learning plans carrying a tag, keyed by the normalized tag.
+ */
+@Data
+@Document(collection = "plan_tags")
+public class PlanTag {
+    @Id
+    private String tag;
+
+    @Indexed(name = "count_idx", direction = IndexDirection.DESCENDING)
+    @Field(name = "count")
+    private long count;
+
+    @Field(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
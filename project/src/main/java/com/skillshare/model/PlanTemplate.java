@@ -0,0 +1,68 @@
+package com.skillshare.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shared, read-mostly learning plan that user plans can be cloned from. Clones
+ * reference it by id and are resolved against its current milestones on read.
+ */
+@Data
+@Document(collection = "plan_templates")
+public class PlanTemplate {
+    @Id
+    private String id;
+
+    @Field(name = "title")
+    private String title;
+
+    @Field(name = "description")
+    private String description;
+
+    @Field(name = "milestones")
+    private List<Milestone> milestones = new ArrayList<>();
+
+    @Field(name = "tags")
+    private Set<String> tags = new HashSet<>();
+
+    @Field(name = "author_id")
+    private String authorId;
+
+    @Field(name = "source_plan_id")
+    private String sourcePlanId;
+
+    @Field(name = "clone_count")
+    private long cloneCount;
+
+    // Incremented by every save, which also fails on a concurrent update
+    @Version
+    @Field(name = "version")
+    private Long version;
+
+    /** Version whose changes every clone's stored progress and reminders reflect. */
+    @Field(name = "clones_synced_version")
+    private Long clonesSyncedVersion;
+
+    @Field(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Field(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    public void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
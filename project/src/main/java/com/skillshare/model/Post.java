@@ -1,10 +1,16 @@
 package com.skillshare.model;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -29,18 +35,38 @@ public class Post {
     @Field(name = "video_url")
     private String videoUrl;
 
+    // Uploaded files; their URLs are also listed in images or set as videoUrl
+    @Field(name = "media")
+    private List<PostMedia> media = new ArrayList<>();
+
+    // Referenced users and comments are rendered one level deep
     @DBRef
+    @JsonIgnoreProperties({"resources", "posts", "learningPlans", "followers", "following"})
     private User user;
 
     @DBRef
+    @JsonIgnoreProperties({"post", "user"})
     private Set<Comment> comments = new HashSet<>();
 
     @DBRef
+    @JsonIgnoreProperties({"resources", "posts", "learningPlans", "followers", "following"})
     private Set<User> likes = new HashSet<>();
 
     @DBRef
+    @JsonIgnoreProperties({"resources", "posts", "learningPlans", "followers", "following"})
     private Set<User> commits = new HashSet<>();
 
+    @Field(name = "comment_count")
+    private int commentCount;
+
+    @Field(name = "recent_comments")
+    private List<CommentPreview> recentComments = new ArrayList<>();
+
+    /** Tokens of the latest comment batches counted into {@link #commentCount}, see {@code CommentBatchWriter}. */
+    @JsonIgnore
+    @Field(name = "comment_batches")
+    private List<String> commentBatches = new ArrayList<>();
+
     @Field(name = "commitment_goal")
     private int commitmentGoal;
 
@@ -50,6 +76,11 @@ public class Post {
     @Field(name = "is_commitment_complete")
     private boolean isCommitmentComplete = false;
 
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Field(name = "version")
+    private Long version;
+
     @Field(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -0,0 +1,39 @@
+package com.skillshare.model;
+
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class PostMedia {
+    @Field(name = "hash")
+    @Indexed(name = "media_hash_idx", sparse = true)
+    private String hash;
+
+    @Field(name = "url")
+    private String url;
+
+    @Field(name = "content_type")
+    private String contentType;
+
+    @Field(name = "size")
+    private long size;
+
+    @Field(name = "filename")
+    private String filename;
+
+    @Field(name = "uploaded_at")
+    private LocalDateTime uploadedAt;
+
+    /** Downscaled copies of images, filled in once they are generated. */
+    @Field(name = "variants")
+    private List<MediaVariant> variants = new ArrayList<>();
+
+    /** What a feed card should load: a variant close to the card width, or the original. */
+    public String getCardUrl() {
+        return MediaVariant.smallestAtLeast(variants, MediaVariant.CARD_WIDTH, url);
+    }
+}
@@ -2,6 +2,9 @@ package com.skillshare.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -33,6 +36,13 @@ public class Resource {
     @Field(name = "url")
     private String url;
 
+    @Field(name = "normalized_url")
+    private String normalizedUrl;
+
+    @Field(name = "url_hash")
+    @Indexed(name = "url_hash_idx", unique = true, sparse = true)
+    private String urlHash;
+
     @Field(name = "resource_type")
     @Indexed
     private ResourceType resourceType;
@@ -46,8 +56,14 @@ public class Resource {
     private User user;
 
     @DBRef
+    @JsonIgnoreProperties({"resources", "posts", "learningPlans", "followers", "following"})
     private Set<User> likes = new HashSet<>();
 
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Field(name = "version")
+    private Long version;
+
     @Field(name = "created_at")
     @Indexed
     private LocalDateTime createdAt;
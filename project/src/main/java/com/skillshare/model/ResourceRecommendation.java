@@ -0,0 +1,41 @@
+package com.skillshare.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The resources most often liked by the same users as a resource, best first.
+ * Rewritten by each recommendation run; documents it did not rewrite are removed.
+ */
+@Data
+@Document(collection = "resource_recommendations")
+public class ResourceRecommendation {
+    @Id
+    private String resourceId;
+
+    @Field(name = "related")
+    private List<Related> related = new ArrayList<>();
+
+    @Field(name = "computed_at")
+    @Indexed
+    private LocalDateTime computedAt;
+
+    @Data
+    public static class Related {
+        @Field(name = "resource_id")
+        private String resourceId;
+
+        /** Cosine similarity of the two resources' sets of likers. */
+        @Field(name = "score")
+        private double score;
+
+        @Field(name = "co_likes")
+        private int coLikes;
+    }
+}
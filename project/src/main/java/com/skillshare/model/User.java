@@ -7,13 +7,16 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.index.Indexed;
 import lombok.Data;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Data
@@ -40,8 +43,13 @@ public class User {
     private String password;
 
     @Field(name = "profile_picture")
+    @Indexed(name = "profile_picture_idx", sparse = true)
     private String profilePicture;
 
+    // Set when the picture was uploaded here and its variants have been generated
+    @Field(name = "profile_picture_variants")
+    private List<MediaVariant> profilePictureVariants = new ArrayList<>();
+
     @Size(max = 500, message = "Bio must not exceed 500 characters")
     @Field(name = "bio")
     private String bio;
@@ -49,6 +57,11 @@ public class User {
     @Field(name = "enabled")
     private boolean enabled = true;
 
+    // Granted by operators in the database (e.g. "ADMIN"); never bound from request bodies
+    @JsonIgnore
+    @Field(name = "roles")
+    private Set<String> roles = new HashSet<>();
+
     @DBRef
     @JsonManagedReference
     private Set<Resource> resources = new HashSet<>();
@@ -74,6 +87,11 @@ public class User {
     @Field(name = "website")
     private String website;
 
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Field(name = "version")
+    private Long version;
+
     @Field(name = "join_date")
     private LocalDateTime joinDate;
 
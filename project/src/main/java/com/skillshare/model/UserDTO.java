@@ -24,6 +24,7 @@ public class UserDTO {
     private String password;
 
     private String profilePicture;
+    private String profilePictureThumbnail;
 
     @Size(max = 500, message = "Bio must not exceed 500 characters")
     private String bio;
@@ -41,6 +42,8 @@ public class UserDTO {
         dto.setName(user.getName());
         dto.setEmail(user.getEmail());
         dto.setProfilePicture(user.getProfilePicture());
+        dto.setProfilePictureThumbnail(MediaVariant.smallestAtLeast(
+            user.getProfilePictureVariants(), MediaVariant.AVATAR_WIDTH, user.getProfilePicture()));
         dto.setBio(user.getBio());
         dto.setLocation(user.getLocation());
         dto.setOccupation(user.getOccupation());
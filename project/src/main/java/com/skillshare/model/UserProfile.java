@@ -0,0 +1,31 @@
+package com.skillshare.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Profile header of a user with the sizes of their collections, instead of
+ * the collections themselves.
+ */
+@Data
+public class UserProfile {
+    private String id;
+    private String name;
+    private String email;
+    private String profilePicture;
+    private String profilePictureThumbnail;
+    private String bio;
+    private String location;
+    private String occupation;
+    private String website;
+    private LocalDateTime joinDate;
+    private long postCount;
+    private long resourceCount;
+    private long learningPlanCount;
+    private long plansCompleted;
+    private long likesReceived;
+    private long followersCount;
+    private long followingCount;
+    private boolean isFollowing;
+}
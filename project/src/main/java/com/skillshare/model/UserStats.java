@@ -0,0 +1,47 @@
+package com.skillshare.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Counters of a user's activity, keyed by the user's id. Kept up to date
+ * incrementally and periodically reconciled against the source collections.
+ */
+@Data
+@Document(collection = "user_stats")
+public class UserStats {
+    @Id
+    private String userId;
+
+    @Field(name = "posts")
+    private long posts;
+
+    @Field(name = "resources")
+    private long resources;
+
+    /** Likes on the user's posts and resources. */
+    @Field(name = "likes_received")
+    private long likesReceived;
+
+    @Field(name = "plans")
+    private long plans;
+
+    /** Plans whose progress has reached 100%. */
+    @Field(name = "plans_completed")
+    private long plansCompleted;
+
+    @Field(name = "followers")
+    private long followers;
+
+    @Field(name = "following")
+    private long following;
+
+    @Field(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Field(name = "reconciled_at")
+    private LocalDateTime reconciledAt;
+}
@@ -0,0 +1,31 @@
+package com.skillshare.model;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * A single write acknowledged to a client but not yet applied to MongoDB, as
+ * recorded in the write-behind log.
+ */
+@Data
+public class WriteBehindEntry {
+    public enum Type {
+        POST_LIKE,
+        POST_UNLIKE,
+        COMMENT
+    }
+
+    private long sequence;
+    private long enqueuedAt;
+    private Type type;
+    private String postId;
+    private String userId;
+
+    private String commentId;
+    private String parentId;
+    private String path;
+    private int depth;
+    private String content;
+    private String userName;
+    private LocalDateTime createdAt;
+}
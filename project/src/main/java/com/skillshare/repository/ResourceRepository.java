@@ -2,12 +2,14 @@ package com.skillshare.repository;
 
 import com.skillshare.model.Resource;
 import com.skillshare.model.ResourceType;
+import com.skillshare.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Repository
 public interface ResourceRepository extends MongoRepository<Resource, String> {
@@ -24,12 +26,13 @@ public interface ResourceRepository extends MongoRepository<Resource, String> {
            "] }")
     Page<Resource> searchResources(String keyword, Pageable pageable);
     
-    @Query("{ 'user.id': ?0 }")
-    Page<Resource> findByUserId(String userId, Pageable pageable);
+    Page<Resource> findByUser(User user, Pageable pageable);
 
     @Query(value = "{ 'likes': { $size: { $gte: ?0 } } }")
     Page<Resource> findByLikesCountGreaterThan(int likesCount, Pageable pageable);
     
     @Query("{ 'createdAt': { $gte: ?0, $lte: ?1 } }")
     Page<Resource> findByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
+
+    Optional<Resource> findByUrlHash(String urlHash);
 }
\ No newline at end of file
@@ -10,8 +10,14 @@ import java.util.List;
 @Repository
 public interface UserRepository extends MongoRepository<User, String> {
     Optional<User> findByEmail(String email);
+
+    @Query(value = "{ 'email': ?0 }", fields = "{ '_id': 1 }")
+    Optional<User> findIdByEmail(String email);
     
     boolean existsByEmail(String email);
+
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'name': 1 }")
+    Optional<User> findNameById(String id);
     
     @Query("{ 'followers': ?0 }")
     List<User> findFollowers(String userId);
@@ -0,0 +1,169 @@
+package com.skillshare.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.skillshare.model.Comment;
+import com.skillshare.model.CommentPreview;
+import com.skillshare.model.Post;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts prepared comments and applies the post and parent counters they
+ * imply, coalesced to one update per post and per parent.
+ *
+ * <p>Replaying the same comments is idempotent. Comments are inserted with
+ * {@code counted: false} and marked counted once the counters include them,
+ * so a comment that already exists but was never counted (the counter
+ * update failed after the insert) is counted on the retry. Each post and
+ * parent update also records a token of the comments it counted and is
+ * skipped when that token is already present, which covers a failure
+ * between applying the counters and marking the comments.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CommentBatchWriter {
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+    // Retries and log replays repeat recent batches only
+    private static final int BATCH_TOKENS = 16;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${comment.preview-size:3}")
+    private int previewSize;
+
+    private record InsertResult(List<Comment> inserted, List<String> duplicateIds) {}
+
+    public List<Comment> insertAll(List<Comment> comments) {
+        if (comments.isEmpty()) {
+            return comments;
+        }
+
+        comments.forEach(comment -> comment.setCounted(false));
+        InsertResult result = insertUnordered(comments);
+
+        Set<String> uncountedIds = new HashSet<>();
+        result.inserted().forEach(comment -> uncountedIds.add(comment.getId()));
+        uncountedIds.addAll(uncounted(result.duplicateIds()));
+        List<Comment> uncounted = comments.stream()
+            .filter(comment -> uncountedIds.contains(comment.getId()))
+            .toList();
+        if (uncounted.isEmpty()) {
+            return result.inserted();
+        }
+
+        Map<String, List<Comment>> byPost = new LinkedHashMap<>();
+        Map<String, List<Comment>> byParent = new LinkedHashMap<>();
+        for (Comment comment : uncounted) {
+            byPost.computeIfAbsent(postIdOf(comment), id -> new ArrayList<>()).add(comment);
+            if (comment.getParentId() != null) {
+                byParent.computeIfAbsent(comment.getParentId(), id -> new ArrayList<>()).add(comment);
+            }
+        }
+
+        if (!byParent.isEmpty()) {
+            BulkOperations parentOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Comment.class);
+            byParent.forEach((parentId, replies) -> {
+                String token = batchToken(replies);
+                Update update = new Update().inc("replyCount", replies.size());
+                update.push("replyBatches").slice(-BATCH_TOKENS).each(token);
+                parentOps.updateOne(notYetApplied(parentId, "replyBatches", token), update);
+            });
+            parentOps.execute();
+        }
+
+        BulkOperations postOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+        byPost.forEach((postId, postComments) -> {
+            String token = batchToken(postComments);
+            List<CommentPreview> latest = postComments
+                .subList(Math.max(0, postComments.size() - previewSize), postComments.size()).stream()
+                .map(CommentPreview::fromComment)
+                .toList();
+            Update update = new Update().inc("commentCount", postComments.size()).inc("version", 1);
+            update.push("recentComments").slice(-previewSize).each(latest.toArray());
+            update.push("commentBatches").slice(-BATCH_TOKENS).each(token);
+            postOps.updateOne(notYetApplied(postId, "commentBatches", token), update);
+        });
+        postOps.execute();
+
+        mongoTemplate.updateMulti(new Query(Criteria.where("id").in(uncountedIds)),
+            new Update().set("counted", true), Comment.class);
+        return result.inserted();
+    }
+
+    private InsertResult insertUnordered(List<Comment> comments) {
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Comment.class);
+        bulkOps.insert(comments);
+        try {
+            bulkOps.execute();
+            return new InsertResult(comments, List.of());
+        } catch (BulkOperationException e) {
+            Set<Integer> failed = new HashSet<>();
+            List<String> duplicateIds = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+                if (error.getCode() == DUPLICATE_KEY_ERROR) {
+                    duplicateIds.add(comments.get(error.getIndex()).getId());
+                } else {
+                    log.error("Failed to insert comment {}: {}", comments.get(error.getIndex()).getId(), error.getMessage());
+                }
+            }
+            List<Comment> inserted = new ArrayList<>(comments.size() - failed.size());
+            for (int i = 0; i < comments.size(); i++) {
+                if (!failed.contains(i)) {
+                    inserted.add(comments.get(i));
+                }
+            }
+            return new InsertResult(inserted, duplicateIds);
+        }
+    }
+
+    /** Ids of already stored comments whose counter updates have not been applied. */
+    private List<String> uncounted(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Query query = new Query(Criteria.where("id").in(ids).and("counted").is(false));
+        query.fields().include("id");
+        return mongoTemplate.find(query, Comment.class).stream().map(Comment::getId).toList();
+    }
+
+    private Query notYetApplied(String id, String tokens, String token) {
+        return new Query(Criteria.where("id").is(id).and(tokens).ne(token));
+    }
+
+    private static String batchToken(List<Comment> comments) {
+        String ids = comments.stream().map(Comment::getId).sorted().collect(Collectors.joining(","));
+        return UUID.nameUUIDFromBytes(ids.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private Query byId(String id) {
+        return new Query(Criteria.where("id").is(id));
+    }
+
+    static String postIdOf(Comment comment) {
+        if (comment.getPost() instanceof LazyLoadingProxy proxy) {
+            return String.valueOf(proxy.toDBRef().getId());
+        }
+        return comment.getPost().getId();
+    }
+}
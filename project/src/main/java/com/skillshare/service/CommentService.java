@@ -1,19 +1,44 @@
 package com.skillshare.service;
 
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.skillshare.config.BackgroundThreads;
 import com.skillshare.model.Comment;
+import com.skillshare.model.CursorPage;
 import com.skillshare.model.Post;
 import com.skillshare.model.User;
 import com.skillshare.repository.CommentRepository;
 import com.skillshare.repository.PostRepository;
+import com.skillshare.service.NotificationService.Activity;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
+@Slf4j
 @Service
 public class CommentService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String MIGRATIONS = "migrations";
+    private static final String PATH_BACKFILL = "backfill-comment-paths";
+
     @Autowired
     private CommentRepository commentRepository;
 
@@ -21,10 +46,34 @@ public class CommentService {
     private PostRepository postRepository;
 
     @Autowired
-    private UserService userService;
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CommentBatchWriter commentBatchWriter;
+
+    @Autowired
+    private WriteBehindService writeBehindService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BackgroundThreads backgroundThreads;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        backgroundThreads.named("comment-path-backfill").newThread(this::backfillPaths).start();
+    }
 
     @Transactional
     public Comment createComment(Comment comment) {
+        if (comment.getId() == null) {
+            comment.setId(new ObjectId().toHexString());
+        }
+        if (comment.getPath() == null && comment.getParentId() == null) {
+            comment.setPath(comment.getId());
+            comment.setDepth(0);
+        }
         comment.onCreate();
         return commentRepository.save(comment);
     }
@@ -37,12 +86,51 @@ public class CommentService {
     @Transactional
     public Comment updateComment(Comment comment) {
         comment.onUpdate();
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        if (saved.getPost() == null) {
+            return saved;
+        }
+
+        // Keep the embedded preview on the post in sync, if this comment is in it
+        Update update = new Update()
+            .set("recentComments.$[preview].content", saved.getContent())
+            .filterArray(Criteria.where("preview.comment_id").is(saved.getId()))
+            .inc("version", 1);
+        mongoTemplate.updateFirst(byId(postIdOf(saved)), update, Post.class);
+        return saved;
     }
 
+    /**
+     * Deletes a comment together with all of its replies and keeps the post's
+     * comment count, preview and the parent's reply count consistent.
+     */
     @Transactional
     public void deleteComment(String id) {
-        commentRepository.deleteById(id);
+        Comment comment = commentRepository.findById(id).orElse(null);
+        if (comment == null || comment.getPath() == null || comment.getPost() == null) {
+            commentRepository.deleteById(id);
+            return;
+        }
+
+        String postId = postIdOf(comment);
+        // The comment itself sorts first in its subtree, so the thread range starts at its path
+        Query subtree = new Query(Criteria.where("post").is(postReference(postId))
+            .and("path").gte(comment.getPath()).lt(comment.getPath() + '0'));
+        subtree.fields().include("id");
+        List<String> ids = mongoTemplate.find(subtree, Comment.class).stream()
+            .map(Comment::getId)
+            .toList();
+
+        mongoTemplate.remove(subtree, Comment.class);
+
+        if (comment.getParentId() != null) {
+            mongoTemplate.updateFirst(byId(comment.getParentId()), new Update().inc("replyCount", -1), Comment.class);
+        }
+        Update postUpdate = new Update()
+            .inc("commentCount", -ids.size())
+            .pull("recentComments", new Document("comment_id", new Document("$in", ids)))
+            .inc("version", 1);
+        mongoTemplate.updateFirst(byId(postId), postUpdate, Post.class);
     }
 
     @Transactional(readOnly = true)
@@ -52,17 +140,150 @@ public class CommentService {
 
     @Transactional
     public Comment addCommentToPost(String postId, String userId, String content) {
-        Post post = postRepository.findById(postId)
-            .orElseThrow(() -> new RuntimeException("Post not found"));
-        User user = userService.getUserById(userId)
+        return addCommentToPost(postId, userId, content, null);
+    }
+
+    /**
+     * Adds a comment, or a reply when {@code parentId} is given, without loading
+     * the post. The post's comment count and latest-comment preview are
+     * maintained with a single update. When write-behind is enabled the comment
+     * is acknowledged once it is durably queued and written in a later batch.
+     */
+    @Transactional
+    public Comment addCommentToPost(String postId, String userId, String content, String parentId) {
+        Document post = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Post.class))
+            .find(new Document("_id", ObjectId.isValid(postId) ? new ObjectId(postId) : postId))
+            .projection(new Document("user", 1))
+            .first();
+        if (post == null) {
+            throw new RuntimeException("Post not found");
+        }
+        Query userQuery = byId(userId);
+        userQuery.fields().include("name");
+        User user = Optional.ofNullable(mongoTemplate.findOne(userQuery, User.class))
             .orElseThrow(() -> new RuntimeException("User not found"));
 
         Comment comment = new Comment();
+        comment.setId(new ObjectId().toHexString());
         comment.setContent(content);
-        comment.setPost(post);
+        comment.setPost(postReference(postId));
         comment.setUser(user);
+        comment.setUserId(userId);
+        comment.setUserName(user.getName());
+
+        if (parentId == null) {
+            comment.setPath(comment.getId());
+            comment.setDepth(0);
+        } else {
+            Comment parent = findThreadComment(postId, parentId);
+            comment.setParentId(parentId);
+            comment.setPath(parent.getPath() + Comment.PATH_SEPARATOR + comment.getId());
+            comment.setDepth(parent.getDepth() + 1);
+        }
         comment.onCreate();
 
-        return commentRepository.save(comment);
+        if (writeBehindService.isEnabled()) {
+            writeBehindService.enqueueComment(comment);
+        } else {
+            commentBatchWriter.insertAll(List.of(comment));
+        }
+        eventPublisher.publishEvent(new Activity(UserStatsService.ownerId(post.get("user")),
+            NotificationService.Type.POST_COMMENTED, postId, userId, user.getName()));
+        return comment;
+    }
+
+    /**
+     * Returns top-level comments of a post, newest first. {@code before} is the
+     * {@code nextCursor} of the previous page.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Comment> getTopLevelComments(String postId, String before, int limit) {
+        Criteria criteria = Criteria.where("post").is(postReference(postId)).and("parentId").is(null);
+        if (before != null) {
+            criteria = criteria.and("path").lt(before);
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "path"));
+        return findPage(query, limit);
+    }
+
+    /**
+     * Returns all replies below a comment in thread order (depth first, oldest
+     * first). {@code after} is the {@code nextCursor} of the previous page.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Comment> getThread(String postId, String commentId, String after, int limit) {
+        Comment root = findThreadComment(postId, commentId);
+        Query query = new Query(threadCriteria(postId, root.getPath(), after))
+            .with(Sort.by(Sort.Direction.ASC, "path"));
+        return findPage(query, limit);
+    }
+
+    private Criteria threadCriteria(String postId, String path, String after) {
+        // Every descendant path starts with "<path>/", and '0' is the character after '/'
+        String lowerBound = path + Comment.PATH_SEPARATOR;
+        Criteria pathCriteria = Criteria.where("post").is(postReference(postId)).and("path");
+        if (after != null && after.compareTo(lowerBound) > 0) {
+            return pathCriteria.gt(after).lt(path + '0');
+        }
+        return pathCriteria.gte(lowerBound).lt(path + '0');
+    }
+
+    private CursorPage<Comment> findPage(Query query, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Comment> comments = mongoTemplate.find(query.limit(pageSize + 1), Comment.class);
+        if (comments.size() <= pageSize) {
+            return new CursorPage<>(comments, null);
+        }
+        List<Comment> page = comments.subList(0, pageSize);
+        return new CursorPage<>(page, page.get(pageSize - 1).getPath());
+    }
+
+    /**
+     * Gives comments written before threads were kept their path, so they
+     * page with the other top-level comments. Those comments had no replies,
+     * so each is top-level and its path is its id; ids are ObjectIds, so the
+     * paths sort by creation time like new ones. One server-side update,
+     * recorded in the {@code migrations} collection once done; it only
+     * touches comments without a path, so running it twice is harmless.
+     */
+    private void backfillPaths() {
+        MongoCollection<Document> migrations = mongoTemplate.getCollection(MIGRATIONS);
+        try {
+            if (migrations.countDocuments(Filters.eq("_id", PATH_BACKFILL)) > 0) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            long updated = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Comment.class))
+                .updateMany(Filters.exists("path", false), List.of(Updates.set("path",
+                    new Document("$toString", "$_id")), Updates.set("depth", 0)))
+                .getModifiedCount();
+            migrations.updateOne(Filters.eq("_id", PATH_BACKFILL),
+                Updates.set("completed_at", new Date()), new UpdateOptions().upsert(true));
+            log.info("Migration {} completed: {} comments given a path in {}ms",
+                PATH_BACKFILL, updated, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Migration {} failed, retrying on the next start: {}", PATH_BACKFILL, e.getMessage());
+        }
+    }
+
+    private Comment findThreadComment(String postId, String commentId) {
+        Query query = new Query(Criteria.where("id").is(commentId).and("post").is(postReference(postId)));
+        query.fields().include("path", "depth");
+        return Optional.ofNullable(mongoTemplate.findOne(query, Comment.class))
+            .orElseThrow(() -> new RuntimeException("Comment not found"));
+    }
+
+    private Query byId(String id) {
+        return new Query(Criteria.where("id").is(id));
+    }
+
+    private Post postReference(String postId) {
+        Post post = new Post();
+        post.setId(postId);
+        return post;
+    }
+
+    private String postIdOf(Comment comment) {
+        return CommentBatchWriter.postIdOf(comment);
     }
-}
\ No newline at end of file
+}
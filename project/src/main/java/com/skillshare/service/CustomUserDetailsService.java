@@ -4,13 +4,17 @@ import com.skillshare.model.User;
 import com.skillshare.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +23,10 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    // Bootstrap administrators, for before any user document carries the ADMIN role
+    @Value("${security.admin-emails:}")
+    private Set<String> adminEmails;
+
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -38,11 +46,26 @@ public class CustomUserDetailsService implements UserDetailsService {
         return org.springframework.security.core.userdetails.User.builder()
             .username(user.getEmail())
             .password(user.getPassword())
-            .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")))
+            .authorities(authorities(user))
             .accountExpired(false)
             .accountLocked(false)
             .credentialsExpired(false)
             .disabled(!user.isEnabled())
             .build();
     }
-}
\ No newline at end of file
+
+    private List<GrantedAuthority> authorities(User user) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+        if (user.getRoles() != null) {
+            user.getRoles().stream()
+                .filter(role -> !"USER".equals(role))
+                .forEach(role -> authorities.add(new SimpleGrantedAuthority("ROLE_" + role)));
+        }
+        boolean admin = authorities.stream().anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        if (!admin && adminEmails.contains(user.getEmail())) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        }
+        return authorities;
+    }
+}
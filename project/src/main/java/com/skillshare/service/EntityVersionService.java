@@ -0,0 +1,90 @@
+package com.skillshare.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * ETags for conditional GETs, and the stored versions used by writes.
+ *
+ * <p>The ETag of a response is a hash of its JSON body rather than the
+ * document's {@code version}: users, posts, plans and resources are rendered
+ * with the users, comments and posts they reference by DBRef, and with
+ * fields that depend on the caller, none of which the version tracks. A
+ * conditional GET therefore still reads and renders the document, and saves
+ * only sending it.
+ */
+@Service
+@RequiredArgsConstructor
+public class EntityVersionService {
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    /** The ETag of {@code body} as it is rendered, so it changes with anything the body embeds. */
+    public String etag(Object body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(body));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not compute the ETag of " + body.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * The stored version of a document, for writes whose entity did not come
+     * from a read, or {@code null} if it does not exist. A document written
+     * before versioning is version 0; the field is stored first, so that the
+     * versioned save that follows matches it.
+     */
+    public Long currentVersion(Class<?> entityClass, String id) {
+        Document versions = findVersions(entityClass, id);
+        if (versions == null) {
+            return null;
+        }
+        if (!versions.containsKey("version")) {
+            mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass))
+                .updateOne(Filters.and(Filters.eq("_id", versions.get("_id")), Filters.exists("version", false)),
+                    Updates.set("version", 0L));
+        }
+        return version(versions);
+    }
+
+    private Document findVersions(Class<?> entityClass, String id) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass))
+            .find(new Document("_id", ObjectId.isValid(id) ? new ObjectId(id) : id))
+            .projection(new Document("version", 1))
+            .first();
+    }
+
+    private static long version(Document versions) {
+        Object version = versions.get("version");
+        return version instanceof Number number ? number.longValue() : 0;
+    }
+
+    /** Whether an {@code If-None-Match} header names {@code etag}. */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
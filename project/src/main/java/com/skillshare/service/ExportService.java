@@ -0,0 +1,194 @@
+package com.skillshare.service;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import com.skillshare.model.LearningPlan;
+import com.skillshare.model.Post;
+import com.skillshare.model.Resource;
+import com.skillshare.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.bson.types.ObjectId;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams collections as NDJSON straight from a MongoDB cursor, either whole
+ * or restricted to the documents of one owner.
+ *
+ * <p>Documents are read in {@code _id} order as raw BSON, so DBRefs are written
+ * as references and never resolved. A prefetch thread reads the next batch from
+ * the cursor only after the writer has taken the previous one, and hands it over
+ * through a single-slot queue, so at most one batch is being written and one is
+ * waiting at any time. Clients resume an interrupted export by passing the last
+ * {@code _id} they received. Prefetchers run on virtual threads when
+ * {@code spring.threads.virtual.enabled} is set on Java 21.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+    private static final List<Document> END_OF_STREAM = new ArrayList<>(0);
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder()
+        .outputMode(JsonMode.RELAXED)
+        .build();
+
+    private final MongoTemplate mongoTemplate;
+    private final Environment environment;
+
+    @Value("${export.batch-size:1000}")
+    private int batchSize;
+
+    private SimpleAsyncTaskExecutor prefetchExecutor;
+
+    @PostConstruct
+    void init() {
+        prefetchExecutor = new SimpleAsyncTaskExecutor("export-prefetch-");
+        prefetchExecutor.setDaemon(true);
+        prefetchExecutor.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+    }
+
+    public enum ExportType {
+        RESOURCES("resources", Resource.class),
+        POSTS("posts", Post.class),
+        PLANS("plans", LearningPlan.class);
+
+        private final String path;
+        private final Class<?> entityClass;
+
+        ExportType(String path, Class<?> entityClass) {
+            this.path = path;
+            this.entityClass = entityClass;
+        }
+
+        public static Optional<ExportType> fromPath(String path) {
+            return Arrays.stream(values())
+                .filter(type -> type.path.equalsIgnoreCase(path))
+                .findFirst();
+        }
+    }
+
+    /**
+     * Writes the documents of {@code type} after {@code afterId}; when
+     * {@code ownerId} is set, only those owned by that user.
+     */
+    public long export(ExportType type, String ownerId, String afterId, OutputStream output) throws IOException {
+        String collectionName = mongoTemplate.getCollectionName(type.entityClass);
+        List<Bson> conditions = new ArrayList<>(2);
+        if (ownerId != null) {
+            // Every exported collection keys its user index on the whole owner DBRef
+            conditions.add(Filters.eq("user", new DBRef(mongoTemplate.getCollectionName(User.class), toId(ownerId))));
+        }
+        if (afterId != null && !afterId.isBlank()) {
+            conditions.add(Filters.gt("_id", toId(afterId)));
+        }
+        Bson filter = conditions.isEmpty() ? new Document() : Filters.and(conditions);
+        log.info("Starting export of {} for owner {} after id {}", collectionName, ownerId, afterId);
+
+        BlockingQueue<List<Document>> handoff = new ArrayBlockingQueue<>(1);
+        // One permit per batch the prefetcher may read ahead; the writer returns it on each take
+        Semaphore demand = new Semaphore(1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        Future<?> prefetcher = prefetchExecutor.submit(
+            () -> prefetch(collectionName, filter, handoff, demand, cancelled, failure));
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        long exported = 0;
+        try {
+            List<Document> batch;
+            while ((batch = handoff.take()) != END_OF_STREAM) {
+                demand.release();
+                for (Document document : batch) {
+                    writer.write(document.toJson(JSON_SETTINGS));
+                    writer.write('\n');
+                }
+                writer.flush();
+                exported += batch.size();
+                // Unreachable before waiting, so only the next batch is held while blocked
+                batch = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export of " + collectionName + " was interrupted", e);
+        } finally {
+            cancelled.set(true);
+            prefetcher.cancel(true);
+        }
+
+        if (failure.get() != null) {
+            log.error("Export of {} failed after {} documents", collectionName, exported);
+            throw failure.get();
+        }
+        log.info("Exported {} documents from {}", exported, collectionName);
+        return exported;
+    }
+
+    private void prefetch(String collectionName, Bson filter, BlockingQueue<List<Document>> handoff,
+                          Semaphore demand, AtomicBoolean cancelled, AtomicReference<RuntimeException> failure) {
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(collectionName)
+                .find(filter)
+                .sort(Sorts.ascending("_id"))
+                .batchSize(batchSize)
+                .iterator()) {
+            while (!cancelled.get()) {
+                // Nothing is read from the cursor until the writer has taken the previous batch
+                demand.acquire();
+                List<Document> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && cursor.hasNext()) {
+                    batch.add(cursor.next());
+                }
+                if (batch.isEmpty() || cancelled.get()) {
+                    break;
+                }
+                handoff.put(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException e) {
+            failure.set(e);
+        }
+
+        try {
+            if (!cancelled.get()) {
+                handoff.put(END_OF_STREAM);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Object toId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
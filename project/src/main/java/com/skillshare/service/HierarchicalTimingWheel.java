@@ -0,0 +1,116 @@
+package com.skillshare.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel in the style of Varghese and Lauck.
+ *
+ * <p>The lowest wheel has {@code wheelSize} buckets of {@code tickMs} each.
+ * Timers beyond its span go to a lazily created overflow wheel whose tick is
+ * the whole span of the wheel below it. As time advances, buckets of the
+ * overflow wheels are cascaded back down. Adding and expiring a timer is O(1)
+ * amortised, independent of how many timers are pending.
+ *
+ * <p>Not thread-safe; it is meant to be driven by a single thread.
+ */
+class HierarchicalTimingWheel<T> {
+    private final long tickMs;
+    private final int wheelSize;
+    private final long interval;
+    private final List<List<Timer<T>>> buckets;
+    private long currentTime;
+    private HierarchicalTimingWheel<T> overflowWheel;
+    private int size;
+
+    private record Timer<T>(long expirationMs, T item) {
+    }
+
+    HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.currentTime = startMs - (startMs % tickMs);
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules {@code item} to expire at {@code expirationMs}.
+     *
+     * @return {@code false} if the timer is already due, in which case the
+     *         caller should handle it immediately
+     */
+    boolean add(long expirationMs, T item) {
+        return add(new Timer<>(expirationMs, item));
+    }
+
+    private boolean add(Timer<T> timer) {
+        if (timer.expirationMs() < currentTime + tickMs) {
+            return false;
+        }
+        if (timer.expirationMs() < currentTime + interval) {
+            long virtualTick = timer.expirationMs() / tickMs;
+            buckets.get((int) (virtualTick % wheelSize)).add(timer);
+            size++;
+            return true;
+        }
+        if (overflowWheel == null) {
+            overflowWheel = new HierarchicalTimingWheel<>(interval, wheelSize, currentTime);
+        }
+        return overflowWheel.add(timer);
+    }
+
+    /**
+     * Advances the wheel to {@code nowMs}, passing every timer that expired on
+     * the way to {@code expired}.
+     */
+    void advance(long nowMs, Consumer<T> expired) {
+        while (currentTime + tickMs <= nowMs) {
+            currentTime += tickMs;
+            if (overflowWheel != null) {
+                overflowWheel.advanceOverflow(currentTime, timer -> {
+                    if (!add(timer)) {
+                        expired.accept(timer.item());
+                    }
+                });
+            }
+
+            List<Timer<T>> bucket = buckets.get((int) ((currentTime / tickMs) % wheelSize));
+            if (!bucket.isEmpty()) {
+                List<Timer<T>> timers = new ArrayList<>(bucket);
+                bucket.clear();
+                size -= timers.size();
+                for (Timer<T> timer : timers) {
+                    if (!add(timer)) {
+                        expired.accept(timer.item());
+                    }
+                }
+            }
+        }
+    }
+
+    private void advanceOverflow(long timeMs, Consumer<Timer<T>> cascade) {
+        while (currentTime + tickMs <= timeMs) {
+            currentTime += tickMs;
+            if (overflowWheel != null) {
+                overflowWheel.advanceOverflow(currentTime, cascade);
+            }
+
+            List<Timer<T>> bucket = buckets.get((int) ((currentTime / tickMs) % wheelSize));
+            if (!bucket.isEmpty()) {
+                List<Timer<T>> timers = new ArrayList<>(bucket);
+                bucket.clear();
+                size -= timers.size();
+                timers.forEach(cascade);
+            }
+        }
+    }
+
+    int size() {
+        return size + (overflowWheel != null ? overflowWheel.size() : 0);
+    }
+}
@@ -0,0 +1,62 @@
+package com.skillshare.service;
+
+import com.skillshare.model.DueDateReminder;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Stores reminders as unread in-app notifications, one insert per batch.
+ * Reminders carry their own message and are never folded together. Each
+ * notification's id is derived from the reminder and its due time, so a batch
+ * retried after a partial failure does not notify twice.
+ */
+@Component
+@RequiredArgsConstructor
+public class InAppReminderSink implements ReminderSink {
+    static final String COLLECTION = "notifications";
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public String name() {
+        return "in-app";
+    }
+
+    @Override
+    public void deliver(List<DueDateReminder> reminders) {
+        Date now = new Date();
+        List<Document> notifications = new ArrayList<>(reminders.size());
+        for (DueDateReminder reminder : reminders) {
+            notifications.add(new Document("_id", reminder.getId() + ":" + reminder.getRemindAt())
+                .append("user_id", reminder.getUserId())
+                .append("type", reminder.getKind() == DueDateReminder.Kind.PLAN ? "PLAN_DUE" : "MILESTONE_DUE")
+                .append("target_id", reminder.getPlanId())
+                .append("plan_id", reminder.getPlanId())
+                .append("milestone_id", reminder.getMilestoneId())
+                .append("message", ReminderMessages.subject(reminder))
+                .append("count", 1)
+                .append("read", false)
+                .append("created_at", now)
+                .append("updated_at", now));
+        }
+        try {
+            mongoTemplate.getCollection(COLLECTION).insertMany(notifications, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,589 @@
+package com.skillshare.service;
+
+import com.mongodb.client.MongoCollection;
+import com.skillshare.config.BackgroundThreads;
+import com.skillshare.model.LeaderboardScore;
+import com.skillshare.model.Resource;
+import com.skillshare.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Top-contributor leaderboards per skill category, kept in memory and
+ * updated from {@link ContributionChanged} events: sharing a resource earns
+ * {@code leaderboard.points.resource} points, every like on it
+ * {@code leaderboard.points.like}.
+ *
+ * <p>Each category has one board per {@link Window}. A board keeps its points
+ * per time bucket (hours for the daily board, days for the weekly one) and a
+ * {@link RankedScoreboard} of their sum; when a bucket falls out of the window
+ * its points are subtracted again. Boards are locked individually, so events
+ * for different categories never contend. Deltas count in the bucket in
+ * which they happen, so unliking an old resource lowers today's score.
+ *
+ * <p>Every node keeps its own partition of {@code leaderboard_scores},
+ * identified by {@code leaderboard.node-id} (the host name by default): the
+ * bucket scores it earned itself are written there every
+ * {@code leaderboard.snapshot-interval} and on shutdown, so a node never
+ * overwrites points another node earned. After each snapshot the partitions
+ * other nodes changed recently are read back and merged into the boards, so
+ * every node converges on the sum of all partitions within about one
+ * interval. Expired buckets are deleted from all partitions.
+ *
+ * <p>On startup the boards are rebuilt from every partition; if the
+ * collection is empty, the one node that claims the seed in
+ * {@code migrations} builds the all-time boards from existing resources
+ * instead. Events arriving meanwhile are held back, up to
+ * {@code leaderboard.max-pending-events}, and applied once the boards are
+ * restored, so none is lost to, or counted again by, the restore. Events
+ * older than the seed are already part of it and are dropped; an item
+ * changed while the seed aggregation runs may be counted twice. If the
+ * restore fails it is retried every interval, and nothing is written until
+ * it succeeds.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${leaderboard.points.resource:5}")
+    private long resourcePoints;
+
+    @Value("${leaderboard.points.like:1}")
+    private long likePoints;
+
+    @Value("${leaderboard.snapshot-interval:PT30S}")
+    private Duration snapshotInterval;
+
+    @Value("${leaderboard.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${leaderboard.node-id:}")
+    private String nodeId;
+
+    @Value("${leaderboard.max-pending-events:100000}")
+    private int maxPendingEvents;
+
+    private static final String MIGRATIONS = "migrations";
+    private static final String SEED = "seed-leaderboards";
+    /** Unique index of the scores before they were partitioned by node; it would reject a second node's row. */
+    private static final String SINGLE_NODE_INDEX = "window_category_bucket_user_idx";
+
+    public enum Window {
+        ALL_TIME(0, 1),
+        WEEKLY(Duration.ofDays(1).toMillis(), 7),
+        DAILY(Duration.ofHours(1).toMillis(), 24);
+
+        private final long bucketMs;
+        private final int buckets;
+
+        Window(long bucketMs, int buckets) {
+            this.bucketMs = bucketMs;
+            this.buckets = buckets;
+        }
+
+        long bucketOf(long timeMs) {
+            return bucketMs == 0 ? 0 : timeMs - Math.floorMod(timeMs, bucketMs);
+        }
+
+        long oldestBucket(long nowMs) {
+            return bucketMs == 0 ? 0 : bucketOf(nowMs) - (buckets - 1) * bucketMs;
+        }
+    }
+
+    /** {@code userId} gained (or lost) resources and likes in {@code category}. */
+    public record ContributionChanged(String userId, String category, long resources, long likes) {}
+
+    public record Standing(int rank, String userId, String name, long points) {}
+
+    public record Leaderboard(String category, Window window, int participants, List<Standing> top, Standing caller) {}
+
+    private record BoardKey(Window window, String category) {}
+
+    private record BucketKey(long bucket, String userId) {}
+
+    private record NodeScoreKey(String userId, String node) {}
+
+    private record Change(BoardKey board, BucketKey key, long points) {}
+
+    private record PendingEvent(ContributionChanged event, long timeMs) {}
+
+    private static final class Board {
+        final ReentrantLock lock = new ReentrantLock();
+        final RankedScoreboard ranking = new RankedScoreboard();
+        /** Points of all nodes per bucket and user, as ranked. */
+        final NavigableMap<Long, Map<String, Long>> buckets = new TreeMap<>();
+        /** This node's share of {@code buckets}, the points written to its partition. */
+        final NavigableMap<Long, Map<String, Long>> own = new TreeMap<>();
+        /** Last points read from other nodes' partitions per bucket. */
+        final NavigableMap<Long, Map<NodeScoreKey, Long>> others = new TreeMap<>();
+        final Set<BucketKey> dirty = new HashSet<>();
+    }
+
+    private final Map<BoardKey, Board> boards = new ConcurrentHashMap<>();
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private final List<PendingEvent> pending = new ArrayList<>();
+    private volatile boolean restored;
+    private long droppedEvents;
+    private LocalDateTime lastMerge;
+    private ScheduledExecutorService snapshotter;
+
+    @PostConstruct
+    void start() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = hostName();
+        }
+        snapshotter = ExecutorServiceMetrics.monitor(meterRegistry,
+            Executors.newScheduledThreadPool(1, backgroundThreads.named("leaderboard-snapshot")), "leaderboard-snapshot");
+        snapshotter.execute(this::restoreQuietly);
+        snapshotter.scheduleWithFixedDelay(this::syncQuietly,
+            snapshotInterval.toMillis(), snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        snapshotter.shutdown();
+        snapshotter.awaitTermination(10, TimeUnit.SECONDS);
+        if (restored) {
+            snapshotQuietly();
+        }
+    }
+
+    public static String normalizeCategory(String category) {
+        if (category == null || category.isBlank()) {
+            return null;
+        }
+        return category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @EventListener
+    public void onContributionChanged(ContributionChanged event) {
+        long now = System.currentTimeMillis();
+        if (!restored) {
+            pendingLock.lock();
+            try {
+                if (!restored) {
+                    if (pending.size() < maxPendingEvents) {
+                        pending.add(new PendingEvent(event, now));
+                    } else {
+                        droppedEvents++;
+                    }
+                    return;
+                }
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+        apply(event, now);
+    }
+
+    private void apply(ContributionChanged event, long timeMs) {
+        String category = normalizeCategory(event.category());
+        long points = event.resources() * resourcePoints + event.likes() * likePoints;
+        if (event.userId() == null || category == null || points == 0) {
+            return;
+        }
+        for (Window window : Window.values()) {
+            Board board = boards.computeIfAbsent(new BoardKey(window, category), key -> new Board());
+            board.lock.lock();
+            try {
+                expire(board, window, timeMs);
+                long bucket = window.bucketOf(timeMs);
+                add(board, bucket, event.userId(), points);
+                addOwn(board, bucket, event.userId(), points);
+            } finally {
+                board.lock.unlock();
+            }
+        }
+    }
+
+    public List<String> getCategories() {
+        return boards.keySet().stream()
+            .filter(key -> key.window() == Window.ALL_TIME)
+            .map(BoardKey::category)
+            .sorted()
+            .toList();
+    }
+
+    /**
+     * The top {@code limit} contributors of a category, and the caller's own
+     * standing if they have points in it.
+     */
+    public Leaderboard getLeaderboard(String category, Window window, int limit, String callerEmail) {
+        String key = normalizeCategory(category);
+        int n = Math.max(1, Math.min(limit, maxLimit));
+        String callerId = callerEmail != null ? callerId(callerEmail) : null;
+
+        List<RankedScoreboard.Entry> top = List.of();
+        int participants = 0;
+        int callerRank = 0;
+        long callerPoints = 0;
+        Board board = key != null ? boards.get(new BoardKey(window, key)) : null;
+        if (board != null) {
+            board.lock.lock();
+            try {
+                expire(board, window, System.currentTimeMillis());
+                top = board.ranking.top(n);
+                participants = board.ranking.size();
+                if (callerId != null) {
+                    callerRank = board.ranking.rank(callerId);
+                    callerPoints = board.ranking.score(callerId);
+                }
+            } finally {
+                board.lock.unlock();
+            }
+        }
+
+        Set<String> userIds = new HashSet<>();
+        top.forEach(entry -> userIds.add(entry.id()));
+        if (callerRank > 0) {
+            userIds.add(callerId);
+        }
+        Map<String, String> names = names(userIds);
+
+        List<Standing> standings = new ArrayList<>(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            RankedScoreboard.Entry entry = top.get(i);
+            standings.add(new Standing(i + 1, entry.id(), names.get(entry.id()), entry.score()));
+        }
+        Standing caller = callerRank > 0 ? new Standing(callerRank, callerId, names.get(callerId), callerPoints) : null;
+        return new Leaderboard(key, window, participants, standings, caller);
+    }
+
+    /**
+     * Upserts this node's bucket scores changed since the last snapshot to
+     * its partition and drops expired buckets.
+     */
+    public void snapshot() {
+        long now = System.currentTimeMillis();
+        List<Change> changes = new ArrayList<>();
+        for (Map.Entry<BoardKey, Board> entry : boards.entrySet()) {
+            Board board = entry.getValue();
+            board.lock.lock();
+            try {
+                expire(board, entry.getKey().window(), now);
+                for (BucketKey dirty : board.dirty) {
+                    Map<String, Long> bucket = board.own.get(dirty.bucket());
+                    if (bucket != null) {
+                        changes.add(new Change(entry.getKey(), dirty, bucket.getOrDefault(dirty.userId(), 0L)));
+                    }
+                }
+                board.dirty.clear();
+            } finally {
+                board.lock.unlock();
+            }
+        }
+
+        try {
+            if (!changes.isEmpty()) {
+                LocalDateTime updatedAt = LocalDateTime.now();
+                BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LeaderboardScore.class);
+                for (Change change : changes) {
+                    bulkOps.upsert(byBucket(change.board(), change.key(), nodeId),
+                        new Update().set("points", change.points()).set("updatedAt", updatedAt));
+                }
+                bulkOps.execute();
+            }
+        } catch (RuntimeException e) {
+            // Keep the changes for the next snapshot
+            for (Change change : changes) {
+                Board board = boards.get(change.board());
+                board.lock.lock();
+                try {
+                    board.dirty.add(change.key());
+                } finally {
+                    board.lock.unlock();
+                }
+            }
+            throw e;
+        }
+
+        for (Window window : Window.values()) {
+            if (window != Window.ALL_TIME) {
+                mongoTemplate.remove(new Query(Criteria.where("window").is(window.name())
+                    .and("bucket").lt(window.oldestBucket(now))), LeaderboardScore.class);
+            }
+        }
+        if (!changes.isEmpty()) {
+            log.debug("Snapshotted {} leaderboard scores", changes.size());
+        }
+    }
+
+    /**
+     * Reads the scores other nodes wrote since the last merge and applies the
+     * difference to what was last read from them. Reading a score twice
+     * changes nothing, so the window reaches back one interval further to
+     * allow for clocks that differ between nodes.
+     */
+    public void merge() {
+        LocalDateTime since = lastMerge.minus(snapshotInterval);
+        lastMerge = LocalDateTime.now();
+        long merged = load(new Query(Criteria.where("node").ne(nodeId).and("updatedAt").gte(since)), false);
+        if (merged > 0) {
+            log.debug("Merged {} leaderboard scores from other nodes", merged);
+        }
+    }
+
+    private void syncQuietly() {
+        if (!restored) {
+            restoreQuietly();
+            return;
+        }
+        snapshotQuietly();
+        try {
+            merge();
+        } catch (Exception e) {
+            log.error("Merging leaderboard scores of other nodes failed: {}", e.getMessage());
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.error("Leaderboard snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    private void restoreQuietly() {
+        boolean seeding = false;
+        try {
+            dropSingleNodeIndex();
+            long startMs = System.currentTimeMillis();
+            seeding = mongoTemplate.estimatedCount(LeaderboardScore.class) == 0 && claimSeed();
+            if (seeding) {
+                seed();
+            } else {
+                restore();
+            }
+            applyPending(seeding ? startMs : 0);
+        } catch (Exception e) {
+            log.error("Failed to restore leaderboards, retrying in {}: {}", snapshotInterval, e.getMessage());
+            boards.clear();
+            if (seeding) {
+                releaseSeed();
+            }
+        }
+    }
+
+    private void restore() {
+        lastMerge = LocalDateTime.now();
+        long restored = load(new Query(), true);
+        log.info("Restored {} leaderboard scores across {} boards, partition {}", restored, boards.size(), nodeId);
+    }
+
+    /**
+     * Adds the matching scores to the boards; those of this node's partition
+     * only when restoring, to continue it from what it wrote before.
+     */
+    private long load(Query query, boolean restoring) {
+        long now = System.currentTimeMillis();
+        long loaded = 0;
+        try (Stream<LeaderboardScore> scores = mongoTemplate.stream(query, LeaderboardScore.class)) {
+            for (LeaderboardScore score : (Iterable<LeaderboardScore>) scores::iterator) {
+                Window window = Window.valueOf(score.getWindow());
+                if (score.getBucket() < window.oldestBucket(now)) {
+                    continue;
+                }
+                Board board = boards.computeIfAbsent(new BoardKey(window, score.getCategory()), key -> new Board());
+                board.lock.lock();
+                try {
+                    expire(board, window, now);
+                    if (nodeId.equals(score.getNode())) {
+                        if (restoring) {
+                            add(board, score.getBucket(), score.getUserId(), score.getPoints());
+                            board.own.computeIfAbsent(score.getBucket(), key -> new HashMap<>())
+                                .merge(score.getUserId(), score.getPoints(), Long::sum);
+                        }
+                    } else {
+                        // Rows written before scores were partitioned have no node; they are never rewritten
+                        Long previous = board.others.computeIfAbsent(score.getBucket(), key -> new HashMap<>())
+                            .put(new NodeScoreKey(score.getUserId(), score.getNode()), score.getPoints());
+                        add(board, score.getBucket(), score.getUserId(), score.getPoints() - (previous != null ? previous : 0));
+                    }
+                } finally {
+                    board.lock.unlock();
+                }
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /** Applies the events held back during the restore, dropping those already part of a seed started at {@code seededAtMs}. */
+    private void applyPending(long seededAtMs) {
+        pendingLock.lock();
+        try {
+            int applied = 0;
+            for (PendingEvent event : pending) {
+                if (event.timeMs() >= seededAtMs) {
+                    apply(event.event(), event.timeMs());
+                    applied++;
+                }
+            }
+            if (applied > 0 || droppedEvents > 0) {
+                log.info("Applied {} leaderboard events held back during the restore, {} dropped over the limit",
+                    applied, droppedEvents);
+            }
+            pending.clear();
+            droppedEvents = 0;
+            restored = true;
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    private boolean claimSeed() {
+        try {
+            mongoTemplate.insert(new Document("_id", SEED).append("started_at", new Date()), MIGRATIONS);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Another node seeds; its scores are merged once it has written them
+            return false;
+        }
+    }
+
+    private void releaseSeed() {
+        try {
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(SEED)), MIGRATIONS);
+        } catch (RuntimeException e) {
+            log.error("Could not release the leaderboard seed claim: {}", e.getMessage());
+        }
+    }
+
+    private void dropSingleNodeIndex() {
+        MongoCollection<Document> scores = mongoTemplate.getCollection(mongoTemplate.getCollectionName(LeaderboardScore.class));
+        for (Document index : scores.listIndexes()) {
+            if (SINGLE_NODE_INDEX.equals(index.getString("name"))) {
+                scores.dropIndex(SINGLE_NODE_INDEX);
+                log.info("Dropped leaderboard index {}, replaced by one per node", SINGLE_NODE_INDEX);
+            }
+        }
+    }
+
+    /** Builds the all-time boards from existing resources and their likes. */
+    private void seed() {
+        lastMerge = LocalDateTime.now();
+        Document group = new Document("_id", new Document("user", "$user").append("category", "$skill_category"))
+            .append("resources", new Document("$sum", 1))
+            .append("likes", new Document("$sum", new Document("$size", new Document("$ifNull", List.of("$likes", List.of())))));
+        long seeded = 0;
+        for (Document doc : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Resource.class))
+                .aggregate(List.of(new Document("$group", group)))
+                .allowDiskUse(true)) {
+            Document id = doc.get("_id", Document.class);
+            String userId = UserStatsService.ownerId(id.get("user"));
+            String category = normalizeCategory(id.getString("category"));
+            long points = doc.get("resources", Number.class).longValue() * resourcePoints
+                + doc.get("likes", Number.class).longValue() * likePoints;
+            if (userId == null || category == null || points <= 0) {
+                continue;
+            }
+            Board board = boards.computeIfAbsent(new BoardKey(Window.ALL_TIME, category), key -> new Board());
+            board.lock.lock();
+            try {
+                add(board, 0, userId, points);
+                addOwn(board, 0, userId, points);
+            } finally {
+                board.lock.unlock();
+            }
+            seeded++;
+        }
+        log.info("Seeded all-time leaderboards with {} contributors", seeded);
+    }
+
+    private static void add(Board board, long bucket, String userId, long points) {
+        if (points == 0) {
+            return;
+        }
+        board.buckets.computeIfAbsent(bucket, key -> new HashMap<>()).merge(userId, points, Long::sum);
+        board.ranking.add(userId, points);
+    }
+
+    /** Records points earned on this node, to be written to its partition. */
+    private static void addOwn(Board board, long bucket, String userId, long points) {
+        board.own.computeIfAbsent(bucket, key -> new HashMap<>()).merge(userId, points, Long::sum);
+        board.dirty.add(new BucketKey(bucket, userId));
+    }
+
+    private static void expire(Board board, Window window, long now) {
+        long oldest = window.oldestBucket(now);
+        while (!board.buckets.isEmpty() && board.buckets.firstKey() < oldest) {
+            board.buckets.pollFirstEntry().getValue().forEach((userId, points) -> board.ranking.add(userId, -points));
+        }
+        board.own.headMap(oldest).clear();
+        board.others.headMap(oldest).clear();
+    }
+
+    private String callerId(String email) {
+        Query query = new Query(Criteria.where("email").is(email));
+        query.fields().include("id");
+        User user = mongoTemplate.findOne(query, User.class);
+        return user != null ? user.getId() : null;
+    }
+
+    private Map<String, String> names(Set<String> userIds) {
+        Map<String, String> names = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return names;
+        }
+        Query query = new Query(Criteria.where("id").in(userIds));
+        query.fields().include("name");
+        mongoTemplate.find(query, User.class).forEach(user -> names.put(user.getId(), user.getName()));
+        return names;
+    }
+
+    private static Query byBucket(BoardKey board, BucketKey key, String node) {
+        return new Query(Criteria.where("window").is(board.window().name())
+            .and("category").is(board.category())
+            .and("bucket").is(key.bucket())
+            .and("userId").is(key.userId())
+            .and("node").is(node));
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "local";
+        }
+    }
+}
@@ -1,69 +1,848 @@
 package com.skillshare.service;
 
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import com.skillshare.config.BackgroundThreads;
 import com.skillshare.model.LearningPlan;
+import com.skillshare.model.CursorPage;
 import com.skillshare.model.Milestone;
+import com.skillshare.model.MilestoneOverride;
+import com.skillshare.model.PlanTemplate;
 import com.skillshare.model.User;
 import com.skillshare.repository.LearningPlanRepository;
+import com.skillshare.repository.PlanTemplateRepository;
+import com.skillshare.service.UserStatsService.PlansChanged;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class LearningPlanService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_PROGRESS_ATTEMPTS = 3;
+    private static final String MIGRATIONS = "migrations";
+    private static final String REMINDER_BACKFILL = "backfill-due-date-reminders";
+    private static final int REMINDER_BACKFILL_BATCH_SIZE = 500;
+
     @Autowired
     private LearningPlanRepository learningPlanRepository;
 
+    @Autowired
+    private PlanTemplateRepository planTemplateRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ReminderService reminderService;
+
+    @Autowired
+    private PlanTagService planTagService;
+
+    @Autowired
+    private EntityVersionService entityVersionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BackgroundThreads backgroundThreads;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${plan-templates.clone-refresh.batch-size:500}")
+    private int cloneRefreshBatchSize;
+
+    @Value("${plan-templates.clone-refresh.initial-delay:PT30S}")
+    private Duration cloneRefreshInitialDelay;
+
+    @Value("${plan-templates.clone-refresh.interval:PT5M}")
+    private Duration cloneRefreshInterval;
+
+    private ScheduledExecutorService cloneRefresher;
+
+    @PostConstruct
+    void start() {
+        cloneRefresher = ExecutorServiceMetrics.monitor(meterRegistry,
+            Executors.newScheduledThreadPool(1, backgroundThreads.named("clone-refresher")), "clone-refresher");
+        cloneRefresher.scheduleWithFixedDelay(this::refreshUnsyncedTemplates,
+            cloneRefreshInitialDelay.toMillis(), cloneRefreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        cloneRefresher.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        cloneRefresher.execute(this::backfillReminders);
+    }
+
     @Transactional
     public LearningPlan createLearningPlan(LearningPlan learningPlan) {
-        return learningPlanRepository.save(learningPlan);
+        prepareMilestones(learningPlan);
+        learningPlan.setTags(PlanTagService.normalize(learningPlan.getTags()));
+        LearningPlan saved = learningPlanRepository.save(learningPlan);
+        planTagService.applyChange(Set.of(), saved.getTags());
+        reminderService.syncPlan(saved);
+        eventPublisher.publishEvent(new PlansChanged(ownerId(saved)));
+        return saved;
     }
 
     @Transactional(readOnly = true)
     public Optional<LearningPlan> getLearningPlanById(String id) {
-        return learningPlanRepository.findById(id);
+        return learningPlanRepository.findById(id).map(this::resolve);
     }
 
     @Transactional
     public LearningPlan updateLearningPlan(LearningPlan learningPlan) {
-        return learningPlanRepository.save(learningPlan);
+        if (learningPlan.getVersion() == null) {
+            learningPlan.setVersion(entityVersionService.currentVersion(LearningPlan.class, learningPlan.getId()));
+        }
+        // A clone arrives resolved, so progress is computed before template milestones are split off
+        prepareMilestones(learningPlan);
+        if (learningPlan.isClone()) {
+            splitTemplateMilestones(learningPlan);
+        }
+        learningPlan.setTags(PlanTagService.normalize(learningPlan.getTags()));
+        Set<String> previousTags = storedTags(learningPlan.getId());
+        LearningPlan saved = learningPlanRepository.save(learningPlan);
+        planTagService.applyChange(previousTags, saved.getTags());
+        LearningPlan resolved = resolve(saved);
+        reminderService.syncPlan(resolved);
+        eventPublisher.publishEvent(new PlansChanged(ownerId(saved)));
+        return resolved;
     }
 
     @Transactional
     public void deleteLearningPlan(String id) {
+        Set<String> previousTags = storedTags(id);
+        String ownerId = learningPlanRepository.findById(id).map(this::ownerId).orElse(null);
         learningPlanRepository.deleteById(id);
+        planTagService.applyChange(previousTags, Set.of());
+        reminderService.cancelPlan(id);
+        eventPublisher.publishEvent(new PlansChanged(ownerId));
+    }
+
+    /**
+     * Finds plans carrying all ({@code matchAll}) or any of {@code tags},
+     * newest first. {@code before} is the last id of the previous page.
+     *
+     * <p>Both forms are served by the multikey {tags, _id} index. For an AND
+     * query the tags are ordered rarest first, because the index bounds are
+     * taken from the first tag and the rest are filtered.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<LearningPlan> discoverPlans(Set<String> tags, boolean matchAll, String before, int limit) {
+        Set<String> normalized = PlanTagService.normalize(tags);
+        Criteria criteria = new Criteria();
+        if (!normalized.isEmpty()) {
+            if (matchAll) {
+                Map<String, Long> counts = planTagService.getCounts(normalized);
+                if (counts.size() < normalized.size()) {
+                    // Some tag is on no plan at all
+                    return new CursorPage<>(List.of(), null);
+                }
+                List<String> rarestFirst = normalized.stream()
+                    .sorted(Comparator.comparing(counts::get))
+                    .toList();
+                criteria = Criteria.where("tags").all(rarestFirst);
+            } else {
+                criteria = Criteria.where("tags").in(normalized);
+            }
+        }
+        if (before != null) {
+            criteria = criteria.and("id").lt(before);
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Query query = new Query(criteria)
+            .with(Sort.by(Sort.Direction.DESC, "id"))
+            .limit(pageSize + 1);
+        // Owners are DBRefs; resolving them would cost one query per plan
+        query.fields().exclude("user");
+
+        List<LearningPlan> plans = mongoTemplate.find(query, LearningPlan.class);
+        String nextCursor = null;
+        if (plans.size() > pageSize) {
+            plans = plans.subList(0, pageSize);
+            nextCursor = plans.get(pageSize - 1).getId();
+        }
+        resolveAll(plans);
+        return new CursorPage<>(plans, nextCursor);
     }
 
     @Transactional(readOnly = true)
     public Page<LearningPlan> getLearningPlansByUser(User user, Pageable pageable) {
-        return learningPlanRepository.findByUserOrderByCreatedAtDesc(user, pageable);
+        Page<LearningPlan> plans = learningPlanRepository.findByUserOrderByCreatedAtDesc(user, pageable);
+        resolveAll(plans.getContent());
+        return plans;
     }
 
+    /**
+     * Publishes a snapshot of a plan as a new template. Milestones get fresh
+     * ids and completion state is not copied.
+     */
     @Transactional
-    public Milestone addMilestoneToPlan(String planId, Milestone milestone) {
-        LearningPlan plan = learningPlanRepository.findById(planId)
+    public PlanTemplate createTemplateFromPlan(String planId, String authorId) {
+        LearningPlan plan = getLearningPlanById(planId)
             .orElseThrow(() -> new RuntimeException("Learning plan not found"));
-        
-        milestone.setLearningPlan(plan);
-        plan.getMilestones().add(milestone);
-        
-        learningPlanRepository.save(plan);
+
+        PlanTemplate template = new PlanTemplate();
+        template.setTitle(plan.getTitle());
+        template.setDescription(plan.getDescription());
+        template.setTags(PlanTagService.normalize(plan.getTags()));
+        template.setAuthorId(authorId);
+        template.setSourcePlanId(planId);
+        template.onCreate();
+        for (Milestone milestone : plan.getMilestones()) {
+            Milestone copy = copyMilestone(milestone);
+            copy.setId(new ObjectId().toHexString());
+            copy.setCompleted(false);
+            copy.onCreate();
+            template.getMilestones().add(copy);
+        }
+        return planTemplateRepository.save(template);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<PlanTemplate> getTemplateById(String templateId) {
+        return planTemplateRepository.findById(templateId);
+    }
+
+    /**
+     * Replaces a template's content. Milestones keep their ids so clone
+     * overrides stay attached; clones see the change on their next read
+     * without being rewritten. Their stored progress and reminders, which
+     * milestone and date changes move, are refreshed in the background.
+     */
+    @Transactional
+    public PlanTemplate updateTemplate(String templateId, PlanTemplate changes) {
+        PlanTemplate template = planTemplateRepository.findById(templateId)
+            .orElseThrow(() -> new RuntimeException("Template not found"));
+
+        template.setTitle(changes.getTitle());
+        template.setDescription(changes.getDescription());
+        template.setTags(PlanTagService.normalize(changes.getTags()));
+        for (Milestone milestone : changes.getMilestones()) {
+            milestone.setCompleted(false);
+            if (milestone.getId() == null) {
+                milestone.setId(new ObjectId().toHexString());
+                milestone.onCreate();
+            } else {
+                milestone.onUpdate();
+            }
+        }
+        template.setMilestones(changes.getMilestones());
+        template.onUpdate();
+        if (template.getClonesSyncedVersion() == null) {
+            // Clones of templates from before the marker were refreshed on every edit
+            template.setClonesSyncedVersion(template.getVersion());
+        }
+        PlanTemplate saved = planTemplateRepository.save(template);
+        if (saved.getCloneCount() > 0) {
+            cloneRefresher.execute(() -> refreshClonesQuietly(saved.getId()));
+        }
+        return saved;
+    }
+
+    /**
+     * Creates a plan for {@code userId} that references the template instead
+     * of copying its milestones, so the insert has the same size for any
+     * number of them. Tags are copied, so the clone is found by tag discovery
+     * and counted in the tag table.
+     */
+    @Transactional
+    public LearningPlan cloneTemplate(String templateId, String userId) {
+        PlanTemplate template = planTemplateRepository.findById(templateId)
+            .orElseThrow(() -> new RuntimeException("Template not found"));
+
+        User owner = new User();
+        owner.setId(userId);
+
+        LearningPlan plan = new LearningPlan();
+        plan.setTemplateId(templateId);
+        plan.setUser(owner);
+        plan.setTags(PlanTagService.normalize(template.getTags()));
+        plan.setStartDate(LocalDateTime.now());
+        plan.onCreate();
+        LearningPlan saved = learningPlanRepository.insert(plan);
+        planTagService.applyChange(Set.of(), saved.getTags());
+
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(templateId)),
+            new Update().inc("cloneCount", 1), PlanTemplate.class);
+
+        LearningPlan resolved = resolve(saved, template);
+        reminderService.syncPlan(resolved);
+        eventPublisher.publishEvent(new PlansChanged(userId));
+        return resolved;
+    }
+
+    /**
+     * Appends a milestone and recomputes progress in one atomic update, without
+     * reading the plan.
+     */
+    @Transactional
+    public Milestone addMilestoneToPlan(String planId, Milestone milestone) {
+        milestone.setId(new ObjectId().toHexString());
+        milestone.onCreate();
+
+        Document milestoneDocument = new Document();
+        mongoTemplate.getConverter().write(milestone, milestoneDocument);
+
+        // $literal keeps user-supplied strings such as "$title" from being read as field paths
+        Document appended = new Document("$concatArrays", List.of(
+            new Document("$ifNull", List.of("$milestones", List.of())),
+            List.of(new Document("$literal", milestoneDocument))));
+
+        Document updated = updatePlan(new Document("_id", toObjectId(planId)),
+            new Document("$set", new Document("milestones", appended)),
+            "Learning plan not found");
+        refreshProgressIfClone(planId, updated);
+        reminderService.syncMilestone(planId, milestone.getId());
+        eventPublisher.publishEvent(new PlansChanged(UserStatsService.ownerId(updated.get("user"))));
         return milestone;
     }
 
+    /**
+     * Sets a milestone's completion state and recomputes progress in one
+     * atomic update, so concurrent toggles cannot overwrite each other.
+     */
     @Transactional
     public void updateMilestoneStatus(String planId, String milestoneId, boolean completed) {
-        LearningPlan plan = learningPlanRepository.findById(planId)
-            .orElseThrow(() -> new RuntimeException("Learning plan not found"));
-        
-        Milestone milestone = plan.getMilestones().stream()
-            .filter(m -> m.getId().equals(milestoneId))
-            .findFirst()
-            .orElseThrow(() -> new RuntimeException("Milestone not found"));
-        
-        milestone.setCompleted(completed);
-        learningPlanRepository.save(plan);
-    }
-}
\ No newline at end of file
+        Object id = toObjectId(milestoneId);
+        Document changes = new Document("completed", completed).append("updated_at", new Date());
+
+        Document toggled = new Document("$map", new Document("input", "$milestones")
+            .append("as", "m")
+            .append("in", new Document("$cond", List.of(
+                new Document("$eq", List.of("$$m._id", id)),
+                new Document("$mergeObjects", List.of("$$m", new Document("$literal", changes))),
+                "$$m"))));
+
+        Document updated = tryUpdatePlan(milestoneFilter(planId, id), new Document("$set", new Document("milestones", toggled)));
+        if (updated == null) {
+            // Not one of the plan's own milestones; on a clone it may come from the template
+            updateTemplateMilestoneStatus(planId, milestoneId, completed);
+            return;
+        }
+        refreshProgressIfClone(planId, updated);
+        reminderService.syncMilestone(planId, milestoneId);
+        eventPublisher.publishEvent(new PlansChanged(UserStatsService.ownerId(updated.get("user"))));
+    }
+
+    /**
+     * Records the completion of a template milestone on a clone, together
+     * with the clone's resulting progress. Retried if the clone changes
+     * between the read and the write, so the stored progress is never
+     * computed from stale overrides.
+     */
+    private void updateTemplateMilestoneStatus(String planId, String milestoneId, boolean completed) {
+        for (int attempt = 0; attempt < MAX_PROGRESS_ATTEMPTS; attempt++) {
+            LearningPlan plan = learningPlanRepository.findById(planId)
+                .filter(LearningPlan::isClone)
+                .orElseThrow(() -> new RuntimeException("Milestone not found"));
+            PlanTemplate template = planTemplateRepository.findById(plan.getTemplateId())
+                .filter(t -> t.getMilestones().stream().anyMatch(m -> m.getId().equals(milestoneId)))
+                .orElseThrow(() -> new RuntimeException("Milestone not found"));
+
+            LocalDateTime now = LocalDateTime.now();
+            MilestoneOverride override = plan.getMilestoneOverrides().computeIfAbsent(milestoneId, key -> new MilestoneOverride());
+            override.setCompleted(completed);
+            override.setUpdatedAt(now);
+            Long version = plan.getVersion();
+            LearningPlan resolved = resolve(plan, template);
+
+            String path = "milestone_overrides." + milestoneId;
+            UpdateResult result = mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(planId).and("version").is(version)),
+                new Update().set(path + ".completed", completed)
+                    .set(path + ".updated_at", now)
+                    .set("progress", resolved.getProgress())
+                    .set("updatedAt", now)
+                    .inc("version", 1),
+                LearningPlan.class);
+            if (result.getMatchedCount() > 0) {
+                reminderService.syncPlan(resolved);
+                eventPublisher.publishEvent(new PlansChanged(ownerId(resolved)));
+                return;
+            }
+        }
+        throw new OptimisticLockingFailureException("Learning plan " + planId + " is being changed concurrently");
+    }
+
+    /**
+     * Refreshes the clones of templates edited since their clones were last
+     * refreshed, such as edits whose refresh failed or was cut short by a
+     * restart. Templates are few, so they are scanned without an index.
+     */
+    private void refreshUnsyncedTemplates() {
+        try {
+            Document unsynced = new Document("clones_synced_version", new Document("$exists", true))
+                .append("$expr", new Document("$lt", List.of("$clones_synced_version", "$version")));
+            List<String> templateIds = new ArrayList<>();
+            for (Document template : mongoTemplate.getCollection(mongoTemplate.getCollectionName(PlanTemplate.class))
+                    .find(unsynced)
+                    .projection(new Document("_id", 1))) {
+                templateIds.add(String.valueOf(template.get("_id")));
+            }
+            templateIds.forEach(this::refreshClonesQuietly);
+        } catch (Exception e) {
+            log.error("Scanning for templates with stale clones failed: {}", e.getMessage());
+        }
+    }
+
+    private void refreshClonesQuietly(String templateId) {
+        try {
+            refreshClones(templateId);
+        } catch (Exception e) {
+            log.error("Refreshing clones of template {} failed, retrying with the next sweep: {}", templateId, e.getMessage());
+        }
+    }
+
+    /**
+     * Re-derives the stored progress and the reminders of every clone of a
+     * template, {@code plan-templates.clone-refresh.batch-size} clones per
+     * bulk write, then records the template version they reflect. Clones are
+     * read without resolving their owner, and owners whose plans changed
+     * progress get their plan counts republished.
+     */
+    private void refreshClones(String templateId) {
+        PlanTemplate template = planTemplateRepository.findById(templateId).orElse(null);
+        if (template == null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Set<String> owners = new HashSet<>();
+        Document projection = new Document("title", 1)
+            .append("target_date", 1)
+            .append("milestones", 1)
+            .append("milestone_overrides", 1)
+            .append("template_id", 1)
+            .append("progress", 1)
+            .append("version", 1)
+            .append("user", 1);
+        List<LearningPlan> batch = new ArrayList<>(cloneRefreshBatchSize);
+        long clones = 0;
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(mongoTemplate.getCollectionName(LearningPlan.class))
+                .find(new Document("template_id", templateId))
+                .projection(projection)
+                .batchSize(cloneRefreshBatchSize)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                batch.add(readWithoutOwner(cursor.next()));
+                if (batch.size() == cloneRefreshBatchSize) {
+                    refreshCloneBatch(batch, template, owners);
+                    clones += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        refreshCloneBatch(batch, template, owners);
+        clones += batch.size();
+
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(templateId)),
+            new Update().max("clonesSyncedVersion", template.getVersion()), PlanTemplate.class);
+        owners.forEach(owner -> eventPublisher.publishEvent(new PlansChanged(owner)));
+        log.debug("Refreshed {} clones of template {} at version {} in {}ms",
+            clones, templateId, template.getVersion(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Writes the reminders of plans created before reminders were kept, in
+     * batches ordered by id. Runs once and is then recorded in the
+     * {@code migrations} collection; it is idempotent, since rewriting a
+     * reminder keeps its sent state, so instances starting together may both
+     * run it, and a failed run is repeated on the next start.
+     */
+    private void backfillReminders() {
+        MongoCollection<Document> migrations = mongoTemplate.getCollection(MIGRATIONS);
+        try {
+            if (migrations.countDocuments(Filters.eq("_id", REMINDER_BACKFILL)) > 0) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            Document projection = new Document("title", 1)
+                .append("target_date", 1)
+                .append("milestones", 1)
+                .append("milestone_overrides", 1)
+                .append("template_id", 1)
+                .append("user", 1);
+            long plans = 0;
+            Object lastId = null;
+            while (true) {
+                Document filter = lastId == null ? new Document() : new Document("_id", new Document("$gt", lastId));
+                List<Document> documents = mongoTemplate.getCollection(mongoTemplate.getCollectionName(LearningPlan.class))
+                    .find(filter)
+                    .projection(projection)
+                    .sort(new Document("_id", 1))
+                    .limit(REMINDER_BACKFILL_BATCH_SIZE)
+                    .into(new ArrayList<>());
+                if (documents.isEmpty()) {
+                    break;
+                }
+                lastId = documents.get(documents.size() - 1).get("_id");
+                List<LearningPlan> batch = documents.stream().map(this::readWithoutOwner).toList();
+                resolveAll(batch);
+                reminderService.syncPlans(batch);
+                plans += batch.size();
+            }
+            migrations.updateOne(Filters.eq("_id", REMINDER_BACKFILL),
+                Updates.set("completed_at", new Date()), new UpdateOptions().upsert(true));
+            log.info("Migration {} completed: reminders of {} plans written in {}ms",
+                REMINDER_BACKFILL, plans, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Migration {} failed, retrying on the next start: {}", REMINDER_BACKFILL, e.getMessage());
+        }
+    }
+
+    private LearningPlan readWithoutOwner(Document document) {
+        // Only the owner's id is needed; converting the DBRef would load the user
+        String ownerId = UserStatsService.ownerId(document.remove("user"));
+        LearningPlan clone = mongoTemplate.getConverter().read(LearningPlan.class, document);
+        if (ownerId != null) {
+            User owner = new User();
+            owner.setId(ownerId);
+            clone.setUser(owner);
+        }
+        return clone;
+    }
+
+    /**
+     * Stores the progress of clones that moved, unless a clone was written
+     * since it was read (that write refreshes the progress itself), and
+     * re-syncs the reminders of all of them in one bulk write.
+     */
+    private void refreshCloneBatch(List<LearningPlan> clones, PlanTemplate template, Set<String> owners) {
+        if (clones.isEmpty()) {
+            return;
+        }
+        BulkOperations progressOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LearningPlan.class);
+        boolean progressChanged = false;
+        for (LearningPlan clone : clones) {
+            int stored = clone.getProgress();
+            if (resolve(clone, template).getProgress() != stored) {
+                progressOps.updateOne(
+                    new Query(Criteria.where("id").is(clone.getId()).and("version").is(clone.getVersion())),
+                    new Update().set("progress", clone.getProgress()));
+                owners.add(ownerId(clone));
+                progressChanged = true;
+            }
+        }
+        if (progressChanged) {
+            progressOps.execute();
+        }
+        reminderService.syncPlans(clones);
+    }
+
+    /**
+     * The in-database progress update only sees a plan's own milestones, so a
+     * clone's progress is recomputed against its template afterwards.
+     */
+    private void refreshProgressIfClone(String planId, Document updated) {
+        if (updated.get("template_id") == null) {
+            return;
+        }
+        learningPlanRepository.findById(planId)
+            .map(this::resolve)
+            .ifPresent(this::storeProgress);
+    }
+
+    /**
+     * Stores the progress of a resolved clone unless the plan has been written
+     * since it was read; that write refreshes the progress itself.
+     */
+    private void storeProgress(LearningPlan resolved) {
+        mongoTemplate.updateFirst(
+            new Query(Criteria.where("id").is(resolved.getId()).and("version").is(resolved.getVersion())),
+            new Update().set("progress", resolved.getProgress()),
+            LearningPlan.class);
+    }
+
+    /**
+     * Moves a milestone to {@code position} (clamped to the list bounds) in one
+     * atomic update.
+     */
+    @Transactional
+    public void reorderMilestone(String planId, String milestoneId, int position) {
+        Object id = toObjectId(milestoneId);
+        Document others = new Document("$filter", new Document("input", "$milestones")
+            .append("cond", new Document("$ne", List.of("$$this._id", id))));
+        Document moved = new Document("$filter", new Document("input", "$milestones")
+            .append("cond", new Document("$eq", List.of("$$this._id", id))));
+        Document remaining = new Document("$add", List.of(new Document("$size", "$$others"), 1));
+
+        Document reordered = new Document("$let", new Document("vars", new Document("others", others).append("moved", moved))
+            .append("in", new Document("$concatArrays", List.of(
+                new Document("$slice", List.of("$$others", Math.max(0, position))),
+                "$$moved",
+                new Document("$slice", List.of("$$others", Math.max(0, position), remaining))))));
+
+        updatePlan(milestoneFilter(planId, id), new Document("$set", new Document("milestones", reordered)),
+            "Milestone not found");
+    }
+
+    private Document updatePlan(Bson filter, Document milestonesStage, String notFoundMessage) {
+        Document updated = tryUpdatePlan(filter, milestonesStage);
+        if (updated == null) {
+            throw new RuntimeException(notFoundMessage);
+        }
+        return updated;
+    }
+
+    /**
+     * Applies the update and returns the plan's owner reference and template
+     * id, or {@code null} if nothing matched. A clone's stored progress is
+     * left alone, since its template milestones are not in the document.
+     */
+    private Document tryUpdatePlan(Bson filter, Document milestonesStage) {
+        Document progress = new Document("$cond", List.of(
+            new Document("$ifNull", List.of("$template_id", false)),
+            "$progress",
+            progressExpression()));
+        Document progressStage = new Document("$set", new Document("progress", progress)
+            .append("updated_at", new Date())
+            .append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0)), 1))));
+
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(LearningPlan.class))
+            .findOneAndUpdate(filter, List.of(milestonesStage, progressStage),
+                new FindOneAndUpdateOptions().projection(new Document("user", 1).append("template_id", 1)));
+    }
+
+    private Document progressExpression() {
+        Document total = new Document("$size", "$milestones");
+        Document completed = new Document("$size", new Document("$filter", new Document("input", "$milestones")
+            .append("cond", new Document("$eq", List.of("$$this.completed", true)))));
+        return new Document("$cond", List.of(
+            new Document("$eq", List.of(total, 0)),
+            0,
+            new Document("$toInt", new Document("$round", List.of(
+                new Document("$multiply", List.of(100, new Document("$divide", List.of(completed, total)))),
+                0)))));
+    }
+
+    private Document milestoneFilter(String planId, Object milestoneId) {
+        return new Document("_id", toObjectId(planId))
+            .append("milestones", new Document("$elemMatch", new Document("_id", milestoneId)));
+    }
+
+    private Set<String> storedTags(String planId) {
+        if (planId == null) {
+            return Set.of();
+        }
+        Document plan = mongoTemplate.getCollection(mongoTemplate.getCollectionName(LearningPlan.class))
+            .find(new Document("_id", toObjectId(planId)))
+            .projection(new Document("tags", 1))
+            .first();
+        List<String> tags = plan != null ? plan.getList("tags", String.class) : null;
+        return tags != null ? new HashSet<>(tags) : Set.of();
+    }
+
+    private String ownerId(LearningPlan plan) {
+        return plan.getUser() != null ? plan.getUser().getId() : null;
+    }
+
+    private Object toObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    private LearningPlan resolve(LearningPlan plan) {
+        if (!plan.isClone()) {
+            return plan;
+        }
+        return resolve(plan, planTemplateRepository.findById(plan.getTemplateId()).orElse(null));
+    }
+
+    private void resolveAll(List<LearningPlan> plans) {
+        Set<String> templateIds = plans.stream()
+            .filter(LearningPlan::isClone)
+            .map(LearningPlan::getTemplateId)
+            .collect(Collectors.toSet());
+        if (templateIds.isEmpty()) {
+            return;
+        }
+        Map<String, PlanTemplate> templates = planTemplateRepository.findAllById(templateIds).stream()
+            .collect(Collectors.toMap(PlanTemplate::getId, Function.identity()));
+        for (LearningPlan plan : plans) {
+            if (plan.isClone()) {
+                resolve(plan, templates.get(plan.getTemplateId()));
+            }
+        }
+    }
+
+    /**
+     * Materialises a clone in place: the template's current milestones with
+     * this plan's overrides applied, followed by the plan's own milestones.
+     * Progress of clones is derived here; the stored {@code progress} is kept
+     * equal to it so completed plans can be counted without the template.
+     */
+    private LearningPlan resolve(LearningPlan plan, PlanTemplate template) {
+        if (template == null) {
+            return plan;
+        }
+        plan.setTemplateVersion(template.getVersion());
+        if (plan.getTitle() == null) {
+            plan.setTitle(template.getTitle());
+        }
+        if (plan.getDescription() == null) {
+            plan.setDescription(template.getDescription());
+        }
+
+        List<Milestone> milestones = new ArrayList<>(template.getMilestones().size() + plan.getMilestones().size());
+        for (Milestone templateMilestone : template.getMilestones()) {
+            MilestoneOverride override = plan.getMilestoneOverrides().get(templateMilestone.getId());
+            if (override != null && override.isHidden()) {
+                continue;
+            }
+            Milestone milestone = copyMilestone(templateMilestone);
+            if (override != null) {
+                if (override.getTitle() != null) {
+                    milestone.setTitle(override.getTitle());
+                }
+                if (override.getDescription() != null) {
+                    milestone.setDescription(override.getDescription());
+                }
+                if (override.getTargetDate() != null) {
+                    milestone.setTargetDate(override.getTargetDate());
+                }
+                milestone.setCompleted(override.isCompleted());
+                if (override.getUpdatedAt() != null) {
+                    milestone.setUpdatedAt(override.getUpdatedAt());
+                }
+            }
+            milestones.add(milestone);
+        }
+        milestones.addAll(plan.getMilestones());
+
+        long completed = milestones.stream().filter(Milestone::isCompleted).count();
+        plan.setMilestones(milestones);
+        plan.setProgress(milestones.isEmpty() ? 0 : Math.round(100f * completed / milestones.size()));
+        return plan;
+    }
+
+    /**
+     * Turns a resolved clone back into overrides and own milestones, so that
+     * saving it never copies template content into the plan.
+     */
+    private void splitTemplateMilestones(LearningPlan plan) {
+        PlanTemplate template = planTemplateRepository.findById(plan.getTemplateId()).orElse(null);
+        if (template == null) {
+            return;
+        }
+        if (Objects.equals(plan.getTitle(), template.getTitle())) {
+            plan.setTitle(null);
+        }
+        if (Objects.equals(plan.getDescription(), template.getDescription())) {
+            plan.setDescription(null);
+        }
+
+        Map<String, Milestone> templateMilestones = template.getMilestones().stream()
+            .collect(Collectors.toMap(Milestone::getId, Function.identity()));
+        Map<String, MilestoneOverride> overrides = new HashMap<>();
+        List<Milestone> own = new ArrayList<>();
+        for (Milestone milestone : plan.getMilestones()) {
+            Milestone templateMilestone = milestone.getId() != null ? templateMilestones.remove(milestone.getId()) : null;
+            if (templateMilestone == null) {
+                own.add(milestone);
+                continue;
+            }
+            MilestoneOverride override = new MilestoneOverride();
+            if (!Objects.equals(milestone.getTitle(), templateMilestone.getTitle())) {
+                override.setTitle(milestone.getTitle());
+            }
+            if (!Objects.equals(milestone.getDescription(), templateMilestone.getDescription())) {
+                override.setDescription(milestone.getDescription());
+            }
+            if (!Objects.equals(milestone.getTargetDate(), templateMilestone.getTargetDate())) {
+                override.setTargetDate(milestone.getTargetDate());
+            }
+            override.setCompleted(milestone.isCompleted());
+            if (!override.isEmpty()) {
+                override.setUpdatedAt(LocalDateTime.now());
+                overrides.put(milestone.getId(), override);
+            }
+        }
+        // Template milestones left out of the update are hidden for this plan
+        for (String removedId : templateMilestones.keySet()) {
+            MilestoneOverride override = new MilestoneOverride();
+            override.setHidden(true);
+            overrides.put(removedId, override);
+        }
+
+        plan.setMilestones(own);
+        plan.setMilestoneOverrides(overrides);
+    }
+
+    private Milestone copyMilestone(Milestone source) {
+        Milestone copy = new Milestone();
+        copy.setId(source.getId());
+        copy.setTitle(source.getTitle());
+        copy.setDescription(source.getDescription());
+        copy.setTargetDate(source.getTargetDate());
+        copy.setCompleted(source.isCompleted());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        return copy;
+    }
+
+    private void prepareMilestones(LearningPlan learningPlan) {
+        List<Milestone> milestones = learningPlan.getMilestones();
+        long completed = 0;
+        for (Milestone milestone : milestones) {
+            if (milestone.getId() == null) {
+                milestone.setId(new ObjectId().toHexString());
+                milestone.onCreate();
+            }
+            if (milestone.isCompleted()) {
+                completed++;
+            }
+        }
+        learningPlan.setProgress(milestones.isEmpty() ? 0 : Math.round(100f * completed / milestones.size()));
+    }
+}
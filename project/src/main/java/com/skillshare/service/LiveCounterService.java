@@ -0,0 +1,395 @@
+package com.skillshare.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillshare.config.BackgroundThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes like and commitment counts of posts and resources to clients
+ * watching them, as server-sent events.
+ *
+ * <p>Services publish {@link CountsChanged} after changing an item; the
+ * event only marks the item dirty when someone is watching it. Every
+ * {@code live-counters.interval} the dirty items are read with one
+ * {@code $size} projection per collection, so no likes or commits are
+ * resolved, and each item's counts are encoded once into an event frame
+ * that is shared by all of its subscribers. A subscriber holds only the
+ * latest frame it has not been sent yet: a client that falls behind skips
+ * to the current counts instead of queueing intermediate ones. Streams are
+ * written with non-blocking I/O (see {@link SseConnection}), so a client
+ * that stops reading holds no thread. A user has at most
+ * {@code live-counters.max-streams-per-user} streams open; opening another
+ * closes an older one. When a watched item is deleted its subscribers are
+ * sent a {@code deleted} event and their streams are closed.
+ *
+ * <p>{@link CountsChanged} is an in-process event, so this only works on a
+ * single node: a like handled by another node is not pushed to streams open
+ * here, and their clients see it only when they reconnect and are sent the
+ * current counts. Running more than one node needs the changes published
+ * through a channel shared by the nodes before these streams can be relied
+ * on there.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LiveCounterService {
+    private static final byte[] HEARTBEAT = SseConnection.HEARTBEAT;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${live-counters.interval:PT1S}")
+    private Duration interval;
+
+    @Value("${live-counters.timeout:PT30M}")
+    private Duration timeout;
+
+    @Value("${live-counters.heartbeat:PT25S}")
+    private Duration heartbeat;
+
+    @Value("${live-counters.max-streams-per-user:20}")
+    private int maxStreamsPerUser;
+
+    public enum Item {
+        POST("posts", new Document("likes", size("likes"))
+            .append("commits", size("commits"))
+            .append("commitmentGoal", "$commitment_goal")
+            .append("commitmentComplete", "$is_commitment_complete")),
+        RESOURCE("resources", new Document("likes", size("likes")));
+
+        private final String collection;
+        private final Document projection;
+
+        Item(String collection, Document projection) {
+            this.collection = collection;
+            this.projection = projection;
+        }
+    }
+
+    /** The likes or commitments of an item changed. */
+    public record CountsChanged(Item item, String id) {}
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Counts(String id, int likes, Integer commits, Integer commitmentGoal, Boolean commitmentComplete) {}
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> subscribersByUser = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicLong opened = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+    private Timer flushTimer;
+    private Counter frames;
+    private Counter messages;
+    private Counter superseded;
+
+    @PostConstruct
+    void start() {
+        scheduler = ExecutorServiceMetrics.monitor(meterRegistry,
+            Executors.newScheduledThreadPool(1, backgroundThreads.named("live-counter-flusher")), "live-counter-flusher");
+        scheduler.scheduleWithFixedDelay(this::flush, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("live.counters.subscribers", open, AtomicInteger::get)
+            .description("Open live counter streams")
+            .register(meterRegistry);
+        Gauge.builder("live.counters.items", subscribers, Map::size)
+            .description("Posts and resources with at least one live counter stream")
+            .register(meterRegistry);
+        flushTimer = Timer.builder("live.counters.flush")
+            .description("Time to read and fan out changed counts")
+            .register(meterRegistry);
+        frames = Counter.builder("live.counters.frames")
+            .description("Count frames encoded, shared by all subscribers of an item")
+            .register(meterRegistry);
+        messages = Counter.builder("live.counters.messages")
+            .description("Count updates written to subscribers")
+            .register(meterRegistry);
+        superseded = Counter.builder("live.counters.superseded")
+            .description("Count updates replaced by newer ones before a slow subscriber was sent them")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+        subscribers.values().forEach(itemSubscribers -> itemSubscribers.forEach(Subscriber::close));
+    }
+
+    /**
+     * Opens a stream of the item's counts for {@code user} on the request,
+     * starting with the current ones; {@code false}, with the response left
+     * untouched, if the item does not exist.
+     */
+    public boolean subscribe(Item item, String id, String user, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String key = key(item, id);
+        Subscriber subscriber = new Subscriber(key, user);
+        // Registered before reading, so a change made meanwhile is pushed with the next interval
+        subscribers.compute(key, (k, itemSubscribers) -> {
+            Set<Subscriber> updated = itemSubscribers != null ? itemSubscribers : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+        open.incrementAndGet();
+
+        Counts current;
+        try {
+            current = read(item, List.of(id)).get(id);
+        } catch (RuntimeException e) {
+            remove(subscriber);
+            throw e;
+        }
+        if (current == null) {
+            remove(subscriber);
+            return false;
+        }
+
+        // A user who keeps opening streams loses their oldest ones, not the new one. They are removed here,
+        // since a connection may only run its close callback once its writer is done
+        List<Subscriber> existing = List.copyOf(subscribersByUser.getOrDefault(user, Set.of()));
+        existing.stream()
+            .sorted(Comparator.comparingLong(Subscriber::sequence))
+            .limit(Math.max(0, existing.size() - maxStreamsPerUser + 1))
+            .forEach(oldest -> {
+                remove(oldest);
+                oldest.close();
+            });
+        subscribersByUser.compute(user, (u, userSubscribers) -> {
+            Set<Subscriber> updated = userSubscribers != null ? userSubscribers : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+
+        subscriber.pending.compareAndSet(null, frame(current));
+        try {
+            subscriber.connection = SseConnection.open(request, response, timeout,
+                subscriber::next, () -> remove(subscriber));
+        } catch (IOException | RuntimeException e) {
+            remove(subscriber);
+            throw e;
+        }
+        // Counts offered before the connection was assigned are written now
+        subscriber.connection.wake();
+        return true;
+    }
+
+    public int openStreams() {
+        return open.get();
+    }
+
+    @EventListener
+    public void onCountsChanged(CountsChanged event) {
+        String key = key(event.item(), event.id());
+        if (subscribers.containsKey(key)) {
+            dirty.add(key);
+        }
+    }
+
+    void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Map<Item, List<String>> changed = new EnumMap<>(Item.class);
+        for (String key : List.copyOf(dirty)) {
+            dirty.remove(key);
+            int separator = key.indexOf(':');
+            changed.computeIfAbsent(Item.valueOf(key.substring(0, separator)), item -> new ArrayList<>())
+                .add(key.substring(separator + 1));
+        }
+        try {
+            flushTimer.record(() -> changed.forEach((item, ids) -> {
+                Map<String, Counts> counts = read(item, ids);
+                for (String id : ids) {
+                    Set<Subscriber> itemSubscribers = subscribers.get(key(item, id));
+                    if (itemSubscribers == null) {
+                        continue;
+                    }
+                    Counts itemCounts = counts.get(id);
+                    if (itemCounts == null) {
+                        // Deleted: tell the clients, then end their streams
+                        byte[] deleted = deletedFrame(id);
+                        itemSubscribers.forEach(subscriber -> subscriber.finish(deleted));
+                        continue;
+                    }
+                    byte[] frame = frame(itemCounts);
+                    itemSubscribers.forEach(subscriber -> subscriber.offer(frame));
+                }
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Reading changed counts failed, retrying with the next interval: {}", e.getMessage());
+            changed.forEach((item, ids) -> ids.forEach(id -> dirty.add(key(item, id))));
+        }
+    }
+
+    private void heartbeat() {
+        subscribers.values().forEach(itemSubscribers -> itemSubscribers.forEach(Subscriber::ping));
+    }
+
+    private Map<String, Counts> read(Item item, List<String> ids) {
+        List<Object> keys = ids.stream().<Object>map(id -> ObjectId.isValid(id) ? new ObjectId(id) : id).toList();
+        List<Document> pipeline = List.of(
+            new Document("$match", new Document("_id", new Document("$in", keys))),
+            new Document("$project", item.projection));
+        Map<String, Counts> counts = new HashMap<>();
+        for (Document doc : mongoTemplate.getCollection(item.collection).aggregate(pipeline)) {
+            String id = String.valueOf(doc.get("_id"));
+            counts.put(id, new Counts(id, number(doc, "likes"),
+                item == Item.POST ? number(doc, "commits") : null,
+                item == Item.POST ? number(doc, "commitmentGoal") : null,
+                item == Item.POST ? Boolean.TRUE.equals(doc.getBoolean("commitmentComplete")) : null));
+        }
+        return counts;
+    }
+
+    /** Encodes one complete event, written as is to every subscriber of the item. */
+    private byte[] frame(Counts counts) {
+        try {
+            String data = objectMapper.writeValueAsString(counts);
+            frames.increment();
+            return ("event:counts\ndata:" + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode counts of " + counts.id(), e);
+        }
+    }
+
+    private byte[] deletedFrame(String id) {
+        try {
+            return ("event:deleted\ndata:" + objectMapper.writeValueAsString(Map.of("id", id)) + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode deletion of " + id, e);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        AtomicBoolean removed = new AtomicBoolean();
+        subscribers.computeIfPresent(subscriber.key, (key, itemSubscribers) -> {
+            removed.set(itemSubscribers.remove(subscriber));
+            return itemSubscribers.isEmpty() ? null : itemSubscribers;
+        });
+        subscribersByUser.computeIfPresent(subscriber.user, (user, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+        if (removed.get()) {
+            open.decrementAndGet();
+        }
+    }
+
+    private static String key(Item item, String id) {
+        return item.name() + ':' + id;
+    }
+
+    private static int number(Document doc, String field) {
+        return doc.get(field) instanceof Number value ? value.intValue() : 0;
+    }
+
+    private static Document size(String array) {
+        return new Document("$size", new Document("$ifNull", List.of("$" + array, List.of())));
+    }
+
+    private final class Subscriber {
+        private final String key;
+        private final String user;
+        private final long sequence = opened.incrementAndGet();
+        private final AtomicReference<byte[]> pending = new AtomicReference<>();
+        private volatile SseConnection connection;
+
+        Subscriber(String key, String user) {
+            this.key = key;
+            this.user = user;
+        }
+
+        long sequence() {
+            return sequence;
+        }
+
+        void offer(byte[] frame) {
+            byte[] replaced = pending.getAndSet(frame);
+            if (replaced != null && replaced != HEARTBEAT) {
+                superseded.increment();
+            }
+            wake();
+        }
+
+        /** Keeps an idle stream open; never replaces pending counts. */
+        void ping() {
+            if (pending.compareAndSet(null, HEARTBEAT)) {
+                wake();
+            }
+        }
+
+        /** Sends {@code frame} in place of any pending counts, then ends the stream. */
+        void finish(byte[] frame) {
+            pending.set(frame);
+            if (connection != null) {
+                connection.finish();
+            }
+        }
+
+        void close() {
+            pending.set(null);
+            if (connection != null) {
+                connection.close();
+            } else {
+                remove(this);
+            }
+        }
+
+        /** Called by the connection whenever it can write. */
+        private byte[] next() {
+            byte[] frame = pending.getAndSet(null);
+            if (frame != null && frame != HEARTBEAT) {
+                messages.increment();
+            }
+            return frame;
+        }
+
+        private void wake() {
+            SseConnection current = connection;
+            if (current != null) {
+                current.wake();
+            }
+        }
+    }
+}
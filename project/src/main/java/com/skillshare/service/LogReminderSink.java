@@ -0,0 +1,24 @@
+package com.skillshare.service;
+
+import com.skillshare.model.DueDateReminder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Slf4j
+@Component
+public class LogReminderSink implements ReminderSink {
+    @Override
+    public String name() {
+        return "log";
+    }
+
+    @Override
+    public void deliver(List<DueDateReminder> reminders) {
+        for (DueDateReminder reminder : reminders) {
+            log.info("Reminder for user {}: {} '{}' of plan '{}' is due at {}",
+                reminder.getUserId(), reminder.getKind(), reminder.getTitle(), reminder.getPlanTitle(), reminder.getDueAt());
+        }
+    }
+}
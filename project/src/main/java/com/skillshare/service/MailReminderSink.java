@@ -0,0 +1,128 @@
+package com.skillshare.service;
+
+import com.skillshare.model.DueDateReminder;
+import com.skillshare.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local stand-in for an SMTP relay: writes one RFC 5322 message per reminder
+ * into {@code reminder.mail.spool-dir}, where a relay or a developer can pick
+ * it up. Recipient addresses are looked up in one query per batch.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MailReminderSink implements ReminderSink {
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${reminder.mail.spool-dir:${java.io.tmpdir}/skillshare-mail}")
+    private String spoolDir;
+
+    @Value("${reminder.mail.from:no-reply@skillshare.local}")
+    private String from;
+
+    @Override
+    public String name() {
+        return "mail";
+    }
+
+    @Override
+    public void deliver(List<DueDateReminder> reminders) throws IOException {
+        Path spool = Files.createDirectories(Path.of(spoolDir));
+        Map<String, String> emails = emailsOf(reminders);
+        String date = ZonedDateTime.now().format(DateTimeFormatter.RFC_1123_DATE_TIME);
+
+        for (DueDateReminder reminder : reminders) {
+            String to = emails.get(reminder.getUserId());
+            if (to == null) {
+                log.debug("Skipping mail reminder {}: user {} has no email", reminder.getId(), reminder.getUserId());
+                continue;
+            }
+            String message = "From: " + from + "\r\n"
+                + "To: " + to + "\r\n"
+                + "Date: " + date + "\r\n"
+                + "Subject: " + encodeHeader(ReminderMessages.subject(reminder)) + "\r\n"
+                + "Content-Type: text/plain; charset=UTF-8\r\n"
+                + "\r\n"
+                + ReminderMessages.body(reminder) + "\r\n";
+
+            // Write then rename so a relay never picks up a partial message
+            String name = reminder.getId().replace(':', '-') + ".eml";
+            Path temp = spool.resolve(name + ".tmp");
+            Files.writeString(temp, message, StandardCharsets.UTF_8);
+            Files.move(temp, spool.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Returns printable ASCII unchanged and anything else as RFC 2047 encoded
+     * words, folded so no line exceeds 76 characters. Encoded words cannot
+     * contain CR or LF, so the value can never end the header.
+     */
+    static String encodeHeader(String value) {
+        if (value.chars().allMatch(c -> c >= 0x20 && c < 0x7f) && value.length() <= 66) {
+            return value;
+        }
+        StringBuilder header = new StringBuilder();
+        int start = 0;
+        while (start < value.length()) {
+            // 45 bytes encode to 60 characters, 72 with the =?UTF-8?B?...?= delimiters
+            int end = start;
+            int bytes = 0;
+            while (end < value.length()) {
+                int codePoint = value.codePointAt(end);
+                int length = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8).length;
+                if (bytes + length > 45) {
+                    break;
+                }
+                bytes += length;
+                end += Character.charCount(codePoint);
+            }
+            if (header.length() > 0) {
+                header.append("\r\n ");
+            }
+            header.append("=?UTF-8?B?")
+                .append(Base64.getEncoder().encodeToString(value.substring(start, end).getBytes(StandardCharsets.UTF_8)))
+                .append("?=");
+            start = end;
+        }
+        return header.toString();
+    }
+
+    private Map<String, String> emailsOf(List<DueDateReminder> reminders) {
+        Set<Object> ids = new LinkedHashSet<>();
+        for (DueDateReminder reminder : reminders) {
+            String userId = reminder.getUserId();
+            if (userId != null) {
+                ids.add(ObjectId.isValid(userId) ? new ObjectId(userId) : userId);
+            }
+        }
+
+        Map<String, String> emails = new HashMap<>();
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+            .find(new Document("_id", new Document("$in", ids)))
+            .projection(new Document("email", 1))
+            .forEach(user -> emails.put(String.valueOf(user.get("_id")), user.getString("email")));
+        return emails;
+    }
+}
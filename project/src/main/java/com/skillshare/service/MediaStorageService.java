@@ -0,0 +1,346 @@
+package com.skillshare.service;
+
+import com.skillshare.config.BackgroundThreads;
+import com.skillshare.model.MediaAsset;
+import com.skillshare.model.MediaJob;
+import com.skillshare.model.Post;
+import com.skillshare.model.User;
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for uploaded media under {@code media.storage-dir}.
+ *
+ * <p>An upload is streamed into {@code incoming/} while it is hashed, then
+ * renamed to {@code <first two hex digits>/<sha256>}; content that is already
+ * stored is not written twice, and a stored file never changes, so it can be
+ * cached forever and served straight from disk. Type, size and the first
+ * file name are kept in {@code media_assets}. An upload larger than
+ * {@code media.max-upload-size} is rejected while it is read.
+ *
+ * <p>Every {@code media.sweep.interval} media that no post or user shows any
+ * more, and that has not been uploaded again within {@code media.sweep.grace},
+ * is deleted; a variant is kept as long as its original is. The file is
+ * first moved aside and put back if the asset turns out to have been
+ * uploaded again meanwhile, so the sweep never deletes content an upload
+ * has just stored.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MediaStorageService {
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${media.storage-dir:${java.io.tmpdir}/skillshare-media}")
+    private String storageDir;
+
+    @Value("${media.allowed-types:image/jpeg,image/png,image/gif,image/webp,video/*}")
+    private List<String> allowedTypes;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    @Value("${media.max-upload-size:100MB}")
+    private DataSize maxUploadSize;
+
+    @Value("${media.sweep.enabled:true}")
+    private boolean sweepEnabled;
+
+    @Value("${media.sweep.initial-delay:PT1H}")
+    private Duration sweepInitialDelay;
+
+    @Value("${media.sweep.interval:PT24H}")
+    private Duration sweepInterval;
+
+    @Value("${media.sweep.grace:PT24H}")
+    private Duration sweepGrace;
+
+    private Path root;
+    private Path incoming;
+    private ScheduledExecutorService sweeper;
+    private Counter swept;
+
+    public record StoredMedia(MediaAsset asset, Path path) {}
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Files.createDirectories(Path.of(storageDir));
+        incoming = Files.createDirectories(root.resolve("incoming"));
+        // Uploads interrupted by a restart never completed
+        try (Stream<Path> partial = Files.list(incoming)) {
+            partial.forEach(this::deleteQuietly);
+        }
+        log.info("Media storage at {}", root.toAbsolutePath());
+
+        swept = Counter.builder("media.swept")
+            .description("Unreferenced media files deleted")
+            .register(meterRegistry);
+        if (sweepEnabled) {
+            sweeper = ExecutorServiceMetrics.monitor(meterRegistry,
+                Executors.newScheduledThreadPool(1, backgroundThreads.named("media-sweeper")), "media-sweeper");
+            sweeper.scheduleWithFixedDelay(this::sweepQuietly,
+                sweepInitialDelay.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /** The download URL of stored content, relative to the server root. */
+    public String url(String hash) {
+        return contextPath + "/api/media/" + hash;
+    }
+
+    public boolean isAllowed(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType type;
+        try {
+            type = MediaType.parseMediaType(contentType);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return allowedTypes.stream().map(MediaType::parseMediaType).anyMatch(allowed -> allowed.includes(type));
+    }
+
+    public DataSize getMaxUploadSize() {
+        return maxUploadSize;
+    }
+
+    /**
+     * Stores the content unless it is stored already.
+     *
+     * @throws MaxUploadSizeExceededException once more than
+     *     {@code media.max-upload-size} bytes have been read
+     */
+    public MediaAsset store(InputStream content, String contentType, String filename) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(incoming, "upload-", ".part");
+        try {
+            long size = 0;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxUploadSize.toBytes()) {
+                        throw new MaxUploadSizeExceededException(maxUploadSize.toBytes());
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            // Recorded before the file is checked, so a sweep that moved the file aside meanwhile puts it back
+            LocalDateTime now = LocalDateTime.now();
+            Update update = new Update()
+                .setOnInsert("contentType", MediaType.parseMediaType(contentType).toString())
+                .setOnInsert("size", size)
+                .setOnInsert("filename", filename)
+                .setOnInsert("createdAt", now)
+                .set("storedAt", now);
+            MediaAsset asset = mongoTemplate.findAndModify(new Query(Criteria.where("hash").is(hash)), update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), MediaAsset.class);
+
+            Path target = blobPath(hash);
+            if (Files.exists(target)) {
+                log.debug("Media {} already stored, discarding duplicate upload", hash);
+            } else {
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return asset;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Deletes media that no post or user shows and that was last uploaded
+     * before the grace period.
+     *
+     * @return the number of files deleted
+     */
+    public int sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(sweepGrace);
+        Query stale = new Query(stale(cutoff));
+        stale.fields().include("hash");
+        int deleted = 0;
+        try (Stream<MediaAsset> assets = mongoTemplate.stream(stale, MediaAsset.class)) {
+            for (MediaAsset asset : (Iterable<MediaAsset>) assets::iterator) {
+                if (!isReferenced(asset.getHash()) && delete(asset.getHash(), cutoff)) {
+                    deleted++;
+                }
+            }
+        }
+        swept.increment(deleted);
+        return deleted;
+    }
+
+    private void sweepQuietly() {
+        try {
+            long start = System.currentTimeMillis();
+            int deleted = sweep();
+            log.info("Swept {} unreferenced media files in {}ms", deleted, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Media sweep failed, retrying in {}: {}", sweepInterval, e.getMessage());
+        }
+    }
+
+    private boolean isReferenced(String hash) {
+        if (isShown(hash)) {
+            return true;
+        }
+        // A variant is kept as long as an original it was generated from is
+        Query originals = new Query(Criteria.where("variants.hash").is(hash));
+        originals.fields().include("hash");
+        return mongoTemplate.find(originals, MediaAsset.class).stream()
+            .anyMatch(original -> isShown(original.getHash()));
+    }
+
+    private boolean isShown(String hash) {
+        return mongoTemplate.exists(new Query(Criteria.where("media.hash").is(hash)), Post.class)
+            || mongoTemplate.exists(new Query(Criteria.where("profilePicture").is(url(hash))), User.class);
+    }
+
+    /** Moves the file aside, deletes the asset unless it was stored again meanwhile, then drops or restores the file. */
+    private boolean delete(String hash, LocalDateTime cutoff) {
+        Path path = blobPath(hash);
+        Path aside = incoming.resolve(hash + "-" + UUID.randomUUID() + ".sweep");
+        try {
+            if (Files.exists(path)) {
+                Files.move(path, aside, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            log.warn("Could not move media {} aside: {}", hash, e.getMessage());
+            return false;
+        }
+
+        DeleteResult removed = mongoTemplate.remove(
+            new Query(new Criteria().andOperator(Criteria.where("hash").is(hash), stale(cutoff))), MediaAsset.class);
+        if (removed.getDeletedCount() == 0) {
+            // Uploaded again since the sweep read it; that upload may have found the file in place
+            try {
+                if (Files.exists(aside) && !Files.exists(path)) {
+                    Files.move(aside, path, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                log.warn("Could not restore media {}: {}", hash, e.getMessage());
+            }
+            deleteQuietly(aside);
+            return false;
+        }
+        deleteQuietly(aside);
+        mongoTemplate.remove(new Query(Criteria.where("hash").is(hash)), MediaJob.class);
+        log.debug("Swept unreferenced media {}", hash);
+        return true;
+    }
+
+    /** Assets not uploaded since {@code cutoff}; those stored before uploads were timed count from their creation. */
+    private static Criteria stale(LocalDateTime cutoff) {
+        return new Criteria().orOperator(
+            Criteria.where("storedAt").lt(cutoff),
+            Criteria.where("storedAt").exists(false).and("createdAt").lt(cutoff));
+    }
+
+    public Optional<StoredMedia> find(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path path = blobPath(hash);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(mongoTemplate.findById(hash, MediaAsset.class))
+            .map(asset -> new StoredMedia(asset, path));
+    }
+
+    /**
+     * Copies {@code count} bytes from {@code start} with
+     * {@link FileChannel#transferTo}, for containers that cannot send the
+     * file themselves.
+     */
+    public void transfer(Path path, long start, long count, OutputStream out) throws IOException {
+        try (FileChannel file = FileChannel.open(path)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long end = start + count;
+            while (position < end) {
+                long sent = file.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    throw new IOException("Media file " + path.getFileName() + " is shorter than recorded");
+                }
+                position += sent;
+            }
+        }
+    }
+
+    private Path blobPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
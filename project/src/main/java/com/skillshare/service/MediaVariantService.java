@@ -0,0 +1,425 @@
+package com.skillshare.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.skillshare.config.BackgroundThreads;
+import com.skillshare.model.MediaAsset;
+import com.skillshare.model.MediaJob;
+import com.skillshare.model.MediaVariant;
+import com.skillshare.model.Post;
+import com.skillshare.model.User;
+import com.skillshare.service.MediaStorageService.StoredMedia;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates downscaled variants of uploaded images on a fixed pool of
+ * {@code media.variants.workers} threads, so clients can load a feed card or
+ * an avatar without the full-size original.
+ *
+ * <p>Jobs live in {@code media_jobs}, one per original, and survive restarts.
+ * A worker claims the oldest due job with a lease of
+ * {@code media.variants.lease}; a failed job is retried with exponential
+ * backoff up to {@code media.variants.max-attempts} times, and images that
+ * cannot be decoded fail at once. Large originals are subsampled while they
+ * are decoded, to about twice the widest variant, which bounds the memory a
+ * worker needs. Each variant narrower than the original is encoded as JPEG,
+ * or PNG when the image has transparency, stored as media of its own and
+ * copied onto the posts and users that show the original.
+ *
+ * <p>Time spent in each stage is recorded as {@code media.variants.stage}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MediaVariantService {
+    private final MongoTemplate mongoTemplate;
+    private final MediaStorageService mediaStorageService;
+    private final MeterRegistry meterRegistry;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${media.variants.enabled:true}")
+    private boolean enabled;
+
+    @Value("${media.variants.widths:160,640,1280}")
+    private List<Integer> widths;
+
+    @Value("${media.variants.workers:2}")
+    private int workers;
+
+    @Value("${media.variants.poll-interval:PT2S}")
+    private Duration pollInterval;
+
+    @Value("${media.variants.lease:PT5M}")
+    private Duration lease;
+
+    @Value("${media.variants.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${media.variants.retry-backoff:PT30S}")
+    private Duration retryBackoff;
+
+    @Value("${media.variants.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    @Value("${media.variants.max-pixels:60000000}")
+    private long maxPixels;
+
+    public enum Stage {
+        DECODE,
+        RESIZE,
+        ENCODE,
+        STORE,
+        PUBLISH
+    }
+
+    public record Stats(boolean enabled, int workers, int busy, Map<MediaJob.Status, Long> jobs) {}
+
+    /** An image that will never decode, so retrying is pointless. */
+    private static class UnprocessableImageException extends RuntimeException {
+        UnprocessableImageException(String message) {
+            super(message);
+        }
+    }
+
+    private record Decoded(BufferedImage image, int width, int height) {}
+
+    private final AtomicInteger busy = new AtomicInteger();
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private ScheduledExecutorService pool;
+
+    @PostConstruct
+    void start() {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("media.variants.stage")
+                .description("Time spent per stage of image variant generation")
+                .tag("stage", stage.name().toLowerCase())
+                .register(meterRegistry));
+        }
+        if (!enabled) {
+            return;
+        }
+        pool = ExecutorServiceMetrics.monitor(meterRegistry,
+            Executors.newScheduledThreadPool(workers, backgroundThreads.numbered("media-variants")), "media-variants");
+        for (int i = 0; i < workers; i++) {
+            pool.scheduleWithFixedDelay(this::drainQuietly,
+                pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        log.info("Media variants enabled: widths={}, workers={}", widths, workers);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (pool != null) {
+            // Interrupted jobs are claimed again once their lease runs out
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Queues variant generation for an uploaded image. Call it after the
+     * original has been attached to its post or user: variants are copied
+     * onto whatever shows the original when they are published. If the same
+     * content was already processed, its variants are copied onto new
+     * references that lack them, in case they were published between the
+     * caller reading the asset and attaching it.
+     */
+    public void enqueue(MediaAsset asset) {
+        if (asset.getContentType() == null || !asset.getContentType().startsWith("image/")) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        UpdateResult result = mongoTemplate.upsert(new Query(Criteria.where("hash").is(asset.getHash())),
+            new Update().setOnInsert("status", MediaJob.Status.PENDING)
+                .setOnInsert("attempts", 0)
+                .setOnInsert("nextAttemptAt", now)
+                .setOnInsert("createdAt", now)
+                .setOnInsert("updatedAt", now),
+            MediaJob.class);
+        if (result.getUpsertedId() == null) {
+            MediaAsset current = mongoTemplate.findById(asset.getHash(), MediaAsset.class);
+            if (current != null && !current.getVariants().isEmpty()) {
+                attachVariants(asset.getHash(), current.getVariants(), true);
+            }
+        }
+    }
+
+    public Stats getStats() {
+        Map<MediaJob.Status, Long> jobs = new EnumMap<>(MediaJob.Status.class);
+        for (MediaJob.Status status : MediaJob.Status.values()) {
+            jobs.put(status, mongoTemplate.count(new Query(Criteria.where("status").is(status)), MediaJob.class));
+        }
+        return new Stats(enabled, workers, busy.get(), jobs);
+    }
+
+    private void drainQuietly() {
+        try {
+            MediaJob job;
+            while (!Thread.currentThread().isInterrupted() && (job = claim()) != null) {
+                busy.incrementAndGet();
+                try {
+                    run(job);
+                } finally {
+                    busy.decrementAndGet();
+                }
+            }
+        } catch (Exception e) {
+            log.error("Media variant worker failed: {}", e.getMessage());
+        }
+    }
+
+    private MediaJob claim() {
+        LocalDateTime now = LocalDateTime.now();
+        // A job whose worker died on every attempt (e.g. out of memory while decoding) is not retried forever
+        mongoTemplate.updateMulti(new Query(Criteria.where("status").is(MediaJob.Status.RUNNING)
+                .and("lockedUntil").lt(now)
+                .and("attempts").gte(maxAttempts)),
+            new Update().set("status", MediaJob.Status.FAILED)
+                .set("lastError", "Lease expired on the last attempt")
+                .set("updatedAt", now)
+                .unset("lockedUntil"),
+            MediaJob.class);
+        Query due = new Query(new Criteria().orOperator(
+                Criteria.where("status").is(MediaJob.Status.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(MediaJob.Status.RUNNING).and("lockedUntil").lt(now))
+                .and("attempts").lt(maxAttempts))
+            .with(Sort.by("nextAttemptAt"));
+        return mongoTemplate.findAndModify(due,
+            new Update().set("status", MediaJob.Status.RUNNING)
+                .set("lockedUntil", now.plus(lease))
+                .set("updatedAt", now)
+                .inc("attempts", 1),
+            FindAndModifyOptions.options().returnNew(true),
+            MediaJob.class);
+    }
+
+    private void run(MediaJob job) {
+        try {
+            generate(job.getHash());
+            finish(job, MediaJob.Status.DONE, null, null);
+            count("done");
+        } catch (UnprocessableImageException e) {
+            log.warn("Giving up on media {}: {}", job.getHash(), e.getMessage());
+            finish(job, MediaJob.Status.FAILED, e.getMessage(), null);
+            count("failed");
+        } catch (Exception e) {
+            if (job.getAttempts() >= maxAttempts) {
+                log.error("Media {} failed after {} attempts: {}", job.getHash(), job.getAttempts(), e.getMessage());
+                finish(job, MediaJob.Status.FAILED, e.getMessage(), null);
+                count("failed");
+            } else {
+                Duration delay = retryBackoff.multipliedBy(1L << Math.min(job.getAttempts() - 1, 16));
+                log.warn("Media {} attempt {} failed, retrying in {}: {}", job.getHash(), job.getAttempts(), delay, e.getMessage());
+                finish(job, MediaJob.Status.PENDING, e.getMessage(), LocalDateTime.now().plus(delay));
+                count("retried");
+            }
+        }
+    }
+
+    private void finish(MediaJob job, MediaJob.Status status, String error, LocalDateTime nextAttemptAt) {
+        Update update = new Update().set("status", status)
+            .set("lastError", error)
+            .set("updatedAt", LocalDateTime.now())
+            .unset("lockedUntil");
+        if (nextAttemptAt != null) {
+            update.set("nextAttemptAt", nextAttemptAt);
+        }
+        // A job whose lease expired may have been claimed by another worker meanwhile
+        mongoTemplate.updateFirst(new Query(Criteria.where("hash").is(job.getHash())
+            .and("status").is(MediaJob.Status.RUNNING)
+            .and("attempts").is(job.getAttempts())), update, MediaJob.class);
+    }
+
+    private void generate(String hash) throws Exception {
+        StoredMedia original = mediaStorageService.find(hash)
+            .orElseThrow(() -> new UnprocessableImageException("Original is no longer stored"));
+        List<Integer> targets = widths.stream().sorted(Comparator.reverseOrder()).toList();
+        Decoded decoded = time(Stage.DECODE, () -> decode(original, targets.get(0)));
+
+        List<MediaVariant> variants = new ArrayList<>();
+        BufferedImage source = decoded.image();
+        for (int width : targets) {
+            if (width >= decoded.width()) {
+                continue;
+            }
+            int height = Math.max(1, Math.round((float) decoded.height() * width / decoded.width()));
+            BufferedImage from = source;
+            BufferedImage scaled = time(Stage.RESIZE, () -> scale(from, width, height));
+            boolean alpha = scaled.getColorModel().hasAlpha();
+            byte[] bytes = time(Stage.ENCODE, () -> alpha ? encodePng(scaled) : encodeJpeg(scaled));
+            String contentType = alpha ? "image/png" : "image/jpeg";
+            MediaAsset stored = time(Stage.STORE, () -> mediaStorageService.store(new ByteArrayInputStream(bytes),
+                contentType, variantName(original.asset().getFilename(), width, alpha)));
+
+            MediaVariant variant = new MediaVariant();
+            variant.setHash(stored.getHash());
+            variant.setUrl(mediaStorageService.url(stored.getHash()));
+            variant.setWidth(width);
+            variant.setHeight(height);
+            variant.setContentType(contentType);
+            variant.setSize(stored.getSize());
+            variants.add(0, variant);
+            // Narrower variants are scaled from this one rather than from the original
+            source = scaled;
+        }
+
+        time(Stage.PUBLISH, () -> {
+            publish(hash, decoded, variants);
+            return null;
+        });
+        log.debug("Generated {} variants of media {} ({}x{})", variants.size(), hash, decoded.width(), decoded.height());
+    }
+
+    private void publish(String hash, Decoded decoded, List<MediaVariant> variants) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("hash").is(hash)),
+            new Update().set("width", decoded.width()).set("height", decoded.height()).set("variants", variants),
+            MediaAsset.class);
+        attachVariants(hash, variants, false);
+    }
+
+    /** Copies variants onto the posts and users showing the original, or only onto those without any. */
+    private void attachVariants(String hash, List<MediaVariant> variants, boolean onlyMissing) {
+        Criteria posts = Criteria.where("media.hash").is(hash);
+        Criteria media = Criteria.where("m.hash").is(hash);
+        Criteria users = Criteria.where("profilePicture").is(mediaStorageService.url(hash));
+        if (onlyMissing) {
+            // Paths into arrays by position are not mapped, so they use the stored field names
+            posts = Criteria.where("media").elemMatch(Criteria.where("hash").is(hash).and("variants.0").exists(false));
+            media = media.and("m.variants.0").exists(false);
+            users = users.and("profile_picture_variants.0").exists(false);
+        }
+        mongoTemplate.updateMulti(new Query(posts),
+            new Update().set("media.$[m].variants", variants)
+                .inc("version", 1)
+                .filterArray(media),
+            Post.class);
+        mongoTemplate.updateMulti(new Query(users),
+            new Update().set("profilePictureVariants", variants).inc("version", 1),
+            User.class);
+    }
+
+    private Decoded decode(StoredMedia original, int widestVariant) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.path().toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new UnprocessableImageException("No decoder for " + original.asset().getContentType());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new UnprocessableImageException("Image of " + width + "x" + height + " exceeds media.variants.max-pixels");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, width / (2 * widestVariant));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return new Decoded(reader.read(0, param), width, height);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** Halves the image until the next step would overshoot, then scales to the exact size. */
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bytes);
+        return bytes.toByteArray();
+    }
+
+    private static String variantName(String filename, int width, boolean png) {
+        String base = filename == null ? "image" : filename.replaceFirst("\\.[^.]*$", "");
+        return base + "-" + width + (png ? ".png" : ".jpg");
+    }
+
+    private <T> T time(Stage stage, Callable<T> work) throws Exception {
+        return stageTimers.get(stage).recordCallable(work);
+    }
+
+    private void count(String outcome) {
+        Counter.builder("media.variants.jobs")
+            .description("Variant jobs finished, by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .increment();
+    }
+}
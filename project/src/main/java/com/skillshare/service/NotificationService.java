@@ -0,0 +1,450 @@
+package com.skillshare.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillshare.config.BackgroundThreads;
+import com.skillshare.model.Notification;
+import com.skillshare.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Turns {@link Activity} events into in-app notifications and pushes them to
+ * open streams.
+ *
+ * <p>Activity is buffered in memory per recipient, type and target, and the
+ * buffer is written every {@code notifications.flush-interval} as one
+ * unordered bulk of upserts: each group is folded into the recipient's
+ * unread notification for the same target, counting the actors it has not
+ * seen yet and keeping the latest names, so a post liked by twelve people is
+ * one notification rather than twelve, and a like toggled twice counts once.
+ * A unique partial index keeps one unread notification per recipient and
+ * target, so two nodes folding the same group cannot both insert it; the
+ * losing upsert fails with a duplicate key and is retried on the next flush.
+ * Recipients with an open stream are then sent the updated notifications.
+ * Stream events are identified by update time and notification id, which
+ * orders them and is unique within a flush. A failed write puts its groups
+ * back into the buffer for the next flush; activity still buffered when the
+ * node stops is written on shutdown.
+ *
+ * <p>Pushes only reach streams open on the node that flushed the activity;
+ * there is no channel between nodes. A recipient connected to another node
+ * receives the notification when its stream reconnects, from the unread
+ * notifications replayed on connect ({@code notifications.replay-limit}), or
+ * on its next read of the notification list.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationService {
+    private static final int MAX_ACTORS = 3;
+    static final int MAX_ACTOR_IDS = 1000;
+    private static final Comparator<Notification> EVENT_ORDER = Comparator
+        .comparing(NotificationService::updatedMillis)
+        .thenComparing(Notification::getId);
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationStreams notificationStreams;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${notifications.flush-interval:PT2S}")
+    private Duration flushInterval;
+
+    @Value("${notifications.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notifications.replay-limit:50}")
+    private int replayLimit;
+
+    public enum Type {
+        POST_LIKED("liked your post"),
+        RESOURCE_LIKED("liked your resource"),
+        POST_COMMENTED("commented on your post"),
+        FOLLOWED("started following you"),
+        COMMITMENT_COMPLETED("completed the commitment goal of your post");
+
+        private final String action;
+
+        Type(String action) {
+            this.action = action;
+        }
+    }
+
+    /** {@code actorId} did something that {@code recipientId} should hear about. */
+    public record Activity(String recipientId, Type type, String targetId, String actorId, String actorName) {}
+
+    private static final class Group {
+        final String recipientId;
+        final Type type;
+        final String targetId;
+        final Set<String> actorIds = new LinkedHashSet<>();
+        final Deque<String> actorNames = new ArrayDeque<>();
+
+        Group(String recipientId, Type type, String targetId) {
+            this.recipientId = recipientId;
+            this.type = type;
+            this.targetId = targetId;
+        }
+
+        String key() {
+            return groupKey(type, targetId);
+        }
+
+        void add(String actorId, String actorName) {
+            if (actorIds.add(actorId)) {
+                actorNames.remove(actorName);
+                actorNames.addLast(actorName != null ? actorName : "Someone");
+                while (actorNames.size() > MAX_ACTORS) {
+                    actorNames.removeFirst();
+                }
+            }
+        }
+
+        void merge(Group other) {
+            other.actorIds.forEach(actorId -> actorIds.add(actorId));
+            other.actorNames.forEach(name -> {
+                actorNames.remove(name);
+                actorNames.addLast(name);
+            });
+            while (actorNames.size() > MAX_ACTORS) {
+                actorNames.removeFirst();
+            }
+        }
+    }
+
+    private final ReentrantLock bufferLock = new ReentrantLock();
+    private Map<String, Group> buffer = new HashMap<>();
+    private ScheduledExecutorService flusher;
+    private Timer flushTimer;
+    private Counter failedFlushes;
+
+    @PostConstruct
+    void start() {
+        flushTimer = Timer.builder("notifications.flush")
+            .description("Time to write buffered notification activity")
+            .register(meterRegistry);
+        failedFlushes = Counter.builder("notifications.flush.failures")
+            .description("Notification flushes that failed and were retried")
+            .register(meterRegistry);
+        flusher = ExecutorServiceMetrics.monitor(meterRegistry,
+            Executors.newScheduledThreadPool(1, backgroundThreads.named("notification-flusher")), "notification-flusher");
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    @EventListener
+    public void onActivity(Activity activity) {
+        if (activity.recipientId() == null || activity.recipientId().equals(activity.actorId())) {
+            return;
+        }
+        String bufferKey = activity.recipientId() + '|' + groupKey(activity.type(), activity.targetId());
+        bufferLock.lock();
+        try {
+            buffer.computeIfAbsent(bufferKey, key -> new Group(activity.recipientId(), activity.type(), activity.targetId()))
+                .add(activity.actorId(), activity.actorName());
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    void flush() {
+        Map<String, Group> groups;
+        bufferLock.lock();
+        try {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            groups = buffer;
+            buffer = new HashMap<>();
+        } finally {
+            bufferLock.unlock();
+        }
+
+        List<Map.Entry<String, Group>> entries = new ArrayList<>(groups.entrySet());
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<Map.Entry<String, Group>> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+            try {
+                flushTimer.record(() -> write(batch));
+                push(batch.stream().map(Map.Entry::getValue).toList());
+            } catch (RuntimeException e) {
+                log.warn("Writing {} notification groups failed, retrying with the next flush: {}", batch.size(), e.getMessage());
+                failedFlushes.increment();
+                requeue(batch);
+            }
+        }
+    }
+
+    private void write(List<Map.Entry<String, Group>> batch) {
+        // A pipeline is not passed through the mapping converter, so the time is stored as a Date
+        Date now = new Date();
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class);
+        for (Map.Entry<String, Group> entry : batch) {
+            Group group = entry.getValue();
+            Query unread = new Query(Criteria.where("userId").is(group.recipientId)
+                .and("groupKey").is(group.key())
+                .and("read").is(false));
+            bulkOps.upsert(unread, fold(group, now));
+        }
+        bulkOps.execute();
+    }
+
+    /**
+     * Adds the group's actors that are not yet stored to the notification in
+     * one pipeline update and counts them, so an actor is counted once however
+     * many flushes they appear in. Only the latest {@link #MAX_ACTOR_IDS}
+     * actors are kept, which bounds the document; an actor who drops out of
+     * them and acts again is counted again. Notifications written before the
+     * actors were kept add the group to their stored count.
+     */
+    private static AggregationUpdate fold(Group group, Date now) {
+        // User input is wrapped in $literal so a name starting with $ is never read as a field path
+        Document actorIds = new Document("$literal", List.copyOf(group.actorIds));
+        Document actorNames = new Document("$literal", List.copyOf(group.actorNames));
+        Document stored = new Document("$ifNull", List.of("$actor_ids", List.of()));
+        Document added = new Document("$setDifference", List.of(actorIds, stored));
+        Document ids = new Document("$slice", List.of(new Document("$concatArrays", List.of(stored, added)), -MAX_ACTOR_IDS));
+        Document count = new Document("$add", List.of(new Document("$ifNull", List.of("$count", 0)), new Document("$size", added)));
+        // Names already listed move to the end, as the latest
+        Document olderNames = new Document("$filter", new Document("input", new Document("$ifNull", List.of("$actors", List.of())))
+            .append("cond", new Document("$not", List.of(new Document("$in", List.of("$$this", actorNames))))));
+        Document actors = new Document("$slice", List.of(new Document("$concatArrays", List.of(olderNames, actorNames)), -MAX_ACTORS));
+        Document set = new Document("actor_ids", ids)
+            .append("count", count)
+            .append("actors", actors)
+            .append("updated_at", now)
+            .append("type", new Document("$ifNull", List.of("$type", group.type.name())))
+            .append("target_id", new Document("$ifNull", List.of("$target_id", new Document("$literal", group.targetId))))
+            .append("created_at", new Document("$ifNull", List.of("$created_at", now)));
+        return AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+    }
+
+    private void requeue(List<Map.Entry<String, Group>> batch) {
+        bufferLock.lock();
+        try {
+            for (Map.Entry<String, Group> entry : batch) {
+                buffer.merge(entry.getKey(), entry.getValue(), (newer, failed) -> {
+                    failed.merge(newer);
+                    return failed;
+                });
+            }
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    /** Sends the updated notifications to recipients that have a stream open. */
+    private void push(List<Group> groups) {
+        Map<String, Set<String>> keysByRecipient = new HashMap<>();
+        for (Group group : groups) {
+            if (notificationStreams.isOpen(group.recipientId)) {
+                keysByRecipient.computeIfAbsent(group.recipientId, id -> new HashSet<>()).add(group.key());
+            }
+        }
+        if (keysByRecipient.isEmpty()) {
+            return;
+        }
+        Set<String> allKeys = new HashSet<>();
+        keysByRecipient.values().forEach(allKeys::addAll);
+        Query query = new Query(Criteria.where("userId").in(keysByRecipient.keySet())
+            .and("groupKey").in(allKeys)
+            .and("read").is(false));
+        List<Notification> notifications = mongoTemplate.find(query, Notification.class);
+        // Sent in event id order, so a client's last event id covers everything before it
+        notifications.sort(EVENT_ORDER);
+        for (Notification notification : notifications) {
+            Set<String> keys = keysByRecipient.get(notification.getUserId());
+            if (keys != null && keys.contains(notification.getGroupKey())) {
+                notificationStreams.send(notification.getUserId(), frame(render(notification)));
+            }
+        }
+    }
+
+    public Optional<String> userIdByEmail(String email) {
+        Query query = new Query(Criteria.where("email").is(email));
+        query.fields().include("id");
+        return Optional.ofNullable(mongoTemplate.findOne(query, User.class)).map(User::getId);
+    }
+
+    public Page<Notification> getNotifications(String userId, Pageable pageable) {
+        Query query = new Query(Criteria.where("userId").is(userId))
+            .with(Sort.by(Sort.Direction.DESC, "updatedAt"))
+            .with(pageable);
+        List<Notification> notifications = mongoTemplate.find(query, Notification.class);
+        notifications.forEach(NotificationService::render);
+        return PageableExecutionUtils.getPage(notifications, pageable,
+            () -> mongoTemplate.count(new Query(Criteria.where("userId").is(userId)), Notification.class));
+    }
+
+    public long countUnread(String userId) {
+        return mongoTemplate.count(unread(userId), Notification.class);
+    }
+
+    public boolean markRead(String userId, String notificationId) {
+        Query query = new Query(Criteria.where("id").is(notificationId).and("userId").is(userId));
+        return mongoTemplate.updateFirst(query, new Update().set("read", true), Notification.class).getMatchedCount() > 0;
+    }
+
+    public long markAllRead(String userId) {
+        return mongoTemplate.updateMulti(unread(userId), new Update().set("read", true), Notification.class).getModifiedCount();
+    }
+
+    /**
+     * Opens a stream for the user on the request. A reconnecting client that
+     * sends the id of the last event it saw first receives what changed
+     * after it, oldest first; a new client first receives its unread count.
+     */
+    public void openStream(String userId, String lastEventId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        List<byte[]> backlog = new ArrayList<>();
+        Optional<EventId> since = EventId.parse(lastEventId);
+        if (since.isPresent()) {
+            // Events of one flush share their time, so the query includes it and the ones already seen are skipped
+            Query changed = new Query(Criteria.where("userId").is(userId)
+                    .and("updatedAt").gte(LocalDateTime.ofInstant(Instant.ofEpochMilli(since.get().millis()), ZoneId.systemDefault())))
+                .with(Sort.by(Sort.Direction.DESC, "updatedAt"))
+                .limit(replayLimit);
+            List<Notification> notifications = mongoTemplate.find(changed, Notification.class);
+            notifications.sort(EVENT_ORDER);
+            for (Notification notification : notifications) {
+                if (since.get().isBefore(notification)) {
+                    backlog.add(frame(render(notification)));
+                }
+            }
+        } else {
+            backlog.add(("event:unread\ndata:" + countUnread(userId) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        }
+        notificationStreams.open(userId, backlog, request, response);
+    }
+
+    /** Encodes one complete event, with its id, for writing to a stream as is. */
+    private byte[] frame(Notification notification) {
+        try {
+            return ("id:" + EventId.of(notification) + "\nevent:notification\ndata:"
+                + objectMapper.writeValueAsString(notification) + "\n\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode notification " + notification.getId(), e);
+        }
+    }
+
+    /** Position of an event in a stream: update time in epoch millis, then notification id. */
+    private record EventId(long millis, String id) {
+        static EventId of(Notification notification) {
+            return new EventId(updatedMillis(notification), notification.getId());
+        }
+
+        /** Also accepts the bare millis sent as ids before the id was added. */
+        static Optional<EventId> parse(String value) {
+            if (value == null || value.isBlank()) {
+                return Optional.empty();
+            }
+            String trimmed = value.trim();
+            int separator = trimmed.indexOf('-');
+            try {
+                return separator < 0
+                    ? Optional.of(new EventId(Long.parseLong(trimmed), ""))
+                    : Optional.of(new EventId(Long.parseLong(trimmed.substring(0, separator)), trimmed.substring(separator + 1)));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+
+        boolean isBefore(Notification notification) {
+            long updated = updatedMillis(notification);
+            return updated > millis || updated == millis && notification.getId().compareTo(id) > 0;
+        }
+
+        @Override
+        public String toString() {
+            return millis + "-" + id;
+        }
+    }
+
+    private static long updatedMillis(Notification notification) {
+        return notification.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /** Fills in the message of activity notifications, which depends on the current count. */
+    private static Notification render(Notification notification) {
+        if (notification.getMessage() != null) {
+            return notification;
+        }
+        Type type;
+        try {
+            type = Type.valueOf(notification.getType());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return notification;
+        }
+        List<String> actors = notification.getActors();
+        String latest = actors == null || actors.isEmpty() ? "Someone" : actors.get(actors.size() - 1);
+        if (notification.getActorIds() != null && !notification.getActorIds().isEmpty()) {
+            notification.setCount(notification.getActorIds().size());
+        }
+        int others = notification.getCount() - 1;
+        String who = others <= 0 ? latest
+            : others == 1 && actors.size() > 1 ? latest + " and " + actors.get(actors.size() - 2)
+            : latest + " and " + others + " others";
+        notification.setMessage(who + " " + type.action);
+        return notification;
+    }
+
+    private static Query unread(String userId) {
+        return new Query(Criteria.where("userId").is(userId).and("read").is(false));
+    }
+
+    private static String groupKey(Type type, String targetId) {
+        return type.name() + ':' + targetId;
+    }
+}
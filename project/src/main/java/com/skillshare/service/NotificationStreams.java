@@ -0,0 +1,179 @@
+package com.skillshare.service;
+
+import com.skillshare.config.BackgroundThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open server-sent event streams, by user.
+ *
+ * <p>A stream is an async servlet request written with non-blocking I/O (see
+ * {@link SseConnection}), so neither an idle nor a stalled connection holds a
+ * thread. Events are encoded once and queued per stream; a stream whose
+ * queue reaches {@code notifications.sse.max-queued} because its client
+ * stopped reading is closed rather than allowed to hold events, and its
+ * client reconnects and catches up. A comment is sent every
+ * {@code notifications.sse.heartbeat} so proxies keep idle streams open and
+ * dead connections are noticed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationStreams {
+    private final MeterRegistry meterRegistry;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${notifications.sse.timeout:PT30M}")
+    private Duration timeout;
+
+    @Value("${notifications.sse.heartbeat:PT25S}")
+    private Duration heartbeat;
+
+    @Value("${notifications.sse.max-streams-per-user:5}")
+    private int maxStreamsPerUser;
+
+    @Value("${notifications.sse.max-queued:64}")
+    private int maxQueued;
+
+    private final Map<String, Set<Stream>> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicLong opened = new AtomicLong();
+    private ScheduledExecutorService heartbeats;
+    private Counter dropped;
+
+    @PostConstruct
+    void start() {
+        heartbeats = ExecutorServiceMetrics.monitor(meterRegistry,
+            Executors.newScheduledThreadPool(1, backgroundThreads.named("notification-heartbeat")), "notification-heartbeat");
+        heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("notifications.sse.streams", open, AtomicInteger::get)
+            .description("Open notification streams")
+            .register(meterRegistry);
+        dropped = Counter.builder("notifications.sse.dropped")
+            .description("Notification streams closed because the client fell behind")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeats.shutdownNow();
+        streams.values().forEach(userStreams -> userStreams.forEach(Stream::close));
+    }
+
+    /** Opens a stream for the user on the request, starting with the encoded {@code backlog}. */
+    public void open(String userId, List<byte[]> backlog, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        // A client that keeps reconnecting without closing loses its oldest streams, not the new one. They
+        // are removed here, since a connection may only run its close callback once its writer is done
+        List<Stream> existing = List.copyOf(streams.getOrDefault(userId, Set.of()));
+        existing.stream()
+            .sorted(Comparator.comparingLong(Stream::sequence))
+            .limit(Math.max(0, existing.size() - maxStreamsPerUser + 1))
+            .forEach(oldest -> {
+                remove(oldest);
+                oldest.close();
+            });
+
+        Stream stream = new Stream(userId);
+        stream.queue.addAll(backlog.subList(Math.max(0, backlog.size() - maxQueued), backlog.size()));
+        stream.connection = SseConnection.open(request, response, timeout, stream.queue::poll, () -> remove(stream));
+        streams.compute(userId, (id, userStreams) -> {
+            Set<Stream> updated = userStreams != null ? userStreams : ConcurrentHashMap.newKeySet();
+            updated.add(stream);
+            return updated;
+        });
+        open.incrementAndGet();
+        if (stream.connection.isClosed()) {
+            remove(stream);
+        }
+    }
+
+    public boolean isOpen(String userId) {
+        Set<Stream> userStreams = streams.get(userId);
+        return userStreams != null && !userStreams.isEmpty();
+    }
+
+    /** Queues an encoded event on every stream of the user. */
+    public void send(String userId, byte[] frame) {
+        Set<Stream> userStreams = streams.get(userId);
+        if (userStreams != null) {
+            userStreams.forEach(stream -> stream.offer(frame));
+        }
+    }
+
+    public int openStreams() {
+        return open.get();
+    }
+
+    private void heartbeat() {
+        streams.values().forEach(userStreams -> userStreams.forEach(stream -> stream.offer(SseConnection.HEARTBEAT)));
+    }
+
+    private void remove(Stream stream) {
+        AtomicBoolean removed = new AtomicBoolean();
+        streams.computeIfPresent(stream.userId, (id, userStreams) -> {
+            removed.set(userStreams.remove(stream));
+            return userStreams.isEmpty() ? null : userStreams;
+        });
+        if (removed.get()) {
+            open.decrementAndGet();
+        }
+    }
+
+    private final class Stream {
+        private final String userId;
+        private final long sequence = opened.incrementAndGet();
+        private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>(maxQueued);
+        private volatile SseConnection connection;
+
+        Stream(String userId) {
+            this.userId = userId;
+        }
+
+        long sequence() {
+            return sequence;
+        }
+
+        void offer(byte[] frame) {
+            if (!queue.offer(frame)) {
+                log.debug("Closing notification stream of {}: {} events queued", userId, maxQueued);
+                dropped.increment();
+                close();
+                return;
+            }
+            connection.wake();
+        }
+
+        void close() {
+            queue.clear();
+            connection.close();
+        }
+    }
+}
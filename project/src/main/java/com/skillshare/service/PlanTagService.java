@@ -0,0 +1,151 @@
+package com.skillshare.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.skillshare.model.LearningPlan;
+import com.skillshare.model.PlanTag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the {@code plan_tags} popularity table from learning plan tag
+ * changes, so tag clouds and query planning never aggregate over
+ * {@code learning_plans}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlanTagService {
+    private static final int MAX_TAG_LENGTH = 50;
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Trims and lowercases tags and drops blank ones, so that counts and
+     * lookups agree on one spelling.
+     */
+    public static Set<String> normalize(Collection<String> tags) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (tags == null) {
+            return normalized;
+        }
+        for (String tag : tags) {
+            if (tag == null) {
+                continue;
+            }
+            String value = tag.trim().toLowerCase(Locale.ROOT);
+            if (!value.isEmpty()) {
+                normalized.add(value.length() > MAX_TAG_LENGTH ? value.substring(0, MAX_TAG_LENGTH) : value);
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * Applies the difference between a plan's previous and current tags as
+     * counter increments in one unordered bulk write, then removes tags whose
+     * count dropped to zero. Two plans adding a new tag at once race to insert
+     * it; the upsert that loses fails with a duplicate key and is retried
+     * alone, now matching the tag the other one inserted.
+     */
+    public void applyChange(Set<String> before, Set<String> after) {
+        Set<String> added = new HashSet<>(after);
+        added.removeAll(before);
+        Set<String> removed = new HashSet<>(before);
+        removed.removeAll(after);
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<String> upserted = new ArrayList<>(added);
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PlanTag.class);
+        for (String tag : upserted) {
+            bulkOps.upsert(byTag(tag), increment(1, now));
+        }
+        for (String tag : removed) {
+            bulkOps.updateOne(byTag(tag), increment(-1, now));
+        }
+        try {
+            bulkOps.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY_ERROR) {
+                    throw e;
+                }
+            }
+            for (BulkWriteError error : e.getErrors()) {
+                // Only upserts insert, and they come first in the batch
+                String tag = upserted.get(error.getIndex());
+                log.debug("Tag {} was inserted concurrently, retrying its increment", tag);
+                mongoTemplate.upsert(byTag(tag), increment(1, now), PlanTag.class);
+            }
+        }
+        if (!removed.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where("tag").in(removed).and("count").lte(0)), PlanTag.class);
+        }
+    }
+
+    public List<PlanTag> getPopularTags(int limit) {
+        Query query = new Query()
+            .with(Sort.by(Sort.Direction.DESC, "count"))
+            .limit(limit);
+        return mongoTemplate.find(query, PlanTag.class);
+    }
+
+    public Map<String, Long> getCounts(Collection<String> tags) {
+        Map<String, Long> counts = new HashMap<>();
+        for (PlanTag tag : mongoTemplate.find(new Query(Criteria.where("tag").in(tags)), PlanTag.class)) {
+            counts.put(tag.getTag(), tag.getCount());
+        }
+        return counts;
+    }
+
+    /**
+     * Recomputes the table from {@code learning_plans}, replacing it
+     * atomically. Only meant for repairing drift; it scans every plan.
+     */
+    public long rebuild() {
+        List<Document> pipeline = List.of(
+            new Document("$unwind", "$tags"),
+            new Document("$group", new Document("_id", "$tags").append("count", new Document("$sum", 1))),
+            new Document("$set", new Document("updated_at", new Date())),
+            new Document("$out", mongoTemplate.getCollectionName(PlanTag.class)));
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(LearningPlan.class))
+            .aggregate(pipeline)
+            .allowDiskUse(true)
+            .toCollection();
+        long tags = mongoTemplate.count(new Query(), PlanTag.class);
+        log.info("Rebuilt plan tag counts: {} tags", tags);
+        return tags;
+    }
+
+    private static Update increment(int delta, LocalDateTime now) {
+        return new Update().inc("count", delta).set("updatedAt", now);
+    }
+
+    private Query byTag(String tag) {
+        return new Query(Criteria.where("tag").is(tag));
+    }
+}
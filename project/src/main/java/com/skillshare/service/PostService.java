@@ -1,20 +1,31 @@
 package com.skillshare.service;
 
-<<<<<<< Updated upstream
+import com.mongodb.DBRef;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.skillshare.model.MediaAsset;
 import com.skillshare.model.Post;
+import com.skillshare.model.PostMedia;
 import com.skillshare.model.User;
 import com.skillshare.repository.PostRepository;
-=======
-import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
-
->>>>>>> Stashed changes
+import com.skillshare.service.UserStatsService.Counter;
+import com.skillshare.service.LiveCounterService.CountsChanged;
+import com.skillshare.service.LiveCounterService.Item;
+import com.skillshare.service.NotificationService.Activity;
+import com.skillshare.service.UserStatsService.CounterChanged;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,9 +37,23 @@ public class PostService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private WriteBehindService writeBehindService;
+
+    @Autowired
+    private EntityVersionService entityVersionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Transactional
     public Post createPost(Post post) {
-        return postRepository.save(post);
+        Post saved = postRepository.save(post);
+        eventPublisher.publishEvent(new CounterChanged(authorId(saved), Counter.POSTS, 1));
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -38,12 +63,51 @@ public class PostService {
 
     @Transactional
     public Post updatePost(Post post) {
+        // Request bodies carry no version; overwrite whatever is stored, as before
+        if (post.getVersion() == null) {
+            post.setVersion(entityVersionService.currentVersion(Post.class, post.getId()));
+        }
         return postRepository.save(post);
     }
 
+    /**
+     * Records an uploaded file on the post and lists its URL among the images,
+     * or as the video. Attaching the same content again changes nothing.
+     */
+    @Transactional
+    public Optional<Post> addMedia(String postId, MediaAsset asset, String url) {
+        PostMedia media = new PostMedia();
+        media.setHash(asset.getHash());
+        media.setUrl(url);
+        media.setContentType(asset.getContentType());
+        media.setSize(asset.getSize());
+        media.setFilename(asset.getFilename());
+        media.setUploadedAt(LocalDateTime.now());
+        media.setVariants(asset.getVariants());
+
+        Update update = new Update()
+            .push("media", media)
+            .inc("version", 1)
+            .set("updatedAt", media.getUploadedAt());
+        if (asset.getContentType().startsWith("video/")) {
+            update.set("videoUrl", url);
+        } else {
+            update.addToSet("images", url);
+        }
+        mongoTemplate.updateFirst(
+            new Query(Criteria.where("id").is(postId).and("media.hash").ne(asset.getHash())), update, Post.class);
+        return postRepository.findById(postId);
+    }
+
     @Transactional
     public void deletePost(String id) {
-        postRepository.deleteById(id);
+        postRepository.findById(id).ifPresent(post -> {
+            postRepository.delete(post);
+            eventPublisher.publishEvent(new CounterChanged(authorId(post), Counter.POSTS, -1));
+            eventPublisher.publishEvent(new CounterChanged(authorId(post), Counter.LIKES_RECEIVED, -post.getLikes().size()));
+            // Ends the live counter streams of the post
+            eventPublisher.publishEvent(new CountsChanged(Item.POST, id));
+        });
     }
 
     @Transactional(readOnly = true)
@@ -57,29 +121,71 @@ public class PostService {
         return postRepository.findByUserInOrderByCreatedAtDesc(following, pageable);
     }
 
+    /**
+     * Adds the like with a conditional {@code $addToSet} instead of saving the
+     * post, so users liking it at the same time never conflict on its
+     * version; the version is still bumped, so an edit based on an earlier
+     * read cannot save over the like.
+     */
     @Transactional
     public void likePost(String postId, String userId) {
+        if (writeBehindService.isEnabled()) {
+            enqueueLike(postId, userId, true);
+            return;
+        }
         Post post = postRepository.findById(postId)
             .orElseThrow(() -> new RuntimeException("Post not found"));
-        User user = userService.getUserById(userId)
+        User user = userService.getUserNameById(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
         
-        post.getLikes().add(user);
-        postRepository.save(post);
+        if (updateLikes(postId, userId, true)) {
+            eventPublisher.publishEvent(new CounterChanged(authorId(post), Counter.LIKES_RECEIVED, 1));
+            eventPublisher.publishEvent(new CountsChanged(Item.POST, postId));
+            eventPublisher.publishEvent(new Activity(authorId(post), NotificationService.Type.POST_LIKED,
+                postId, userId, user.getName()));
+        }
     }
 
     @Transactional
     public void unlikePost(String postId, String userId) {
+        if (writeBehindService.isEnabled()) {
+            enqueueLike(postId, userId, false);
+            return;
+        }
         Post post = postRepository.findById(postId)
             .orElseThrow(() -> new RuntimeException("Post not found"));
-        User user = userService.getUserById(userId)
+        userService.getUserNameById(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
         
-        post.getLikes().remove(user);
-        postRepository.save(post);
+        if (updateLikes(postId, userId, false)) {
+            eventPublisher.publishEvent(new CounterChanged(authorId(post), Counter.LIKES_RECEIVED, -1));
+            eventPublisher.publishEvent(new CountsChanged(Item.POST, postId));
+        }
+    }
+
+    /** Adds or removes the user's like unless it is already so; whether the post changed. */
+    private boolean updateLikes(String postId, String userId, boolean liked) {
+        DBRef like = new DBRef(mongoTemplate.getCollectionName(User.class), ObjectId.isValid(userId) ? new ObjectId(userId) : userId);
+        Bson unchanged = liked ? Filters.ne("likes", like) : Filters.eq("likes", like);
+        Bson change = liked ? Updates.addToSet("likes", like) : Updates.pull("likes", like);
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Post.class))
+            .updateOne(Filters.and(Filters.eq("_id", ObjectId.isValid(postId) ? new ObjectId(postId) : postId), unchanged),
+                Updates.combine(change, Updates.inc("version", 1)))
+            .getModifiedCount() > 0;
+    }
+
+    private static String authorId(Post post) {
+        return post.getUser() != null ? post.getUser().getId() : null;
+    }
+
+    private void enqueueLike(String postId, String userId, boolean liked) {
+        if (!postRepository.existsById(postId)) {
+            throw new RuntimeException("Post not found");
+        }
+        User user = userService.getUserNameById(userId)
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        writeBehindService.enqueuePostLike(postId, userId, user.getName(), liked);
     }
-<<<<<<< Updated upstream
-=======
 
     @Transactional(readOnly = true)
     public Page<Post> searchPosts(String keyword, Pageable pageable) {
@@ -109,11 +215,18 @@ public class PostService {
         
         post.getCommits().add(user);
         
-        if (post.isCommitmentAchieved() && !post.isCommitmentComplete()) {
+        boolean completed = post.isCommitmentAchieved() && !post.isCommitmentComplete();
+        if (completed) {
             post.setCommitmentComplete(true);
         }
         
-        return postRepository.save(post);
+        Post saved = postRepository.save(post);
+        eventPublisher.publishEvent(new CountsChanged(Item.POST, postId));
+        if (completed) {
+            eventPublisher.publishEvent(new Activity(authorId(saved), NotificationService.Type.COMMITMENT_COMPLETED,
+                postId, userId, user.getName()));
+        }
+        return saved;
     }
 
     @Transactional
@@ -134,7 +247,9 @@ public class PostService {
             post.setCommitmentComplete(false);
         }
         
-        return postRepository.save(post);
+        Post saved = postRepository.save(post);
+        eventPublisher.publishEvent(new CountsChanged(Item.POST, postId));
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -152,5 +267,4 @@ public class PostService {
     public Page<Post> getOpenCommitments(Pageable pageable) {
         return postRepository.findOpenCommitments(LocalDateTime.now(), pageable);
     }
->>>>>>> Stashed changes
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+package com.skillshare.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Scores ordered highest first (ties by id), held in a treap whose nodes
+ * know the size of their subtree. Updating a score, and finding the rank of
+ * an id, are O(log n) expected; the top {@code n} entries are read in
+ * O(log n + n). Scores may go negative, but only positive ones are ranked.
+ *
+ * <p>Not thread-safe; callers serialise access to each scoreboard.
+ */
+class RankedScoreboard {
+    private final Map<String, Long> scores = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    record Entry(String id, long score) {
+    }
+
+    private static final class Node {
+        final String id;
+        final long score;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(String id, long score, int priority) {
+            this.id = id;
+            this.score = score;
+            this.priority = priority;
+        }
+    }
+
+    /** Adds {@code delta} to the score of {@code id} and returns the new score. */
+    long add(String id, long delta) {
+        long previous = scores.getOrDefault(id, 0L);
+        long current = previous + delta;
+        if (delta == 0) {
+            return current;
+        }
+        if (previous > 0) {
+            root = remove(root, id, previous);
+        }
+        if (current != 0) {
+            scores.put(id, current);
+        } else {
+            scores.remove(id);
+        }
+        if (current > 0) {
+            root = insert(root, new Node(id, current, random.nextInt()));
+        }
+        return current;
+    }
+
+    long score(String id) {
+        return scores.getOrDefault(id, 0L);
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /** The 1-based rank of {@code id}, or 0 if it has no positive score. */
+    int rank(String id) {
+        long score = score(id);
+        if (score <= 0) {
+            return 0;
+        }
+        int ahead = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(id, score, node);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                ahead += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return ahead + size(node.left) + 1;
+            }
+        }
+        return 0;
+    }
+
+    List<Entry> top(int n) {
+        List<Entry> entries = new ArrayList<>(Math.min(n, size()));
+        Deque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        while ((node != null || !stack.isEmpty()) && entries.size() < n) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            entries.add(new Entry(node.id, node.score));
+            node = node.right;
+        }
+        return entries;
+    }
+
+    private static int compare(String id, long score, Node node) {
+        int cmp = Long.compare(node.score, score);
+        return cmp != 0 ? cmp : id.compareTo(node.id);
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (inserted.priority > node.priority) {
+            Node[] halves = split(node, inserted.id, inserted.score);
+            inserted.left = halves[0];
+            inserted.right = halves[1];
+            return update(inserted);
+        }
+        if (compare(inserted.id, inserted.score, node) < 0) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        return update(node);
+    }
+
+    private static Node remove(Node node, String id, long score) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(id, score, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, id, score);
+        } else {
+            node.right = remove(node.right, id, score);
+        }
+        return update(node);
+    }
+
+    /** Splits into the nodes ordered before (id, score) and the rest. */
+    private static Node[] split(Node node, String id, long score) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (compare(id, score, node) > 0) {
+            Node[] halves = split(node.right, id, score);
+            node.right = halves[0];
+            return new Node[] {update(node), halves[1]};
+        }
+        Node[] halves = split(node.left, id, score);
+        node.left = halves[1];
+        return new Node[] {halves[0], update(node)};
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    private static Node update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+}
@@ -0,0 +1,172 @@
+package com.skillshare.service;
+
+import com.mongodb.DBRef;
+import com.skillshare.model.Post;
+import com.skillshare.model.Resource;
+import com.skillshare.model.ResourceDTO;
+import com.skillshare.model.User;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking variants of the feed, resource listing and search reads.
+ *
+ * <p>Documents are read raw, with their DBRefs intact. The page and its total
+ * count are fetched concurrently, and the users the page refers to are then
+ * loaded with a single {@code $in} query instead of one lookup per DBRef.
+ * Only authors and resource owners are loaded; likes, commits and follower
+ * lists are returned as id-only user references. Queries and sorting are
+ * identical to the blocking endpoints.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveReadService {
+    private static final Set<String> USER_REFS = Set.of("resources", "posts", "learningPlans", "followers", "following");
+    private static final Set<String> POST_REFS = Set.of("user", "comments", "likes", "commits");
+    private static final Set<String> RESOURCE_REFS = Set.of("user", "likes");
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public Mono<Page<Post>> getFeedPosts(String userId, Pageable pageable) {
+        Query userQuery = new Query(Criteria.where("id").is(userId));
+        userQuery.fields().include("following");
+        return reactiveMongoTemplate.query(User.class).as(Document.class).matching(userQuery).one()
+            .switchIfEmpty(Mono.error(() -> new NoSuchElementException("User not found")))
+            .flatMap(user -> {
+                Criteria criteria = Criteria.where("user").in(dbRefs(user.get("following")));
+                return findPosts(criteria, Sort.by(Sort.Direction.DESC, "createdAt"), pageable);
+            });
+    }
+
+    public Mono<Page<Post>> searchPosts(String keyword, Pageable pageable) {
+        Criteria criteria = new Criteria().orOperator(
+            Criteria.where("title").regex(keyword, "i"),
+            Criteria.where("content").regex(keyword, "i"));
+        return findPosts(criteria, Sort.unsorted(), pageable);
+    }
+
+    public Mono<Page<ResourceDTO>> getAllResources(Pageable pageable, String currentUserId) {
+        return findResources(new Criteria(), pageable, currentUserId);
+    }
+
+    public Mono<Page<ResourceDTO>> searchResources(String keyword, Pageable pageable, String currentUserId) {
+        Criteria criteria = new Criteria().orOperator(
+            Criteria.where("title").regex(keyword, "i"),
+            Criteria.where("description").regex(keyword, "i"),
+            Criteria.where("skillCategory").regex(keyword, "i"));
+        return findResources(criteria, pageable, currentUserId);
+    }
+
+    private Mono<Page<Post>> findPosts(Criteria criteria, Sort sort, Pageable pageable) {
+        return findPage(Post.class, criteria, sort, pageable).flatMap(page -> {
+            Set<String> authorIds = page.docs().stream()
+                .map(doc -> refId(doc.get("user")))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+            Query authors = new Query(Criteria.where("id").in(authorIds));
+            authors.fields().exclude("password", "resources", "posts", "learningPlans");
+            return findUsers(authors).map(users -> new PageImpl<>(
+                page.docs().stream().map(doc -> toPost(doc, users)).toList(), pageable, page.total()));
+        });
+    }
+
+    private Mono<Page<ResourceDTO>> findResources(Criteria criteria, Pageable pageable, String currentUserId) {
+        return findPage(Resource.class, criteria, Sort.unsorted(), pageable).flatMap(page -> {
+            Set<String> ownerIds = page.docs().stream()
+                .map(doc -> refId(doc.get("user")))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+            Query owners = new Query(Criteria.where("id").in(ownerIds));
+            owners.fields().include("name", "email");
+            return findUsers(owners).map(users -> new PageImpl<>(
+                page.docs().stream()
+                    .map(doc -> ResourceDTO.fromResource(toResource(doc, users), currentUserId))
+                    .toList(),
+                pageable, page.total()));
+        });
+    }
+
+    private record RawPage(List<Document> docs, long total) {}
+
+    private Mono<RawPage> findPage(Class<?> entityClass, Criteria criteria, Sort sort, Pageable pageable) {
+        Query pageQuery = new Query(criteria).with(sort).with(pageable);
+        Mono<List<Document>> docs = reactiveMongoTemplate.query(entityClass).as(Document.class)
+            .matching(pageQuery).all().collectList();
+        Mono<Long> total = reactiveMongoTemplate.query(entityClass).matching(new Query(criteria)).count();
+        return Mono.zip(docs, total, RawPage::new);
+    }
+
+    private Mono<Map<String, User>> findUsers(Query query) {
+        return reactiveMongoTemplate.query(User.class).as(Document.class).matching(query).all()
+            .map(this::toUser)
+            .collectMap(User::getId, Function.identity());
+    }
+
+    private Post toPost(Document doc, Map<String, User> users) {
+        Post post = reactiveMongoTemplate.getConverter().read(Post.class, withoutRefs(doc, POST_REFS));
+        post.setUser(users.get(refId(doc.get("user"))));
+        post.setLikes(userRefs(doc.get("likes")));
+        post.setCommits(userRefs(doc.get("commits")));
+        return post;
+    }
+
+    private Resource toResource(Document doc, Map<String, User> users) {
+        Resource resource = reactiveMongoTemplate.getConverter().read(Resource.class, withoutRefs(doc, RESOURCE_REFS));
+        resource.setUser(users.get(refId(doc.get("user"))));
+        resource.setLikes(userRefs(doc.get("likes")));
+        return resource;
+    }
+
+    private User toUser(Document doc) {
+        User user = reactiveMongoTemplate.getConverter().read(User.class, withoutRefs(doc, USER_REFS));
+        user.setFollowers(userRefs(doc.get("followers")));
+        user.setFollowing(userRefs(doc.get("following")));
+        return user;
+    }
+
+    private static Document withoutRefs(Document doc, Set<String> refFields) {
+        Document copy = new Document(doc);
+        refFields.forEach(copy::remove);
+        return copy;
+    }
+
+    private static List<DBRef> dbRefs(Object value) {
+        if (!(value instanceof Collection<?> values)) {
+            return List.of();
+        }
+        return values.stream().filter(DBRef.class::isInstance).map(DBRef.class::cast).toList();
+    }
+
+    private static String refId(Object value) {
+        return value instanceof DBRef ref ? String.valueOf(ref.getId()) : null;
+    }
+
+    private static Set<User> userRefs(Object value) {
+        Set<User> users = new HashSet<>();
+        for (DBRef ref : dbRefs(value)) {
+            User user = new User();
+            user.setId(String.valueOf(ref.getId()));
+            users.add(user);
+        }
+        return users;
+    }
+}
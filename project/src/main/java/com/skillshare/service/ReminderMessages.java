@@ -0,0 +1,32 @@
+package com.skillshare.service;
+
+import com.skillshare.model.DueDateReminder;
+
+import java.time.format.DateTimeFormatter;
+
+final class ReminderMessages {
+    private static final DateTimeFormatter DUE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private ReminderMessages() {
+    }
+
+    /** A single line: titles are user input, and line breaks in them are replaced by spaces. */
+    static String subject(DueDateReminder reminder) {
+        String title = singleLine(reminder.getTitle());
+        return reminder.getKind() == DueDateReminder.Kind.PLAN
+            ? "Learning plan \"" + title + "\" is due " + DUE_FORMAT.format(reminder.getDueAt())
+            : "Milestone \"" + title + "\" is due " + DUE_FORMAT.format(reminder.getDueAt());
+    }
+
+    static String body(DueDateReminder reminder) {
+        return reminder.getKind() == DueDateReminder.Kind.PLAN
+            ? "Your learning plan \"" + reminder.getTitle() + "\" reaches its target date on "
+                + DUE_FORMAT.format(reminder.getDueAt()) + "."
+            : "The milestone \"" + reminder.getTitle() + "\" of your learning plan \"" + reminder.getPlanTitle()
+                + "\" reaches its target date on " + DUE_FORMAT.format(reminder.getDueAt()) + ".";
+    }
+
+    private static String singleLine(String text) {
+        return text == null ? "" : text.replaceAll("[\\r\\n\\u0085\\u2028\\u2029]+", " ");
+    }
+}
@@ -0,0 +1,397 @@
+package com.skillshare.service;
+
+import com.mongodb.client.MongoCursor;
+import com.skillshare.config.BackgroundThreads;
+import com.skillshare.model.DueDateReminder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fires due-date reminders from a {@link HierarchicalTimingWheel}.
+ *
+ * <p>Only reminders due within the next {@code reminder.window-minutes} are
+ * held in memory. They are loaded by a range scan over the partial
+ * {@code remind_at} index of {@code due_date_reminders}; when half the window
+ * has elapsed the next slice is loaded the same way, so a restart simply
+ * rebuilds the wheel from the index and overdue unsent reminders fire at once.
+ * Reminders scheduled inside the loaded window are handed over through a
+ * queue and added on the ticker thread, which is the only thread touching the
+ * wheel.
+ *
+ * <p>Expired timers are delivered in batches of {@code reminder.batch-size} to
+ * every sink named in {@code reminder.sinks}. Each sink that succeeds is
+ * recorded on the reminders in {@code delivered_to}, and a reminder is marked
+ * as sent once every sink has delivered it; the others are retried after
+ * {@code reminder.retry-ms}, skipping the sinks that already delivered them.
+ * Before delivery each batch is re-read, so reminders that were cancelled or
+ * moved since they were loaded are dropped. Reminders of milestones completed
+ * meanwhile are marked sent without being delivered.
+ *
+ * <p>Every instance loads and fires every due reminder, so a batch is first
+ * claimed: reminders not claimed by another instance, or whose claim has
+ * expired, get this instance's id and a lease of
+ * {@code reminder.claim-lease-ms}, and only the reminders this instance then
+ * holds are delivered. Retries renew the claim. Unsent reminders whose claim
+ * expired, because the instance holding it stopped, are picked up by the next
+ * instance that scans for them, once per lease.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReminderScheduler {
+    private final MongoTemplate mongoTemplate;
+    private final List<ReminderSink> availableSinks;
+    private final MeterRegistry meterRegistry;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${reminder.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reminder.sinks:log}")
+    private List<String> sinkNames;
+
+    @Value("${reminder.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${reminder.wheel-size:60}")
+    private int wheelSize;
+
+    @Value("${reminder.window-minutes:60}")
+    private long windowMinutes;
+
+    @Value("${reminder.batch-size:500}")
+    private int batchSize;
+
+    @Value("${reminder.retry-ms:60000}")
+    private long retryMs;
+
+    @Value("${reminder.claim-lease-ms:300000}")
+    private long claimLeaseMs;
+
+    private record Timer(String id, long remindAt) {}
+
+    public record Stats(
+        boolean enabled,
+        List<String> sinks,
+        int pending,
+        Instant loadedUntil,
+        long loaded,
+        long fired,
+        long delivered,
+        long dropped,
+        long claimedElsewhere,
+        long sinkFailures
+    ) {}
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Queue<Timer> handover = new ConcurrentLinkedQueue<>();
+    private final List<ReminderSink> sinks = new ArrayList<>();
+    private HierarchicalTimingWheel<Timer> wheel;
+    private ScheduledExecutorService ticker;
+    private volatile long loadedUntil = Long.MIN_VALUE;
+    private volatile int pending;
+    private long nextClaimScan;
+
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong fired = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong claimedElsewhere = new AtomicLong();
+    private final AtomicLong sinkFailures = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+
+        for (String name : sinkNames) {
+            ReminderSink sink = availableSinks.stream()
+                .filter(candidate -> candidate.name().equals(name.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown reminder sink: " + name));
+            sinks.add(sink);
+        }
+
+        wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        ticker = ExecutorServiceMetrics.monitor(meterRegistry,
+            Executors.newScheduledThreadPool(1, backgroundThreads.named("reminder-ticker")), "reminder-ticker");
+        Gauge.builder("reminder.pending", this, scheduler -> scheduler.pending)
+            .description("Reminders held in the timing wheel")
+            .register(meterRegistry);
+        ticker.execute(this::rebuild);
+        ticker.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        log.info("Reminder scheduler started: sinks={}, tick={}ms, window={}min", sinkNames, tickMs, windowMinutes);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (ticker != null) {
+            ticker.shutdown();
+            ticker.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Called after a reminder was written to the index. Reminders beyond the
+     * loaded window are left to the next range scan.
+     */
+    public void schedule(DueDateReminder reminder) {
+        if (!enabled) {
+            return;
+        }
+        long remindAt = toMillis(reminder.getRemindAt());
+        if (remindAt < loadedUntil) {
+            handover.add(new Timer(reminder.getId(), remindAt));
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(
+            enabled,
+            sinks.stream().map(ReminderSink::name).toList(),
+            pending,
+            loadedUntil == Long.MIN_VALUE ? null : Instant.ofEpochMilli(loadedUntil),
+            loaded.get(),
+            fired.get(),
+            delivered.get(),
+            dropped.get(),
+            claimedElsewhere.get(),
+            sinkFailures.get()
+        );
+    }
+
+    private void rebuild() {
+        try {
+            long start = System.currentTimeMillis();
+            List<Timer> due = new ArrayList<>();
+            long count = load(null, start + windowMillis(), due);
+            log.info("Rebuilt reminder wheel with {} reminders ({} overdue) in {}ms",
+                count, due.size(), System.currentTimeMillis() - start);
+            fire(due);
+        } catch (Exception e) {
+            // Leave loadedUntil unset so the next tick retries the full scan
+            loadedUntil = Long.MIN_VALUE;
+            log.error("Failed to rebuild reminder wheel: {}", e.getMessage(), e);
+        }
+    }
+
+    private void tick() {
+        try {
+            if (loadedUntil == Long.MIN_VALUE) {
+                rebuild();
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            List<Timer> due = new ArrayList<>();
+            Timer timer;
+            while ((timer = handover.poll()) != null) {
+                if (!wheel.add(timer.remindAt(), timer)) {
+                    due.add(timer);
+                }
+            }
+
+            if (now + windowMillis() / 2 >= loadedUntil) {
+                load(loadedUntil, now + windowMillis(), due);
+            }
+            if (now >= nextClaimScan) {
+                loadExpiredClaims(now, due);
+                nextClaimScan = now + claimLeaseMs;
+            }
+
+            wheel.advance(now, due::add);
+            pending = wheel.size();
+            fire(due);
+        } catch (Exception e) {
+            log.error("Reminder tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds unsent reminders with {@code from <= remind_at < until} to the wheel
+     * (or to {@code due} if already expired) using the partial index.
+     */
+    private long load(Long from, long until, List<Timer> due) {
+        // Publish the new bound before scanning: a reminder written after the scan
+        // started is either seen by the scan or handed over by schedule()
+        loadedUntil = until;
+
+        Document range = new Document("$lt", new Date(until));
+        if (from != null) {
+            range.append("$gte", new Date(from));
+        }
+        Document filter = new Document("sent", false).append("remind_at", range);
+
+        long count = 0;
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(mongoTemplate.getCollectionName(DueDateReminder.class))
+                .find(filter)
+                .projection(new Document("remind_at", 1))
+                .sort(new Document("remind_at", 1).append("_id", 1))
+                .batchSize(batchSize)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                Document document = cursor.next();
+                Timer timer = new Timer(document.getString("_id"), document.getDate("remind_at").getTime());
+                if (!wheel.add(timer.remindAt(), timer)) {
+                    due.add(timer);
+                    if (due.size() >= batchSize) {
+                        fire(due);
+                        due.clear();
+                    }
+                }
+                count++;
+            }
+        }
+        loaded.addAndGet(count);
+        pending = wheel.size();
+        return count;
+    }
+
+    /**
+     * Adds overdue unsent reminders whose claim has expired to {@code due}.
+     * Reminders that are retried are held by their instance's renewed claim,
+     * so this only finds those left behind by an instance that stopped.
+     */
+    private void loadExpiredClaims(long now, List<Timer> due) {
+        Document filter = new Document("sent", false)
+            .append("remind_at", new Document("$lt", new Date(now)))
+            .append("claim_until", new Document("$lt", new Date(now)));
+        for (Document document : mongoTemplate.getCollection(mongoTemplate.getCollectionName(DueDateReminder.class))
+                .find(filter)
+                .projection(new Document("remind_at", 1))
+                .batchSize(batchSize)) {
+            due.add(new Timer(document.getString("_id"), document.getDate("remind_at").getTime()));
+        }
+    }
+
+    private void fire(List<Timer> due) {
+        for (int from = 0; from < due.size(); from += batchSize) {
+            fireBatch(due.subList(from, Math.min(from + batchSize, due.size())));
+        }
+    }
+
+    private void fireBatch(List<Timer> timers) {
+        Map<String, Timer> byId = new LinkedHashMap<>();
+        for (Timer timer : timers) {
+            byId.put(timer.id(), timer);
+        }
+        fired.addAndGet(byId.size());
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime claimUntil = now.plus(Duration.ofMillis(claimLeaseMs));
+        // Reminders moved to a later time since they were loaded are left out; the new time is scheduled separately
+        Criteria open = Criteria.where("id").in(byId.keySet())
+            .and("sent").is(false)
+            .and("remindAt").lte(now.plus(Duration.ofMillis(tickMs)));
+        // A null claim also matches reminders written before claims existed
+        mongoTemplate.updateMulti(
+            new Query(new Criteria().andOperator(open, new Criteria().orOperator(
+                Criteria.where("claimOwner").is(instanceId),
+                Criteria.where("claimUntil").is(null),
+                Criteria.where("claimUntil").lt(now)))),
+            new Update().set("claimOwner", instanceId).set("claimUntil", claimUntil),
+            DueDateReminder.class);
+
+        List<DueDateReminder> reminders = new ArrayList<>(byId.size());
+        List<String> completed = new ArrayList<>();
+        for (DueDateReminder reminder : mongoTemplate.find(new Query(open), DueDateReminder.class)) {
+            if (!instanceId.equals(reminder.getClaimOwner())) {
+                claimedElsewhere.incrementAndGet();
+            } else if (reminder.isCompleted()) {
+                completed.add(reminder.getId());
+            } else {
+                reminders.add(reminder);
+            }
+        }
+        dropped.addAndGet(byId.size() - reminders.size());
+        if (!completed.isEmpty()) {
+            // Its time passed while the milestone was completed; reopening it later does not remind
+            mongoTemplate.updateMulti(
+                new Query(Criteria.where("id").in(completed).and("sent").is(false).and("completed").is(true)),
+                new Update().set("sent", true).unset("claimOwner").unset("claimUntil"),
+                DueDateReminder.class);
+        }
+        if (reminders.isEmpty()) {
+            return;
+        }
+
+        for (ReminderSink sink : sinks) {
+            List<DueDateReminder> undelivered = reminders.stream()
+                .filter(reminder -> !reminder.getDeliveredTo().contains(sink.name()))
+                .toList();
+            if (undelivered.isEmpty()) {
+                continue;
+            }
+            try {
+                sink.deliver(undelivered);
+            } catch (Exception e) {
+                sinkFailures.incrementAndGet();
+                log.error("Reminder sink '{}' failed for {} reminders: {}", sink.name(), undelivered.size(), e.getMessage());
+                continue;
+            }
+            mongoTemplate.updateMulti(
+                new Query(Criteria.where("id").in(undelivered.stream().map(DueDateReminder::getId).toList())),
+                new Update().addToSet("deliveredTo", sink.name()),
+                DueDateReminder.class);
+            undelivered.forEach(reminder -> reminder.getDeliveredTo().add(sink.name()));
+        }
+
+        List<String> sinkNames = sinks.stream().map(ReminderSink::name).toList();
+        List<String> ids = new ArrayList<>(reminders.size());
+        for (DueDateReminder reminder : reminders) {
+            if (reminder.getDeliveredTo().containsAll(sinkNames)) {
+                ids.add(reminder.getId());
+            } else {
+                // Retried in memory; after a restart the rebuild picks it up as overdue
+                handover.add(new Timer(reminder.getId(), System.currentTimeMillis() + retryMs));
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(
+            new Query(Criteria.where("id").in(ids).and("sent").is(false)),
+            new Update().set("sent", true).set("sentAt", LocalDateTime.now()).unset("claimOwner").unset("claimUntil"),
+            DueDateReminder.class);
+        delivered.addAndGet(ids.size());
+        log.debug("Delivered {} reminders, {} left to retry", ids.size(), reminders.size() - ids.size());
+    }
+
+    private long windowMillis() {
+        return TimeUnit.MINUTES.toMillis(windowMinutes);
+    }
+
+    static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
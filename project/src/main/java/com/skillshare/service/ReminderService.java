@@ -0,0 +1,191 @@
+package com.skillshare.service;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import com.skillshare.model.DueDateReminder;
+import com.skillshare.model.LearningPlan;
+import com.skillshare.model.Milestone;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Maintains the {@code due_date_reminders} index from learning plan writes.
+ *
+ * <p>Every plan target date and every milestone target date has one entry,
+ * keyed by plan and milestone id, that becomes due {@code reminder.lead-time}
+ * before the target date. Past dates have none. Entries of completed
+ * milestones are kept, marked {@code completed}, and retired without being
+ * delivered when they come due; reopening the milestone before then clears
+ * the mark and re-arms them. Rewriting an entry with an unchanged reminder
+ * time keeps its sent flag, so editing a plan or reopening a milestone does
+ * not repeat reminders.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReminderService {
+    private final MongoTemplate mongoTemplate;
+    private final ReminderScheduler reminderScheduler;
+
+    @Value("${reminder.lead-time:PT24H}")
+    private Duration leadTime;
+
+    /**
+     * Replaces the reminders of a plan with those implied by its current
+     * target dates.
+     */
+    public void syncPlan(LearningPlan plan) {
+        syncPlans(List.of(plan));
+    }
+
+    /** {@link #syncPlan} for several plans in one bulk write. */
+    public void syncPlans(List<LearningPlan> plans) {
+        if (plans.isEmpty()) {
+            return;
+        }
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        List<DueDateReminder> scheduled = new ArrayList<>();
+        for (LearningPlan plan : plans) {
+            List<DueDateReminder> reminders = remindersFor(plan);
+            reminders.forEach(reminder -> writes.add(upsert(reminder)));
+            writes.add(new DeleteManyModel<>(Filters.and(
+                Filters.eq("plan_id", plan.getId()),
+                Filters.nin("_id", reminders.stream().map(DueDateReminder::getId).toList()))));
+            scheduled.addAll(reminders);
+        }
+        collection().bulkWrite(writes);
+
+        scheduled.forEach(reminderScheduler::schedule);
+    }
+
+    private List<DueDateReminder> remindersFor(LearningPlan plan) {
+        String userId = plan.getUser() != null ? plan.getUser().getId() : null;
+        List<DueDateReminder> reminders = new ArrayList<>();
+
+        DueDateReminder planReminder = reminderFor(plan.getId(), null, userId, plan.getTitle(), plan.getTitle(), plan.getTargetDate());
+        if (planReminder != null) {
+            reminders.add(planReminder);
+        }
+        for (Milestone milestone : plan.getMilestones()) {
+            DueDateReminder reminder = reminderFor(plan.getId(), milestone.getId(), userId,
+                plan.getTitle(), milestone.getTitle(), milestone.getTargetDate());
+            if (reminder != null) {
+                reminder.setCompleted(milestone.isCompleted());
+                reminders.add(reminder);
+            }
+        }
+        return reminders;
+    }
+
+    /**
+     * Re-derives the reminder of one milestone from the stored plan, reading
+     * only the plan title, owner and that milestone.
+     */
+    public void syncMilestone(String planId, String milestoneId) {
+        Document plan = mongoTemplate.getCollection(mongoTemplate.getCollectionName(LearningPlan.class))
+            .find(new Document("_id", toObjectId(planId)))
+            .projection(new Document("title", 1)
+                .append("user", 1)
+                .append("milestones", new Document("$elemMatch", new Document("_id", toObjectId(milestoneId)))))
+            .first();
+        List<Document> milestones = plan != null ? plan.getList("milestones", Document.class) : null;
+        if (milestones == null || milestones.isEmpty()) {
+            cancel(planId, milestoneId);
+            return;
+        }
+
+        Document milestone = milestones.get(0);
+        Date targetDate = milestone.getDate("target_date");
+        DueDateReminder reminder = targetDate == null
+            ? null
+            : reminderFor(planId, milestoneId, userIdOf(plan), plan.getString("title"), milestone.getString("title"),
+                LocalDateTime.ofInstant(targetDate.toInstant(), ZoneId.systemDefault()));
+        if (reminder == null) {
+            cancel(planId, milestoneId);
+            return;
+        }
+        reminder.setCompleted(milestone.getBoolean("completed", false));
+
+        collection().bulkWrite(List.of(upsert(reminder)));
+        reminderScheduler.schedule(reminder);
+    }
+
+    public void cancelPlan(String planId) {
+        collection().deleteMany(Filters.eq("plan_id", planId));
+    }
+
+    private void cancel(String planId, String milestoneId) {
+        collection().deleteOne(Filters.eq("_id", DueDateReminder.idFor(planId, milestoneId)));
+    }
+
+    private DueDateReminder reminderFor(String planId, String milestoneId, String userId, String planTitle,
+                                        String title, LocalDateTime dueAt) {
+        if (dueAt == null || dueAt.isBefore(LocalDateTime.now())) {
+            return null;
+        }
+        DueDateReminder reminder = new DueDateReminder();
+        reminder.setId(DueDateReminder.idFor(planId, milestoneId));
+        reminder.setKind(milestoneId != null ? DueDateReminder.Kind.MILESTONE : DueDateReminder.Kind.PLAN);
+        reminder.setPlanId(planId);
+        reminder.setMilestoneId(milestoneId);
+        reminder.setUserId(userId);
+        reminder.setPlanTitle(planTitle);
+        reminder.setTitle(title);
+        reminder.setDueAt(dueAt);
+        reminder.setRemindAt(dueAt.minus(leadTime));
+        return reminder;
+    }
+
+    private UpdateOneModel<Document> upsert(DueDateReminder reminder) {
+        Date remindAt = toDate(reminder.getRemindAt());
+        // Keep the sent state only if the reminder time did not move
+        Document unchanged = new Document("$eq", List.of("$remind_at", remindAt));
+
+        Document fields = new Document("kind", reminder.getKind().name())
+            .append("plan_id", reminder.getPlanId())
+            .append("milestone_id", reminder.getMilestoneId())
+            .append("user_id", reminder.getUserId())
+            .append("plan_title", new Document("$literal", reminder.getPlanTitle()))
+            .append("title", new Document("$literal", reminder.getTitle()))
+            .append("due_at", toDate(reminder.getDueAt()))
+            .append("remind_at", remindAt)
+            .append("completed", reminder.isCompleted())
+            .append("sent", new Document("$cond", List.of(unchanged, new Document("$ifNull", List.of("$sent", false)), false)))
+            .append("sent_at", new Document("$cond", List.of(unchanged, "$sent_at", null)))
+            .append("delivered_to", new Document("$cond", List.of(unchanged, new Document("$ifNull", List.of("$delivered_to", List.of())), List.of())));
+
+        return new UpdateOneModel<>(Filters.eq("_id", reminder.getId()), List.of(new Document("$set", fields)),
+            new UpdateOptions().upsert(true));
+    }
+
+    private MongoCollection<Document> collection() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(DueDateReminder.class));
+    }
+
+    private String userIdOf(Document plan) {
+        return plan.get("user") instanceof DBRef user ? String.valueOf(user.getId()) : null;
+    }
+
+    private Object toObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    private Date toDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,15 @@
+package com.skillshare.service;
+
+import com.skillshare.model.DueDateReminder;
+
+import java.util.List;
+
+/**
+ * Destination for due-date reminders. Sinks are selected by name through
+ * {@code reminder.sinks} and always receive a whole batch at once.
+ */
+public interface ReminderSink {
+    String name();
+
+    void deliver(List<DueDateReminder> reminders) throws Exception;
+}
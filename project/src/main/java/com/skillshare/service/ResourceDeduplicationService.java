@@ -0,0 +1,120 @@
+package com.skillshare.service;
+
+import com.mongodb.DBRef;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import com.skillshare.model.Resource;
+import com.skillshare.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Backfills {@code normalized_url}/{@code url_hash} on resources created before
+ * URL deduplication existed and collapses the duplicates it finds into the
+ * oldest resource with the same URL, moving their likes across.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResourceDeduplicationService {
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${resource.dedup.batch-size:500}")
+    private int batchSize;
+
+    public record DeduplicationResult(long scanned, long backfilled, long merged, long likesMoved) {
+    }
+
+    public DeduplicationResult collapseDuplicates() {
+        String resourceCollection = mongoTemplate.getCollectionName(Resource.class);
+        MongoCollection<Document> resources = mongoTemplate.getCollection(resourceCollection);
+        MongoCollection<Document> users = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class));
+
+        long scanned = 0;
+        long backfilled = 0;
+        long merged = 0;
+        long likesMoved = 0;
+
+        log.info("Starting resource URL deduplication");
+        try (MongoCursor<Document> cursor = resources.find(Filters.exists("url_hash", false))
+                .projection(Projections.include("url", "likes", "user"))
+                .sort(Sorts.ascending("_id"))
+                .batchSize(batchSize)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                Document resource = cursor.next();
+                scanned++;
+
+                String normalizedUrl = UrlNormalizer.normalize(resource.getString("url"));
+                if (normalizedUrl == null) {
+                    continue;
+                }
+                String urlHash = UrlNormalizer.hash(normalizedUrl);
+
+                Document canonical = findByHash(resources, urlHash);
+                if (canonical == null) {
+                    try {
+                        resources.updateOne(Filters.eq("_id", resource.get("_id")), Updates.combine(
+                            Updates.set("normalized_url", normalizedUrl),
+                            Updates.set("url_hash", urlHash),
+                            Updates.inc("version", 1)));
+                        backfilled++;
+                        continue;
+                    } catch (MongoWriteException e) {
+                        if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                            throw e;
+                        }
+                        canonical = findByHash(resources, urlHash);
+                    }
+                }
+
+                likesMoved += mergeInto(resources, users, resourceCollection, resource, canonical);
+                merged++;
+            }
+        }
+
+        DeduplicationResult result = new DeduplicationResult(scanned, backfilled, merged, likesMoved);
+        log.info("Finished resource URL deduplication: {}", result);
+        return result;
+    }
+
+    private Document findByHash(MongoCollection<Document> resources, String urlHash) {
+        return resources.find(Filters.eq("url_hash", urlHash))
+            .projection(Projections.include("_id"))
+            .first();
+    }
+
+    private int mergeInto(MongoCollection<Document> resources, MongoCollection<Document> users,
+                          String resourceCollection, Document duplicate, Document canonical) {
+        Object duplicateId = duplicate.get("_id");
+        List<Object> likes = duplicate.getList("likes", Object.class, List.of());
+
+        if (!likes.isEmpty()) {
+            resources.updateOne(Filters.eq("_id", canonical.get("_id")), Updates.combine(
+                Updates.addEachToSet("likes", likes),
+                Updates.inc("version", 1)));
+        }
+        if (duplicate.get("user") instanceof DBRef owner) {
+            users.updateOne(Filters.eq("_id", owner.getId()),
+                Updates.combine(
+                    Updates.pull("resources", new DBRef(resourceCollection, duplicateId)),
+                    Updates.inc("version", 1)));
+        }
+        resources.deleteOne(Filters.eq("_id", duplicateId));
+
+        log.debug("Merged duplicate resource {} into {} ({} likes)", duplicateId, canonical.get("_id"), likes.size());
+        return likes.size();
+    }
+}
@@ -0,0 +1,351 @@
+package com.skillshare.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.skillshare.model.ImportBatchReport;
+import com.skillshare.model.Resource;
+import com.skillshare.model.ResourceType;
+import com.skillshare.model.User;
+import com.skillshare.repository.UserRepository;
+import com.skillshare.service.LeaderboardService.ContributionChanged;
+import com.skillshare.service.UserStatsService.Counter;
+import com.skillshare.service.UserStatsService.CounterChanged;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Streams NDJSON or CSV resource catalogues into MongoDB in fixed-size,
+ * unordered bulk inserts, deduplicated by URL hash. Only one batch is held in
+ * memory at a time and the owning {@link User} document is never rewritten;
+ * imported resources are reachable through their {@code user} reference like
+ * any other resource.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResourceImportService {
+    private static final int MAX_FIELD_LENGTH = 2048;
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${resource.import.batch-size:1000}")
+    private int batchSize;
+
+    public enum ImportFormat {
+        NDJSON,
+        CSV
+    }
+
+    public long importResources(InputStream input, ImportFormat format, String userId,
+                                Consumer<ImportBatchReport> progress) throws IOException {
+        User user = userRepository.findById(userId)
+            .orElseThrow(() -> {
+                log.error("User not found with id: {}", userId);
+                return new NoSuchElementException("User not found with id: " + userId);
+            });
+
+        log.info("Starting {} resource import for user {}", format, userId);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, Integer> csvColumns = null;
+
+        List<Row> pending = new ArrayList<>(batchSize);
+        ImportBatchReport report = newReport(1, 1);
+        long totalInserted = 0;
+        long lineNumber = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            if (format == ImportFormat.CSV && csvColumns == null) {
+                csvColumns = parseCsvHeader(line);
+                continue;
+            }
+
+            try {
+                Resource resource = format == ImportFormat.CSV
+                    ? parseCsvRow(line, csvColumns)
+                    : parseJsonRow(line);
+                validate(resource);
+                pending.add(new Row(lineNumber, resource));
+            } catch (IllegalArgumentException | IOException e) {
+                report.setInvalid(report.getInvalid() + 1);
+                report.addError(lineNumber, e.getMessage());
+            }
+            report.setReceived(report.getReceived() + 1);
+            report.setLastLine(lineNumber);
+
+            if (report.getReceived() >= batchSize) {
+                totalInserted += flush(pending, user, report, totalInserted);
+                progress.accept(report);
+                pending.clear();
+                report = newReport(report.getBatch() + 1, lineNumber + 1);
+            }
+        }
+
+        totalInserted += flush(pending, user, report, totalInserted);
+        report.setLast(true);
+        progress.accept(report);
+
+        log.info("Finished resource import for user {}: {} resources inserted", userId, totalInserted);
+        return totalInserted;
+    }
+
+    private ImportBatchReport newReport(int batch, long firstLine) {
+        ImportBatchReport report = new ImportBatchReport();
+        report.setBatch(batch);
+        report.setFirstLine(firstLine);
+        report.setLastLine(firstLine - 1);
+        return report;
+    }
+
+    private int flush(List<Row> rows, User user, ImportBatchReport report, long insertedSoFar) {
+        long start = System.currentTimeMillis();
+        int inserted = 0;
+
+        Map<String, Row> unique = new LinkedHashMap<>();
+        for (Row row : rows) {
+            if (unique.putIfAbsent(row.resource().getUrlHash(), row) != null) {
+                report.setDuplicates(report.getDuplicates() + 1);
+            }
+        }
+
+        if (!unique.isEmpty()) {
+            Set<String> existing = findExistingHashes(unique.keySet());
+            List<Row> toInsert = new ArrayList<>(unique.size());
+            for (Row row : unique.values()) {
+                if (existing.contains(row.resource().getUrlHash())) {
+                    report.setDuplicates(report.getDuplicates() + 1);
+                } else {
+                    row.resource().setUser(user);
+                    row.resource().onCreate();
+                    // Bulk inserts bypass version initialisation
+                    row.resource().setVersion(0L);
+                    toInsert.add(row);
+                }
+            }
+            List<Row> insertedRows = insertUnordered(toInsert, report);
+            inserted = insertedRows.size();
+            eventPublisher.publishEvent(new CounterChanged(user.getId(), Counter.RESOURCES, inserted));
+            insertedRows.stream()
+                .collect(Collectors.groupingBy(row -> row.resource().getSkillCategory(), Collectors.counting()))
+                .forEach((category, count) ->
+                    eventPublisher.publishEvent(new ContributionChanged(user.getId(), category, count, 0)));
+        }
+
+        report.setInserted(inserted);
+        report.setTotalInserted(insertedSoFar + inserted);
+        report.setElapsedMs(System.currentTimeMillis() - start);
+        log.debug("Import batch {} (lines {}-{}): {} inserted, {} duplicates, {} invalid, {} failed",
+            report.getBatch(), report.getFirstLine(), report.getLastLine(), inserted,
+            report.getDuplicates(), report.getInvalid(), report.getFailed());
+        return inserted;
+    }
+
+    private Set<String> findExistingHashes(Set<String> urlHashes) {
+        Query query = new Query(Criteria.where("urlHash").in(urlHashes));
+        query.fields().include("urlHash");
+
+        Set<String> existing = new HashSet<>();
+        mongoTemplate.find(query, Resource.class)
+            .forEach(resource -> existing.add(resource.getUrlHash()));
+        return existing;
+    }
+
+    private List<Row> insertUnordered(List<Row> rows, ImportBatchReport report) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Resource.class);
+        rows.forEach(row -> bulkOps.insert(row.resource()));
+
+        try {
+            bulkOps.execute();
+            return rows;
+        } catch (BulkOperationException e) {
+            Set<Integer> failed = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+                if (error.getCode() == DUPLICATE_KEY_ERROR) {
+                    // Inserted concurrently by another request since the batch lookup
+                    report.setDuplicates(report.getDuplicates() + 1);
+                } else {
+                    report.setFailed(report.getFailed() + 1);
+                    report.addError(rows.get(error.getIndex()).line(), error.getMessage());
+                }
+            }
+            List<Row> inserted = new ArrayList<>(rows.size() - failed.size());
+            for (int i = 0; i < rows.size(); i++) {
+                if (!failed.contains(i)) {
+                    inserted.add(rows.get(i));
+                }
+            }
+            return inserted;
+        }
+    }
+
+    private Resource parseJsonRow(String line) throws IOException {
+        JsonNode node = objectMapper.readTree(line);
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+
+        Resource resource = new Resource();
+        resource.setTitle(text(node, "title"));
+        resource.setDescription(text(node, "description"));
+        resource.setUrl(text(node, "url"));
+        resource.setResourceType(parseType(text(node, "resourceType")));
+        resource.setSkillCategory(text(node, "skillCategory"));
+        return resource;
+    }
+
+    private String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private Map<String, Integer> parseCsvHeader(String line) {
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(line);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("title", "url", "resourcetype", "skillcategory")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private Resource parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsv(line);
+        Resource resource = new Resource();
+        resource.setTitle(column(values, columns, "title"));
+        resource.setDescription(column(values, columns, "description"));
+        resource.setUrl(column(values, columns, "url"));
+        resource.setResourceType(parseType(column(values, columns, "resourcetype")));
+        resource.setSkillCategory(column(values, columns, "skillcategory"));
+        return resource;
+    }
+
+    private String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Splits a single CSV record, honouring double-quoted fields and escaped
+     * quotes. Records spanning several lines are not supported.
+     */
+    private List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private ResourceType parseType(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return ResourceType.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown resource type: " + value);
+        }
+    }
+
+    private void validate(Resource resource) {
+        if (resource.getTitle() == null || resource.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Title is required");
+        }
+        if (resource.getUrl() == null || resource.getUrl().isBlank()) {
+            throw new IllegalArgumentException("URL is required");
+        }
+        if (resource.getResourceType() == null) {
+            throw new IllegalArgumentException("Resource type is required");
+        }
+        if (resource.getSkillCategory() == null || resource.getSkillCategory().isBlank()) {
+            throw new IllegalArgumentException("Skill category is required");
+        }
+        if (resource.getTitle().length() > MAX_FIELD_LENGTH
+                || resource.getUrl().length() > MAX_FIELD_LENGTH
+                || (resource.getDescription() != null && resource.getDescription().length() > MAX_FIELD_LENGTH)) {
+            throw new IllegalArgumentException("Field exceeds " + MAX_FIELD_LENGTH + " characters");
+        }
+
+        String normalizedUrl = UrlNormalizer.normalize(resource.getUrl());
+        if (normalizedUrl == null) {
+            throw new IllegalArgumentException("URL is not valid");
+        }
+        resource.setNormalizedUrl(normalizedUrl);
+        resource.setUrlHash(UrlNormalizer.hash(normalizedUrl));
+    }
+
+    private record Row(long line, Resource resource) {
+    }
+}
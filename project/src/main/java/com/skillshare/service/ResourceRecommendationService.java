@@ -0,0 +1,472 @@
+package com.skillshare.service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import com.skillshare.config.BackgroundThreads;
+import com.skillshare.model.Resource;
+import com.skillshare.model.ResourceRecommendation;
+import com.skillshare.repository.ResourceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Computes "people who liked this also liked" recommendations from
+ * {@code Resource.likes} and keeps the best {@code recommendations.top-k}
+ * neighbours of every liked resource in {@code resource_recommendations}.
+ *
+ * <p>A run reads the likes once into int arrays indexed by dense resource
+ * and user numbers, in both directions (resource to likers and liker to
+ * resources). Each resource's row of the co-like matrix is then counted on a
+ * fork/join pool by walking its likers' other likes into a per-worker dense
+ * counter array; rows are independent, so no partial matrices are built or
+ * merged. Neighbours are ranked by the cosine similarity of the two sets of
+ * likers, which keeps the most popular resources from being everyone's
+ * neighbour. Users with more than {@code recommendations.max-likes-per-user}
+ * likes are left out: their cost grows with the square of their likes and
+ * they say little about which resources belong together.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResourceRecommendationService {
+    private static final int ROWS_PER_TASK = 256;
+
+    private final MongoTemplate mongoTemplate;
+    private final ResourceRepository resourceRepository;
+    private final MeterRegistry meterRegistry;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${recommendations.enabled:true}")
+    private boolean enabled;
+
+    @Value("${recommendations.initial-delay:PT5M}")
+    private Duration initialDelay;
+
+    @Value("${recommendations.interval:PT24H}")
+    private Duration interval;
+
+    @Value("${recommendations.top-k:20}")
+    private int topK;
+
+    @Value("${recommendations.min-co-likes:2}")
+    private int minCoLikes;
+
+    @Value("${recommendations.max-likes-per-user:1000}")
+    private int maxLikesPerUser;
+
+    /** Fork/join parallelism; 0 uses every available processor. */
+    @Value("${recommendations.parallelism:0}")
+    private int parallelism;
+
+    @Value("${recommendations.batch-size:1000}")
+    private int batchSize;
+
+    public record RebuildResult(int resources, int users, long likes, long written, long removed,
+                                long loadMs, long computeMs, long writeMs) {}
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = ExecutorServiceMetrics.monitor(meterRegistry,
+            Executors.newScheduledThreadPool(1, backgroundThreads.named("resource-recommender")), "resource-recommender");
+        scheduler.scheduleWithFixedDelay(this::rebuildQuietly,
+            initialDelay.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * The resources related to {@code resourceId}, best first, or empty if the
+     * resource does not exist. Related resources deleted since the last run
+     * are skipped.
+     */
+    public Optional<List<Resource>> getRelated(String resourceId, int limit) {
+        ResourceRecommendation recommendation = mongoTemplate.findById(resourceId, ResourceRecommendation.class);
+        if (recommendation == null) {
+            return resourceRepository.existsById(resourceId) ? Optional.of(List.of()) : Optional.empty();
+        }
+        List<String> ids = recommendation.getRelated().stream()
+            .limit(limit)
+            .map(ResourceRecommendation.Related::getResourceId)
+            .toList();
+        Map<String, Resource> resources = new HashMap<>();
+        resourceRepository.findAllById(ids).forEach(resource -> resources.put(resource.getId(), resource));
+        return Optional.of(ids.stream().map(resources::get).filter(Objects::nonNull).toList());
+    }
+
+    public RebuildResult rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            LikeGraph graph = loadLikes();
+            long loaded = System.currentTimeMillis();
+
+            Neighbours[] rows = new Neighbours[graph.resourceCount()];
+            ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+            try {
+                pool.invoke(new RowTask(new RowCounter(graph, rows, Math.max(1, topK), minCoLikes), 0, rows.length));
+            } finally {
+                pool.shutdown();
+            }
+            long computed = System.currentTimeMillis();
+
+            long written = write(graph, rows, new Date(start));
+            long removed = collection(ResourceRecommendation.class)
+                .deleteMany(Filters.lt("computed_at", new Date(start)))
+                .getDeletedCount();
+            long finished = System.currentTimeMillis();
+
+            RebuildResult result = new RebuildResult(graph.resourceCount(), graph.userCount(), graph.likeCount(),
+                written, removed, loaded - start, computed - loaded, finished - computed);
+            log.info("Rebuilt resource recommendations: {}", result);
+            return result;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Resource recommendation rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    private LikeGraph loadLikes() {
+        Map<String, Integer> userNumbers = new HashMap<>();
+        List<Object> resourceIds = new ArrayList<>();
+        IntList resourceOffsets = new IntList();
+        IntList likers = new IntList();
+        resourceOffsets.add(0);
+
+        try (MongoCursor<Document> cursor = collection(Resource.class).find(Filters.exists("likes.0"))
+                .projection(Projections.include("likes"))
+                .batchSize(batchSize)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                Document resource = cursor.next();
+                for (Object like : resource.getList("likes", Object.class)) {
+                    String userId = UserStatsService.ownerId(like);
+                    if (userId != null) {
+                        likers.add(userNumbers.computeIfAbsent(userId, id -> userNumbers.size()));
+                    }
+                }
+                resourceIds.add(resource.get("_id"));
+                resourceOffsets.add(likers.size());
+            }
+        }
+        return new LikeGraph(resourceIds, resourceOffsets.toArray(), likers.toArray(), userNumbers.size(), maxLikesPerUser);
+    }
+
+    private long write(LikeGraph graph, Neighbours[] rows, Date computedAt) {
+        MongoCollection<Document> recommendations = collection(ResourceRecommendation.class);
+        List<WriteModel<Document>> batch = new ArrayList<>(batchSize);
+        long written = 0;
+        for (int row = 0; row < rows.length; row++) {
+            Neighbours neighbours = rows[row];
+            if (neighbours == null) {
+                continue;
+            }
+            List<Document> related = new ArrayList<>(neighbours.resources().length);
+            for (int i = 0; i < neighbours.resources().length; i++) {
+                related.add(new Document("resource_id", String.valueOf(graph.resourceIds().get(neighbours.resources()[i])))
+                    .append("score", neighbours.scores()[i])
+                    .append("co_likes", neighbours.coLikes()[i]));
+            }
+            Object id = graph.resourceIds().get(row);
+            batch.add(new ReplaceOneModel<>(Filters.eq("_id", id),
+                new Document("_id", id).append("related", related).append("computed_at", computedAt),
+                new ReplaceOptions().upsert(true)));
+            if (batch.size() >= batchSize) {
+                written += flush(recommendations, batch);
+            }
+        }
+        return written + flush(recommendations, batch);
+    }
+
+    private static int flush(MongoCollection<Document> collection, List<WriteModel<Document>> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int size = batch.size();
+        collection.bulkWrite(batch, new BulkWriteOptions().ordered(false));
+        batch.clear();
+        return size;
+    }
+
+    private MongoCollection<Document> collection(Class<?> entityClass) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass));
+    }
+
+    /**
+     * Likes as compressed adjacency lists: the likers of resource {@code r} are
+     * {@code likers[resourceOffsets[r]..resourceOffsets[r+1])}, and the
+     * resources liked by user {@code u} are
+     * {@code userLikes[userOffsets[u]..userOffsets[u+1])}, in ascending order.
+     * {@code degrees[r]} counts only the likers that are not left out.
+     */
+    private record LikeGraph(List<Object> resourceIds, int[] resourceOffsets, int[] likers,
+                             int[] userOffsets, int[] userLikes, int[] degrees, int maxLikesPerUser) {
+
+        LikeGraph(List<Object> resourceIds, int[] resourceOffsets, int[] likers, int userCount, int maxLikesPerUser) {
+            this(resourceIds, resourceOffsets, likers, new int[userCount + 1], new int[likers.length],
+                new int[resourceIds.size()], maxLikesPerUser);
+            for (int liker : likers) {
+                userOffsets[liker + 1]++;
+            }
+            for (int user = 0; user < userCount; user++) {
+                userOffsets[user + 1] += userOffsets[user];
+            }
+            int[] next = Arrays.copyOf(userOffsets, userCount);
+            for (int resource = 0; resource < resourceIds.size(); resource++) {
+                for (int i = resourceOffsets[resource]; i < resourceOffsets[resource + 1]; i++) {
+                    userLikes[next[likers[i]]++] = resource;
+                    if (counted(likers[i])) {
+                        degrees[resource]++;
+                    }
+                }
+            }
+        }
+
+        boolean counted(int user) {
+            return userOffsets[user + 1] - userOffsets[user] <= maxLikesPerUser;
+        }
+
+        int resourceCount() {
+            return resourceIds.size();
+        }
+
+        int userCount() {
+            return userOffsets.length - 1;
+        }
+
+        long likeCount() {
+            return likers.length;
+        }
+    }
+
+    /** The best neighbours of one resource, by dense resource number, best first. */
+    private record Neighbours(int[] resources, int[] coLikes, double[] scores) {}
+
+    /** Counts rows of the co-like matrix; each worker thread reuses its own counter arrays. */
+    private static final class RowCounter {
+        private final LikeGraph graph;
+        private final Neighbours[] rows;
+        private final int topK;
+        private final int minCoLikes;
+        private final ThreadLocal<int[][]> scratch;
+
+        RowCounter(LikeGraph graph, Neighbours[] rows, int topK, int minCoLikes) {
+            this.graph = graph;
+            this.rows = rows;
+            this.topK = topK;
+            this.minCoLikes = minCoLikes;
+            this.scratch = ThreadLocal.withInitial(() -> new int[][] {
+                new int[graph.resourceCount()], new int[graph.resourceCount()]});
+        }
+
+        void count(int resource) {
+            int[][] arrays = scratch.get();
+            int[] counts = arrays[0];
+            int[] touched = arrays[1];
+            int touchedCount = 0;
+            for (int i = graph.resourceOffsets()[resource]; i < graph.resourceOffsets()[resource + 1]; i++) {
+                int user = graph.likers()[i];
+                if (!graph.counted(user)) {
+                    continue;
+                }
+                for (int j = graph.userOffsets()[user]; j < graph.userOffsets()[user + 1]; j++) {
+                    int other = graph.userLikes()[j];
+                    if (other != resource && counts[other]++ == 0) {
+                        touched[touchedCount++] = other;
+                    }
+                }
+            }
+
+            TopK best = new TopK(topK);
+            for (int i = 0; i < touchedCount; i++) {
+                int other = touched[i];
+                int coLikes = counts[other];
+                counts[other] = 0;
+                if (coLikes >= minCoLikes) {
+                    best.offer(other, coLikes,
+                        coLikes / Math.sqrt((double) graph.degrees()[resource] * graph.degrees()[other]));
+                }
+            }
+            rows[resource] = best.drain();
+        }
+    }
+
+    private static final class RowTask extends RecursiveAction {
+        private final RowCounter counter;
+        private final int from;
+        private final int to;
+
+        RowTask(RowCounter counter, int from, int to) {
+            this.counter = counter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                for (int resource = from; resource < to; resource++) {
+                    counter.count(resource);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RowTask(counter, from, middle), new RowTask(counter, middle, to));
+        }
+    }
+
+    /** Keeps the {@code k} highest scores (ties by co-likes) in a min-heap. */
+    private static final class TopK {
+        private final int[] resources;
+        private final int[] coLikes;
+        private final double[] scores;
+        private int size;
+
+        TopK(int k) {
+            resources = new int[k];
+            coLikes = new int[k];
+            scores = new double[k];
+        }
+
+        void offer(int resource, int co, double score) {
+            if (size < resources.length) {
+                set(size, resource, co, score);
+                siftUp(size++);
+            } else if (lower(0, co, score)) {
+                set(0, resource, co, score);
+                siftDown(0);
+            }
+        }
+
+        Neighbours drain() {
+            if (size == 0) {
+                return null;
+            }
+            int count = size;
+            Neighbours neighbours = new Neighbours(new int[count], new int[count], new double[count]);
+            while (size > 0) {
+                int last = --size;
+                neighbours.resources()[last] = resources[0];
+                neighbours.coLikes()[last] = coLikes[0];
+                neighbours.scores()[last] = scores[0];
+                set(0, resources[last], coLikes[last], scores[last]);
+                siftDown(0);
+            }
+            return neighbours;
+        }
+
+        /** Whether the entry at {@code i} ranks below ({@code co}, {@code score}). */
+        private boolean lower(int i, int co, double score) {
+            return scores[i] < score || (scores[i] == score && coLikes[i] < co);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!lower(i, coLikes[parent], scores[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (lower(child, coLikes[smallest], scores[smallest])) {
+                        smallest = child;
+                    }
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void set(int i, int resource, int co, double score) {
+            resources[i] = resource;
+            coLikes[i] = co;
+            scores[i] = score;
+        }
+
+        private void swap(int a, int b) {
+            int resource = resources[a];
+            int co = coLikes[a];
+            double score = scores[a];
+            set(a, resources[b], coLikes[b], scores[b]);
+            set(b, resource, co, score);
+        }
+    }
+
+    /** A growable {@code int[]}. */
+    private static final class IntList {
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
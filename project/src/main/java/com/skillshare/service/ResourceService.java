@@ -1,17 +1,35 @@
 package com.skillshare.service;
 
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.skillshare.exception.DuplicateResourceException;
 import com.skillshare.model.Resource;
 import com.skillshare.model.User;
 import com.skillshare.model.ResourceType;
 import com.skillshare.repository.ResourceRepository;
 import com.skillshare.repository.UserRepository;
+import com.skillshare.service.LeaderboardService.ContributionChanged;
+import com.skillshare.service.LiveCounterService.CountsChanged;
+import com.skillshare.service.LiveCounterService.Item;
+import com.skillshare.service.NotificationService.Activity;
+import com.skillshare.service.UserStatsService.Counter;
+import com.skillshare.service.UserStatsService.CounterChanged;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 
 @Slf4j
 @Service
@@ -19,6 +37,8 @@ import java.util.NoSuchElementException;
 public class ResourceService {
     private final ResourceRepository resourceRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MongoTemplate mongoTemplate;
 
     public Page<Resource> getAllResources(Pageable pageable) {
         log.debug("Fetching all resources with pageable: {}", pageable);
@@ -68,15 +88,20 @@ public class ResourceService {
                 return new NoSuchElementException("User not found with id: " + userId);
             });
         
+        applyCanonicalUrl(resource);
+        ensureNotDuplicate(resource);
+
         resource.setUser(user);
         resource.onCreate();
-        Resource savedResource = resourceRepository.save(resource);
+        Resource savedResource = saveCanonical(resource);
         log.debug("Created resource: {}", savedResource);
         
         // Update user's resources
         user.getResources().add(savedResource);
         userRepository.save(user);
         log.debug("Updated user's resources list");
+        eventPublisher.publishEvent(new CounterChanged(userId, Counter.RESOURCES, 1));
+        eventPublisher.publishEvent(new ContributionChanged(userId, savedResource.getSkillCategory(), 1, 0));
         
         return savedResource;
     }
@@ -85,16 +110,25 @@ public class ResourceService {
     public Resource updateResource(String id, Resource resourceDetails) {
         log.debug("Updating resource {}: {}", id, resourceDetails);
         Resource resource = getResourceById(id);
+        String previousCategory = resource.getSkillCategory();
         
         resource.setTitle(resourceDetails.getTitle());
         resource.setDescription(resourceDetails.getDescription());
         resource.setUrl(resourceDetails.getUrl());
         resource.setResourceType(resourceDetails.getResourceType());
         resource.setSkillCategory(resourceDetails.getSkillCategory());
+        applyCanonicalUrl(resource);
+        ensureNotDuplicate(resource);
         resource.onUpdate();
         
-        Resource updatedResource = resourceRepository.save(resource);
+        Resource updatedResource = saveCanonical(resource);
         log.debug("Updated resource: {}", updatedResource);
+        if (!Objects.equals(LeaderboardService.normalizeCategory(previousCategory),
+                LeaderboardService.normalizeCategory(updatedResource.getSkillCategory()))) {
+            int likes = updatedResource.getLikes().size();
+            eventPublisher.publishEvent(new ContributionChanged(ownerId(updatedResource), previousCategory, -1, -likes));
+            eventPublisher.publishEvent(new ContributionChanged(ownerId(updatedResource), updatedResource.getSkillCategory(), 1, likes));
+        }
         return updatedResource;
     }
 
@@ -112,36 +146,103 @@ public class ResourceService {
         }
         
         resourceRepository.delete(resource);
+        // Ends the live counter streams of the resource
+        eventPublisher.publishEvent(new CountsChanged(Item.RESOURCE, id));
         log.debug("Deleted resource: {}", id);
+        eventPublisher.publishEvent(new CounterChanged(ownerId(resource), Counter.RESOURCES, -1));
+        eventPublisher.publishEvent(new CounterChanged(ownerId(resource), Counter.LIKES_RECEIVED, -resource.getLikes().size()));
+        eventPublisher.publishEvent(new ContributionChanged(ownerId(resource), resource.getSkillCategory(),
+            -1, -resource.getLikes().size()));
     }
 
     public Page<Resource> getUserResources(String userId, Pageable pageable) {
         log.debug("Fetching resources for user: {} with pageable: {}", userId, pageable);
-        Page<Resource> resources = resourceRepository.findByUserId(userId, pageable);
+        // Matched on the whole DBRef, like posts and plans, so the user index applies
+        User owner = new User();
+        owner.setId(userId);
+        Page<Resource> resources = resourceRepository.findByUser(owner, pageable);
         log.debug("Found {} resources for user: {}", resources.getTotalElements(), userId);
         return resources;
     }
 
+    /**
+     * Likes the resource, or takes the like back if the user already likes it.
+     * The like is added or removed with a conditional {@code $addToSet} or
+     * {@code $pull} instead of saving the resource, so users liking it at the
+     * same time never conflict on its version; the version is still bumped,
+     * so an edit based on an earlier read cannot save over the like.
+     */
     @Transactional
     public Resource toggleLike(String resourceId, String userId) {
         log.debug("Toggling like on resource {} for user {}", resourceId, userId);
         Resource resource = getResourceById(resourceId);
-        User user = userRepository.findById(userId)
+        User user = userRepository.findNameById(userId)
             .orElseThrow(() -> {
                 log.error("User not found with id: {}", userId);
                 return new NoSuchElementException("User not found with id: " + userId);
             });
 
-        if (resource.getLikes().contains(user)) {
-            resource.getLikes().remove(user);
-            log.debug("Removed like from resource {} by user {}", resourceId, userId);
-        } else {
-            resource.getLikes().add(user);
-            log.debug("Added like to resource {} by user {}", resourceId, userId);
+        MongoCollection<Document> resources = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Resource.class));
+        Object id = ObjectId.isValid(resourceId) ? new ObjectId(resourceId) : resourceId;
+        DBRef like = new DBRef(mongoTemplate.getCollectionName(User.class), ObjectId.isValid(userId) ? new ObjectId(userId) : userId);
+        long delta = 0;
+        // Neither matches only if the same user's toggle ran in between; try again from its result
+        for (int attempt = 0; attempt < 3 && delta == 0; attempt++) {
+            if (resources.updateOne(Filters.and(Filters.eq("_id", id), Filters.ne("likes", like)),
+                    Updates.combine(Updates.addToSet("likes", like), Updates.inc("version", 1))).getModifiedCount() > 0) {
+                delta = 1;
+                log.debug("Added like to resource {} by user {}", resourceId, userId);
+            } else if (resources.updateOne(Filters.and(Filters.eq("_id", id), Filters.eq("likes", like)),
+                    Updates.combine(Updates.pull("likes", like), Updates.inc("version", 1))).getModifiedCount() > 0) {
+                delta = -1;
+                log.debug("Removed like from resource {} by user {}", resourceId, userId);
+            }
+        }
+        if (delta == 0) {
+            throw new OptimisticLockingFailureException("Like of resource " + resourceId + " is being toggled concurrently");
         }
 
-        Resource updatedResource = resourceRepository.save(resource);
+        Resource updatedResource = getResourceById(resourceId);
         log.debug("Updated resource likes: {}", updatedResource);
+        eventPublisher.publishEvent(new CounterChanged(ownerId(resource), Counter.LIKES_RECEIVED, delta));
+        eventPublisher.publishEvent(new ContributionChanged(ownerId(resource), resource.getSkillCategory(), 0, delta));
+        eventPublisher.publishEvent(new CountsChanged(Item.RESOURCE, resourceId));
+        if (delta > 0) {
+            eventPublisher.publishEvent(new Activity(ownerId(resource), NotificationService.Type.RESOURCE_LIKED,
+                resourceId, userId, user.getName()));
+        }
         return updatedResource;
     }
+
+    private static String ownerId(Resource resource) {
+        return resource.getUser() != null ? resource.getUser().getId() : null;
+    }
+
+    private void applyCanonicalUrl(Resource resource) {
+        resource.setNormalizedUrl(UrlNormalizer.normalize(resource.getUrl()));
+        resource.setUrlHash(UrlNormalizer.hash(resource.getNormalizedUrl()));
+    }
+
+    private void ensureNotDuplicate(Resource resource) {
+        if (resource.getUrlHash() == null) {
+            return;
+        }
+        resourceRepository.findByUrlHash(resource.getUrlHash())
+            .filter(existing -> !existing.getId().equals(resource.getId()))
+            .ifPresent(existing -> {
+                log.debug("Resource URL {} duplicates canonical resource {}", resource.getUrl(), existing.getId());
+                throw new DuplicateResourceException(existing);
+            });
+    }
+
+    private Resource saveCanonical(Resource resource) {
+        try {
+            return resourceRepository.save(resource);
+        } catch (DuplicateKeyException e) {
+            // Lost a race with a concurrent submission of the same URL
+            Resource existing = resourceRepository.findByUrlHash(resource.getUrlHash())
+                .orElseThrow(() -> e);
+            throw new DuplicateResourceException(existing);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.skillshare.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.skillshare.model.ResourceDTO;
+import com.skillshare.repository.PostRepository;
+import com.skillshare.repository.ResourceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes a page of real posts or resources in every format the API can
+ * produce and reports the payload size and the CPU time per serialization.
+ * Each format is warmed up with as many untimed rounds as timed ones.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SerializationBenchmarkService {
+    private final PostRepository postRepository;
+    private final ResourceRepository resourceRepository;
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2SmileHttpMessageConverter smileConverter;
+    private final MappingJackson2CborHttpMessageConverter cborConverter;
+
+    public enum Sample {
+        POSTS,
+        RESOURCES
+    }
+
+    public record FormatResult(String format, int bytes, double cpuMicrosPerOp) {}
+
+    public record Report(Sample sample, int items, int iterations, boolean blackbird, List<FormatResult> formats) {}
+
+    public Report run(Sample sample, int size, int iterations) throws IOException {
+        List<?> items = switch (sample) {
+            case POSTS -> postRepository.findAll(PageRequest.of(0, size)).getContent();
+            case RESOURCES -> resourceRepository.findAll(PageRequest.of(0, size))
+                .map(resource -> ResourceDTO.fromResource(resource, null))
+                .getContent();
+        };
+
+        Map<String, ObjectWriter> writers = new LinkedHashMap<>();
+        writers.put("json-indented", objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT));
+        writers.put("json", objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT));
+        writers.put("smile", smileConverter.getObjectMapper().writer());
+        writers.put("cbor", cborConverter.getObjectMapper().writer());
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        List<FormatResult> results = new ArrayList<>();
+        for (Map.Entry<String, ObjectWriter> entry : writers.entrySet()) {
+            ObjectWriter writer = entry.getValue();
+            int bytes = writer.writeValueAsBytes(items).length;
+            for (int i = 0; i < iterations; i++) {
+                writer.writeValueAsBytes(items);
+            }
+            long start = cpuTime(threads);
+            for (int i = 0; i < iterations; i++) {
+                writer.writeValueAsBytes(items);
+            }
+            double micros = (cpuTime(threads) - start) / 1000.0 / iterations;
+            results.add(new FormatResult(entry.getKey(), bytes, micros));
+        }
+
+        boolean blackbird = objectMapper.getRegisteredModuleIds().contains(new BlackbirdModule().getTypeId());
+        log.info("Serialization benchmark of {} {} x{} (blackbird={}): {}", items.size(), sample, iterations, blackbird, results);
+        return new Report(sample, items.size(), iterations, blackbird, results);
+    }
+
+    private static long cpuTime(ThreadMXBean threads) {
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
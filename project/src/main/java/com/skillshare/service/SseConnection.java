@@ -0,0 +1,183 @@
+package com.skillshare.service;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A server-sent event response written with non-blocking servlet I/O.
+ *
+ * <p>The owner keeps its own queue of encoded frames and calls {@link #wake()}
+ * after adding to it. Frames are taken from the queue only while the
+ * container reports the connection writable, so a client that stops reading
+ * never blocks a thread: its frames stay queued, where the owner can bound or
+ * replace them, and writing resumes when the container calls
+ * {@link #onWritePossible()}. Whichever thread wakes the connection writes,
+ * one at a time, without taking a lock.
+ */
+@Slf4j
+final class SseConnection implements WriteListener, AsyncListener {
+    static final byte[] HEARTBEAT = ":keepalive\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream output;
+    private final Supplier<byte[]> frames;
+    private final Runnable onClose;
+    // Wake-ups not yet handled; the thread that raises it from zero writes until it is back to zero
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicBoolean released = new AtomicBoolean();
+    private volatile boolean listening;
+    private volatile boolean closing;
+    private volatile boolean finishing;
+    // Only accessed by the writing thread
+    private boolean unflushed;
+    private boolean completed;
+
+    private SseConnection(AsyncContext asyncContext, ServletOutputStream output,
+                          Supplier<byte[]> frames, Runnable onClose) {
+        this.asyncContext = asyncContext;
+        this.output = output;
+        this.frames = frames;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Starts an event stream on the request. {@code frames} returns the next
+     * frame to write or {@code null}; {@code onClose} runs once when the
+     * stream ends for any reason.
+     */
+    static SseConnection open(HttpServletRequest request, HttpServletResponse response, Duration timeout,
+                              Supplier<byte[]> frames, Runnable onClose) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(timeout.toMillis());
+        SseConnection connection = new SseConnection(asyncContext, response.getOutputStream(), frames, onClose);
+        asyncContext.addListener(connection);
+        connection.output.setWriteListener(connection);
+        connection.listening = true;
+        connection.wake();
+        return connection;
+    }
+
+    /** Writes queued frames if the connection can take them now. */
+    void wake() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            drain();
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    boolean isClosed() {
+        return released.get();
+    }
+
+    /** Ends the stream, dropping frames that were not written yet. */
+    void close() {
+        closing = true;
+        wake();
+    }
+
+    /** Ends the stream once the queued frames have been written. */
+    void finish() {
+        finishing = true;
+        wake();
+    }
+
+    @Override
+    public void onWritePossible() {
+        wake();
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        log.debug("Event stream write failed: {}", error.getMessage());
+        close();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        closing = true;
+        release();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    private void drain() {
+        if (!listening || completed) {
+            return;
+        }
+        if (closing) {
+            complete();
+            return;
+        }
+        try {
+            while (output.isReady()) {
+                byte[] frame = frames.get();
+                if (frame != null) {
+                    output.write(frame);
+                    unflushed = true;
+                } else if (unflushed) {
+                    unflushed = false;
+                    output.flush();
+                } else {
+                    if (finishing) {
+                        complete();
+                    }
+                    return;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Event stream closed: {}", e.getMessage());
+            complete();
+        }
+    }
+
+    private void complete() {
+        completed = true;
+        release();
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            // Already completed by the container
+        }
+    }
+
+    private void release() {
+        if (released.compareAndSet(false, true)) {
+            onClose.run();
+        }
+    }
+}
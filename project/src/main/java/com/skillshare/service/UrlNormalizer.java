@@ -0,0 +1,107 @@
+package com.skillshare.service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Canonicalizes resource URLs so that the same article or video submitted with
+ * cosmetic differences (scheme, "www.", tracking parameters, trailing slash,
+ * parameter order) maps to a single key.
+ */
+public final class UrlNormalizer {
+
+    private UrlNormalizer() {
+    }
+
+    public static String normalize(String url) {
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+
+        String trimmed = url.trim();
+        if (!trimmed.contains("://")) {
+            trimmed = "https://" + trimmed;
+        }
+
+        try {
+            URI uri = new URI(trimmed);
+            String host = uri.getHost();
+            if (host == null) {
+                return trimmed.toLowerCase(Locale.ROOT);
+            }
+
+            host = host.toLowerCase(Locale.ROOT);
+            if (host.startsWith("www.")) {
+                host = host.substring(4);
+            }
+
+            StringBuilder normalized = new StringBuilder(host);
+            int port = uri.getPort();
+            if (port != -1 && port != 80 && port != 443) {
+                normalized.append(':').append(port);
+            }
+
+            String path = uri.getRawPath();
+            if (path != null && !path.isEmpty() && !path.equals("/")) {
+                normalized.append(path.endsWith("/") ? path.substring(0, path.length() - 1) : path);
+            }
+
+            String query = normalizeQuery(uri.getRawQuery());
+            if (!query.isEmpty()) {
+                normalized.append('?').append(query);
+            }
+
+            return normalized.toString();
+        } catch (URISyntaxException e) {
+            return trimmed.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Returns a fixed-length key for a normalized URL, suitable for a unique index.
+     */
+    public static String hash(String normalizedUrl) {
+        if (normalizedUrl == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(normalizedUrl.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String normalizeQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+
+        List<String> params = new ArrayList<>();
+        for (String param : rawQuery.split("&")) {
+            if (param.isEmpty() || isTrackingParam(param)) {
+                continue;
+            }
+            params.add(param);
+        }
+        params.sort(null);
+        return String.join("&", params);
+    }
+
+    private static boolean isTrackingParam(String param) {
+        String name = param.split("=", 2)[0].toLowerCase(Locale.ROOT);
+        return name.startsWith("utm_")
+            || name.equals("fbclid")
+            || name.equals("gclid")
+            || name.equals("ref")
+            || name.equals("si");
+    }
+}
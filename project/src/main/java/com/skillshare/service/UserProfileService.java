@@ -0,0 +1,109 @@
+package com.skillshare.service;
+
+import com.mongodb.DBRef;
+import com.skillshare.model.MediaVariant;
+import com.skillshare.model.User;
+import com.skillshare.model.UserProfile;
+import com.skillshare.model.UserStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Builds a {@link UserProfile} with one aggregation on {@code users}, so a
+ * profile costs a single round-trip and returns one small document.
+ *
+ * <p>The first stage after the match keeps only the profile fields and
+ * replaces the {@code followers} and {@code following} arrays with their
+ * sizes, so the arrays go no further than the document the server reads
+ * from storage. Counts come from the user's {@code user_stats} document,
+ * joined by id and maintained as activity happens; the follow counts fall
+ * back to those sizes for a user whose stats have not been written yet.
+ * Whether the caller follows the user is answered from the caller's own
+ * {@code following} array, looked up by email.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserProfileService {
+    private final MongoTemplate mongoTemplate;
+
+    public Optional<UserProfile> getProfile(String userId, String callerEmail) {
+        if (!ObjectId.isValid(userId)) {
+            return Optional.empty();
+        }
+        ObjectId id = new ObjectId(userId);
+        DBRef ref = new DBRef(mongoTemplate.getCollectionName(User.class), id);
+
+        List<Document> pipeline = List.of(
+            new Document("$match", new Document("_id", id)),
+            new Document("$project", new Document("name", 1)
+                .append("email", 1)
+                .append("profile_picture", 1)
+                .append("profile_picture_variants", 1)
+                .append("bio", 1)
+                .append("location", 1)
+                .append("occupation", 1)
+                .append("website", 1)
+                .append("join_date", 1)
+                .append("followers_size", size("followers"))
+                .append("following_size", size("following"))),
+            new Document("$lookup", new Document("from", mongoTemplate.getCollectionName(UserStats.class))
+                .append("localField", "_id")
+                .append("foreignField", "_id")
+                .append("as", "stats")),
+            new Document("$lookup", new Document("from", mongoTemplate.getCollectionName(User.class))
+                .append("pipeline", List.of(
+                    new Document("$match", new Document("email", callerEmail).append("following", ref)),
+                    new Document("$project", new Document("_id", 1))))
+                .append("as", "caller")),
+            new Document("$project", new Document("name", 1)
+                .append("email", 1)
+                .append("profilePicture", "$profile_picture")
+                .append("profilePictureThumbnail", avatar())
+                .append("bio", 1)
+                .append("location", 1)
+                .append("occupation", 1)
+                .append("website", 1)
+                .append("joinDate", "$join_date")
+                .append("postCount", stat("posts"))
+                .append("resourceCount", stat("resources"))
+                .append("learningPlanCount", stat("plans"))
+                .append("plansCompleted", stat("plans_completed"))
+                .append("likesReceived", stat("likes_received"))
+                .append("followersCount", stat("followers", "$followers_size"))
+                .append("followingCount", stat("following", "$following_size"))
+                .append("isFollowing", new Document("$gt", List.of(new Document("$size", "$caller"), 0)))));
+
+        Document profile = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+            .aggregate(pipeline)
+            .first();
+        return Optional.ofNullable(profile).map(doc -> mongoTemplate.getConverter().read(UserProfile.class, doc));
+    }
+
+    /** The narrowest profile picture variant wide enough for an avatar, else the picture itself. */
+    private static Document avatar() {
+        Document wideEnough = new Document("$filter", new Document("input", new Document("$ifNull", List.of("$profile_picture_variants", List.of())))
+            .append("cond", new Document("$gte", List.of("$$this.width", MediaVariant.AVATAR_WIDTH))));
+        Document urls = new Document("$map", new Document("input", wideEnough).append("in", "$$this.url"));
+        return new Document("$ifNull", List.of(new Document("$arrayElemAt", List.of(urls, 0)), "$profile_picture"));
+    }
+
+    private static Document stat(String field) {
+        return stat(field, 0);
+    }
+
+    private static Document stat(String field, Object fallback) {
+        return new Document("$ifNull", List.of(new Document("$arrayElemAt", List.of("$stats." + field, 0)), fallback));
+    }
+
+    private static Document size(String array) {
+        return new Document("$size", new Document("$ifNull", List.of("$" + array, List.of())));
+    }
+}
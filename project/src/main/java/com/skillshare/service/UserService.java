@@ -1,12 +1,27 @@
 package com.skillshare.service;
 
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.skillshare.model.MediaVariant;
 import com.skillshare.model.User;
 import com.skillshare.repository.UserRepository;
 import com.skillshare.exception.UserExistsException;
+import com.skillshare.service.UserStatsService.Counter;
+import com.skillshare.service.NotificationService.Activity;
+import com.skillshare.service.UserStatsService.CounterChanged;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -15,6 +30,8 @@ import java.util.Optional;
 public class UserService {
     private final UserRepository userRepository;
     private final PasswordService passwordService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MongoTemplate mongoTemplate;
 
     @Transactional
     public User createUser(User user) {
@@ -45,6 +62,18 @@ public class UserService {
         return userRepository.findByEmail(email);
     }
 
+    /** Id of the user with this email (the authentication name), without loading the user. */
+    @Transactional(readOnly = true)
+    public Optional<String> getUserIdByEmail(String email) {
+        return userRepository.findIdByEmail(email).map(User::getId);
+    }
+
+    /** The user with only its id and name loaded, to check it exists without loading its follow lists. */
+    @Transactional(readOnly = true)
+    public Optional<User> getUserNameById(String id) {
+        return userRepository.findNameById(id);
+    }
+
     @Transactional(readOnly = true)
     public Optional<User> getUserById(String id) {
         log.debug("Fetching user by ID: {}", id);
@@ -63,8 +92,11 @@ public class UserService {
                 if (updatedUser.getBio() != null) {
                     user.setBio(updatedUser.getBio());
                 }
-                if (updatedUser.getProfilePicture() != null) {
+                if (updatedUser.getProfilePicture() != null
+                        && !Objects.equals(updatedUser.getProfilePicture(), user.getProfilePicture())) {
+                    // Variants belong to the previous picture
                     user.setProfilePicture(updatedUser.getProfilePicture());
+                    user.setProfilePictureVariants(new ArrayList<>());
                 }
                 if (updatedUser.getLocation() != null) {
                     user.setLocation(updatedUser.getLocation());
@@ -83,6 +115,15 @@ public class UserService {
             .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
     }
 
+    @Transactional
+    public User setProfilePicture(User user, String url, List<MediaVariant> variants) {
+        user.setProfilePicture(url);
+        user.setProfilePictureVariants(new ArrayList<>(variants));
+        User savedUser = userRepository.save(user);
+        log.debug("Profile picture of {} set to {}", savedUser.getEmail(), url);
+        return savedUser;
+    }
+
     @Transactional
     public User updatePassword(String userId, String currentPassword, String newPassword) {
         log.debug("Updating password for user with ID: {}", userId);
@@ -110,6 +151,13 @@ public class UserService {
         });
     }
 
+    /**
+     * Follows the target user, or unfollows them if already following. Both
+     * users are changed with a conditional {@code $addToSet} or {@code $pull}
+     * rather than saved, so follows of the same user at the same time never
+     * conflict on its version; the versions are still bumped, so a profile
+     * edit based on an earlier read cannot save over the follow.
+     */
     @Transactional
     public User toggleFollowUser(String userId, String targetUserId) {
         log.debug("Toggling follow for user {} -> {}", userId, targetUserId);
@@ -118,29 +166,49 @@ public class UserService {
             throw new RuntimeException("Users cannot follow themselves");
         }
 
-        User currentUser = userRepository.findById(userId)
+        User currentUser = userRepository.findNameById(userId)
             .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-            
-        User targetUser = userRepository.findById(targetUserId)
+        userRepository.findNameById(targetUserId)
             .orElseThrow(() -> new RuntimeException("User not found with id: " + targetUserId));
 
-        // Check if currentUser is already following targetUser
-        boolean isAlreadyFollowing = currentUser.getFollowing().stream()
-            .anyMatch(user -> user.getId().equals(targetUserId));
+        MongoCollection<Document> users = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class));
+        Object id = toId(userId);
+        Object targetId = toId(targetUserId);
+        DBRef following = userRef(targetId);
+        DBRef follower = userRef(id);
 
-        if (isAlreadyFollowing) {
-            // Remove the relationship if already following
-            currentUser.getFollowing().removeIf(user -> user.getId().equals(targetUserId));
-            targetUser.getFollowers().removeIf(user -> user.getId().equals(userId));
-            log.debug("User {} unfollowed {}", userId, targetUserId);
-        } else {
-            // Add the relationship if not following
-            currentUser.getFollowing().add(targetUser);
-            targetUser.getFollowers().add(currentUser);
+        long delta = 0;
+        if (users.updateOne(Filters.and(Filters.eq("_id", id), Filters.ne("following", following)),
+                Updates.combine(Updates.addToSet("following", following), Updates.inc("version", 1))).getModifiedCount() > 0) {
+            users.updateOne(Filters.eq("_id", targetId),
+                Updates.combine(Updates.addToSet("followers", follower), Updates.inc("version", 1)));
+            delta = 1;
             log.debug("User {} followed {}", userId, targetUserId);
+        } else if (users.updateOne(Filters.and(Filters.eq("_id", id), Filters.eq("following", following)),
+                Updates.combine(Updates.pull("following", following), Updates.inc("version", 1))).getModifiedCount() > 0) {
+            users.updateOne(Filters.eq("_id", targetId),
+                Updates.combine(Updates.pull("followers", follower), Updates.inc("version", 1)));
+            delta = -1;
+            log.debug("User {} unfollowed {}", userId, targetUserId);
+        }
+
+        if (delta != 0) {
+            eventPublisher.publishEvent(new CounterChanged(userId, Counter.FOLLOWING, delta));
+            eventPublisher.publishEvent(new CounterChanged(targetUserId, Counter.FOLLOWERS, delta));
+        }
+        if (delta > 0) {
+            eventPublisher.publishEvent(new Activity(targetUserId, NotificationService.Type.FOLLOWED,
+                userId, userId, currentUser.getName()));
         }
+        return userRepository.findById(userId)
+            .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+    }
+
+    private DBRef userRef(Object id) {
+        return new DBRef(mongoTemplate.getCollectionName(User.class), id);
+    }
 
-        userRepository.save(targetUser);
-        return userRepository.save(currentUser);
+    private static Object toId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
     }
 }
\ No newline at end of file
@@ -0,0 +1,303 @@
+package com.skillshare.service;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCollection;
+import com.skillshare.config.BackgroundThreads;
+import com.skillshare.model.LearningPlan;
+import com.skillshare.model.Post;
+import com.skillshare.model.Resource;
+import com.skillshare.model.User;
+import com.skillshare.model.UserStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains the {@code user_stats} read model, so a user's counters are read
+ * with one key lookup instead of loading their posts, resources, plans and
+ * followers.
+ *
+ * <p>The services that change those collections publish {@link CounterChanged}
+ * and {@link PlansChanged} events, which are applied here as {@code $inc}
+ * upserts; plan counts are recounted for the owner because completion depends
+ * on the stored progress of each plan, which for clones the plan service
+ * recomputes against the template, in the background when the template changes. Writes that are not published
+ * individually (deduplication merges) and any drift are
+ * repaired by {@link #reconcile()}, which runs every
+ * {@code user-stats.reconcile.interval} and recomputes the counters of
+ * {@code user-stats.reconcile.batch-size} users per round of aggregations,
+ * rewriting only the ones that differ.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserStatsService {
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${user-stats.reconcile.enabled:true}")
+    private boolean reconcileEnabled;
+
+    @Value("${user-stats.reconcile.initial-delay:PT1M}")
+    private Duration initialDelay;
+
+    @Value("${user-stats.reconcile.interval:PT6H}")
+    private Duration interval;
+
+    @Value("${user-stats.reconcile.batch-size:500}")
+    private int batchSize;
+
+    public enum Counter {
+        POSTS("posts"),
+        RESOURCES("resources"),
+        LIKES_RECEIVED("likesReceived"),
+        FOLLOWERS("followers"),
+        FOLLOWING("following");
+
+        private final String property;
+
+        Counter(String property) {
+            this.property = property;
+        }
+    }
+
+    /** A counter of {@code userId} changed by {@code delta}. */
+    public record CounterChanged(String userId, Counter counter, long delta) {}
+
+    /** A plan of {@code userId} was created, deleted or changed progress. */
+    public record PlansChanged(String userId) {}
+
+    public record ReconcileResult(long scanned, long repaired, long durationMs) {}
+
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+    private ScheduledExecutorService reconciler;
+
+    @PostConstruct
+    void start() {
+        if (!reconcileEnabled) {
+            return;
+        }
+        reconciler = ExecutorServiceMetrics.monitor(meterRegistry,
+            Executors.newScheduledThreadPool(1, backgroundThreads.named("user-stats-reconciler")), "user-stats-reconciler");
+        reconciler.scheduleWithFixedDelay(this::reconcileQuietly,
+            initialDelay.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+
+    public Optional<UserStats> getStats(String userId) {
+        return Optional.ofNullable(mongoTemplate.findById(userId, UserStats.class));
+    }
+
+    @EventListener
+    public void onCounterChanged(CounterChanged event) {
+        if (event.userId() == null || event.delta() == 0) {
+            return;
+        }
+        mongoTemplate.upsert(byUser(event.userId()),
+            new Update().inc(event.counter().property, event.delta()).set("updatedAt", LocalDateTime.now()),
+            UserStats.class);
+    }
+
+    @EventListener
+    public void onPlansChanged(PlansChanged event) {
+        if (event.userId() == null || !ObjectId.isValid(event.userId())) {
+            return;
+        }
+        ObjectId id = new ObjectId(event.userId());
+        Document plans = countPlans(List.of(userRef(id))).get(id.toHexString());
+        mongoTemplate.upsert(byUser(event.userId()),
+            new Update().set("plans", number(plans, "count"))
+                .set("plansCompleted", number(plans, "completed"))
+                .set("updatedAt", LocalDateTime.now()),
+            UserStats.class);
+    }
+
+    /**
+     * Recomputes every user's counters in batches of users ordered by id and
+     * rewrites those that drifted. Increments landing while a batch is being
+     * recomputed may be overwritten and are corrected by the next run.
+     */
+    public ReconcileResult reconcile() {
+        reconcileLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            MongoCollection<Document> users = collection(User.class);
+            long scanned = 0;
+            long repaired = 0;
+            Object lastId = null;
+            while (true) {
+                Document match = lastId == null ? new Document() : new Document("_id", new Document("$gt", lastId));
+                List<Document> batch = users.aggregate(List.of(
+                        new Document("$match", match),
+                        new Document("$sort", new Document("_id", 1)),
+                        new Document("$limit", batchSize),
+                        new Document("$project", new Document("followers", size("followers"))
+                            .append("following", size("following")))))
+                    .into(new ArrayList<>());
+                if (batch.isEmpty()) {
+                    break;
+                }
+                repaired += reconcileBatch(batch);
+                scanned += batch.size();
+                lastId = batch.get(batch.size() - 1).get("_id");
+            }
+            long duration = System.currentTimeMillis() - start;
+            log.info("Reconciled user stats: {} users, {} repaired in {}ms", scanned, repaired, duration);
+            return new ReconcileResult(scanned, repaired, duration);
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("User stats reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    private int reconcileBatch(List<Document> users) {
+        List<Object> ids = users.stream().map(user -> user.get("_id")).toList();
+        List<DBRef> refs = ids.stream().map(this::userRef).toList();
+
+        Document postAndLikeCounts = new Document("count", new Document("$sum", 1))
+            .append("likes", new Document("$sum", size("likes")));
+        Map<String, Document> posts = countByOwner(Post.class,
+            new Document("user", new Document("$in", refs)), postAndLikeCounts);
+        Map<String, Document> resources = countByOwner(Resource.class,
+            new Document("user", new Document("$in", refs)), postAndLikeCounts);
+        Map<String, Document> plans = countPlans(refs);
+
+        Map<String, UserStats> stored = new HashMap<>();
+        Query storedQuery = new Query(Criteria.where("userId").in(ids.stream().map(String::valueOf).toList()));
+        mongoTemplate.find(storedQuery, UserStats.class).forEach(stats -> stored.put(stats.getUserId(), stats));
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserStats.class);
+        int repaired = 0;
+        for (Document user : users) {
+            String userId = String.valueOf(user.get("_id"));
+            UserStats actual = new UserStats();
+            actual.setPosts(number(posts.get(userId), "count"));
+            actual.setResources(number(resources.get(userId), "count"));
+            actual.setLikesReceived(number(posts.get(userId), "likes") + number(resources.get(userId), "likes"));
+            actual.setPlans(number(plans.get(userId), "count"));
+            actual.setPlansCompleted(number(plans.get(userId), "completed"));
+            actual.setFollowers(number(user, "followers"));
+            actual.setFollowing(number(user, "following"));
+
+            if (!sameCounters(actual, stored.get(userId))) {
+                bulkOps.upsert(byUser(userId), new Update()
+                    .set("posts", actual.getPosts())
+                    .set("resources", actual.getResources())
+                    .set("likesReceived", actual.getLikesReceived())
+                    .set("plans", actual.getPlans())
+                    .set("plansCompleted", actual.getPlansCompleted())
+                    .set("followers", actual.getFollowers())
+                    .set("following", actual.getFollowing())
+                    .set("updatedAt", now)
+                    .set("reconciledAt", now));
+                repaired++;
+            }
+        }
+        if (repaired > 0) {
+            bulkOps.execute();
+        }
+        return repaired;
+    }
+
+    private Map<String, Document> countPlans(List<DBRef> refs) {
+        Document completed = new Document("$cond", List.of(new Document("$gte", List.of("$progress", 100)), 1, 0));
+        return countByOwner(LearningPlan.class, new Document("user", new Document("$in", refs)),
+            new Document("count", new Document("$sum", 1)).append("completed", new Document("$sum", completed)));
+    }
+
+    private Map<String, Document> countByOwner(Class<?> entityClass, Document match, Document accumulators) {
+        Document group = new Document("_id", "$user");
+        group.putAll(accumulators);
+        Map<String, Document> counts = new HashMap<>();
+        for (Document doc : collection(entityClass).aggregate(List.of(
+                new Document("$match", match),
+                new Document("$group", group)))) {
+            String ownerId = ownerId(doc.get("_id"));
+            if (ownerId != null) {
+                counts.put(ownerId, doc);
+            }
+        }
+        return counts;
+    }
+
+    private static boolean sameCounters(UserStats actual, UserStats stored) {
+        return stored != null
+            && stored.getPosts() == actual.getPosts()
+            && stored.getResources() == actual.getResources()
+            && stored.getLikesReceived() == actual.getLikesReceived()
+            && stored.getPlans() == actual.getPlans()
+            && stored.getPlansCompleted() == actual.getPlansCompleted()
+            && stored.getFollowers() == actual.getFollowers()
+            && stored.getFollowing() == actual.getFollowing();
+    }
+
+    static String ownerId(Object ref) {
+        if (ref instanceof DBRef dbRef) {
+            return String.valueOf(dbRef.getId());
+        }
+        if (ref instanceof Document doc && doc.containsKey("$id")) {
+            return String.valueOf(doc.get("$id"));
+        }
+        return null;
+    }
+
+    private static long number(Document doc, String field) {
+        return doc != null && doc.get(field) instanceof Number value ? value.longValue() : 0;
+    }
+
+    private static Document size(String array) {
+        return new Document("$size", new Document("$ifNull", List.of("$" + array, List.of())));
+    }
+
+    private DBRef userRef(Object id) {
+        return new DBRef(mongoTemplate.getCollectionName(User.class), id);
+    }
+
+    private MongoCollection<Document> collection(Class<?> entityClass) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass));
+    }
+
+    private Query byUser(String userId) {
+        return new Query(Criteria.where("userId").is(userId));
+    }
+}
@@ -0,0 +1,197 @@
+package com.skillshare.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.skillshare.model.WriteBehindEntry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only NDJSON log backing the write-behind queue.
+ *
+ * <p>Every entry is appended (and optionally fsynced) before it is
+ * acknowledged. Appends only write; {@link #sync(long)} then makes them
+ * durable as a group commit: one caller forces everything written so far
+ * while the callers that appended meanwhile wait for it instead of each
+ * forcing on its own. The flusher records the highest sequence applied to MongoDB in
+ * a separate checkpoint file; on startup all entries after the checkpoint are
+ * replayed. Once every appended entry has been applied the log is truncated.
+ *
+ * <p>Guarded by {@link ReentrantLock}s rather than {@code synchronized}: the
+ * locks are held across file writes and fsyncs, which would otherwise pin the
+ * carrier of a virtual thread.
+ */
+@Slf4j
+class WriteBehindLog implements AutoCloseable {
+    private static final String LOG_FILE = "write-behind.log";
+    private static final String CHECKPOINT_FILE = "write-behind.checkpoint";
+
+    private final Path logFile;
+    private final Path checkpointFile;
+    private final boolean fsync;
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final AtomicLong syncs = new AtomicLong();
+    private FileChannel channel;
+    private volatile long lastSequence;
+    private volatile long syncedSequence;
+    private long checkpoint;
+
+    WriteBehindLog(Path directory, boolean fsync, ObjectMapper objectMapper) throws IOException {
+        Files.createDirectories(directory);
+        this.logFile = directory.resolve(LOG_FILE);
+        this.checkpointFile = directory.resolve(CHECKPOINT_FILE);
+        this.fsync = fsync;
+        this.writer = objectMapper.writerFor(WriteBehindEntry.class).without(SerializationFeature.INDENT_OUTPUT);
+        this.reader = objectMapper.readerFor(WriteBehindEntry.class);
+    }
+
+    /**
+     * Opens the log and returns the entries that were acknowledged but never
+     * applied, in sequence order.
+     */
+    List<WriteBehindEntry> open() throws IOException {
+        lock.lock();
+        try {
+            checkpoint = Files.exists(checkpointFile)
+                ? Long.parseLong(Files.readString(checkpointFile, StandardCharsets.UTF_8).trim())
+                : 0;
+            lastSequence = checkpoint;
+
+            List<WriteBehindEntry> pending = new ArrayList<>();
+            if (Files.exists(logFile)) {
+                try (BufferedReader lines = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = lines.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        WriteBehindEntry entry;
+                        try {
+                            entry = reader.readValue(line);
+                        } catch (IOException e) {
+                            // A torn final line from a crash mid-append was never acknowledged
+                            log.warn("Skipping unreadable write-behind log entry: {}", e.getMessage());
+                            continue;
+                        }
+                        lastSequence = Math.max(lastSequence, entry.getSequence());
+                        if (entry.getSequence() > checkpoint) {
+                            pending.add(entry);
+                        }
+                    }
+                }
+            }
+
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            syncedSequence = lastSequence;
+            log.info("Opened write-behind log {} with {} pending entries after checkpoint {}", logFile, pending.size(), checkpoint);
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Assigns the next sequence number to the entry and appends it, without
+     * waiting for it to be durable; see {@link #sync(long)}. Callers must hand
+     * entries to the queue in the order they were appended.
+     */
+    void append(WriteBehindEntry entry) throws IOException {
+        lock.lock();
+        try {
+            entry.setSequence(lastSequence + 1);
+            byte[] json = writer.writeValueAsBytes(entry);
+            ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            lastSequence = entry.getSequence();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns once every entry up to {@code sequence} is on disk. The caller
+     * that gets the sync lock forces all entries appended so far, so callers
+     * queued behind it usually find their entry already covered.
+     */
+    void sync(long sequence) throws IOException {
+        if (!fsync || syncedSequence >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (syncedSequence >= sequence) {
+                return;
+            }
+            // Everything up to lastSequence has been written, so this force covers it
+            long written = lastSequence;
+            channel.force(false);
+            syncedSequence = written;
+            syncs.incrementAndGet();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /** Number of forces issued by {@link #sync(long)}. */
+    long syncCount() {
+        return syncs.get();
+    }
+
+    /**
+     * Records that every entry up to {@code sequence} has been applied, and
+     * truncates the log if nothing newer is outstanding.
+     */
+    void checkpoint(long sequence) throws IOException {
+        lock.lock();
+        try {
+            if (sequence <= checkpoint) {
+                return;
+            }
+            Path temp = checkpointFile.resolveSibling(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(temp, Long.toString(sequence), StandardCharsets.UTF_8);
+            Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpoint = sequence;
+
+            if (checkpoint == lastSequence) {
+                channel.truncate(0);
+                if (fsync) {
+                    channel.force(false);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package com.skillshare.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.skillshare.config.BackgroundThreads;
+import com.skillshare.exception.WriteBehindRejectedException;
+import com.skillshare.model.Comment;
+import com.skillshare.model.Post;
+import com.skillshare.model.User;
+import com.skillshare.model.WriteBehindEntry;
+import com.skillshare.service.LiveCounterService.CountsChanged;
+import com.skillshare.service.LiveCounterService.Item;
+import com.skillshare.service.NotificationService.Activity;
+import com.skillshare.service.UserStatsService.Counter;
+import com.skillshare.service.UserStatsService.CounterChanged;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional write-behind pipeline for post likes and comments.
+ *
+ * <p>When {@code write-behind.enabled} is set, writes are appended to a local
+ * {@link WriteBehindLog} and acknowledged immediately. A dedicated flusher
+ * thread drains the queue every {@code write-behind.flush-interval-ms} and
+ * applies it as coalesced unordered bulk writes: repeated like/unlike of the
+ * same post by the same user collapse to the last state, and comment counters
+ * are applied once per post. When {@code write-behind.queue-capacity} writes
+ * are outstanding, callers wait up to {@code write-behind.enqueue-timeout-ms}
+ * and are then rejected.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WriteBehindService {
+    private static final long MAX_RETRY_BACKOFF_MS = 5000;
+
+    private final MongoTemplate mongoTemplate;
+    private final CommentBatchWriter commentBatchWriter;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${write-behind.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${write-behind.enqueue-timeout-ms:100}")
+    private long enqueueTimeoutMs;
+
+    @Value("${write-behind.log-dir:${java.io.tmpdir}/skillshare-write-behind}")
+    private String logDir;
+
+    @Value("${write-behind.fsync:true}")
+    private boolean fsync;
+
+    @Value("${write-behind.replay-timeout-ms:60000}")
+    private long replayTimeoutMs;
+
+    private final BlockingQueue<WriteBehindEntry> queue = new LinkedBlockingQueue<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private Semaphore capacity;
+    private WriteBehindLog writeLog;
+    private ScheduledExecutorService flusher;
+    private volatile boolean running;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final AtomicLong lastBatchLagMs = new AtomicLong();
+    private final AtomicLong lastFlushMs = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+
+    public record Stats(
+        boolean enabled,
+        int queued,
+        long enqueued,
+        long flushed,
+        long rejected,
+        long batches,
+        long lastBatchSize,
+        long maxBatchSize,
+        double averageBatchSize,
+        long lagMs,
+        long lastBatchLagMs,
+        long lastFlushMs,
+        long flushFailures
+    ) {}
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        capacity = new Semaphore(queueCapacity);
+        writeLog = new WriteBehindLog(Path.of(logDir), fsync, objectMapper);
+        List<WriteBehindEntry> pending = writeLog.open();
+        running = true;
+
+        // Apply anything acknowledged before the last shutdown before taking new writes; if MongoDB
+        // stays unreachable, startup fails after the replay timeout and the log is kept for the next one
+        long deadline = System.currentTimeMillis() + replayTimeoutMs;
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            if (!flushWithRetry(pending.subList(from, Math.min(from + batchSize, pending.size())), deadline)) {
+                throw new IllegalStateException("Could not replay write-behind log " + logDir
+                    + " within " + replayTimeoutMs + "ms");
+            }
+        }
+
+        flusher = ExecutorServiceMetrics.monitor(meterRegistry,
+            Executors.newScheduledThreadPool(1, backgroundThreads.named("write-behind-flusher")), "write-behind-flusher");
+        Gauge.builder("write.behind.queued", queue, BlockingQueue::size)
+            .description("Acknowledged writes not yet applied to MongoDB")
+            .register(meterRegistry);
+        Gauge.builder("write.behind.lag", this, service -> service.getStats().lagMs())
+            .description("Age of the oldest queued write")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+        FunctionCounter.builder("write.behind.rejected", rejected, AtomicLong::get)
+            .description("Writes rejected because the queue was full")
+            .register(meterRegistry);
+        FunctionCounter.builder("write.behind.syncs", writeLog, WriteBehindLog::syncCount)
+            .description("Forces of the write-behind log, each covering every write appended before it")
+            .register(meterRegistry);
+        flusher.scheduleWithFixedDelay(this::drain, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Write-behind enabled: capacity={}, batchSize={}, flushInterval={}ms, log={}",
+            queueCapacity, batchSize, flushIntervalMs, logDir);
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+
+        flusher.shutdown();
+        boolean terminated = flusher.awaitTermination(30, TimeUnit.SECONDS);
+        running = false;
+        if (!terminated) {
+            // Still retrying a batch: draining now would apply later batches concurrently and
+            // checkpoint past it. Everything not checkpointed is replayed from the log on restart.
+            log.warn("Write-behind flusher did not stop, leaving {} queued writes to the log", queue.size());
+            return;
+        }
+        // Last attempt without retries; anything left over is replayed from the log on restart
+        drain();
+        writeLog.close();
+        log.info("Write-behind stopped after flushing {} writes", flushed.get());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void enqueuePostLike(String postId, String userId, String userName, boolean liked) {
+        WriteBehindEntry entry = new WriteBehindEntry();
+        entry.setType(liked ? WriteBehindEntry.Type.POST_LIKE : WriteBehindEntry.Type.POST_UNLIKE);
+        entry.setPostId(postId);
+        entry.setUserId(userId);
+        entry.setUserName(userName);
+        enqueue(entry);
+    }
+
+    public void enqueueComment(Comment comment) {
+        WriteBehindEntry entry = new WriteBehindEntry();
+        entry.setType(WriteBehindEntry.Type.COMMENT);
+        entry.setPostId(CommentBatchWriter.postIdOf(comment));
+        entry.setUserId(comment.getUserId());
+        entry.setUserName(comment.getUserName());
+        entry.setCommentId(comment.getId());
+        entry.setParentId(comment.getParentId());
+        entry.setPath(comment.getPath());
+        entry.setDepth(comment.getDepth());
+        entry.setContent(comment.getContent());
+        entry.setCreatedAt(comment.getCreatedAt());
+        enqueue(entry);
+    }
+
+    public Stats getStats() {
+        WriteBehindEntry oldest = queue.peek();
+        long lag = oldest != null ? System.currentTimeMillis() - oldest.getEnqueuedAt() : 0;
+        long batchCount = batches.get();
+        return new Stats(
+            enabled,
+            queue.size(),
+            enqueued.get(),
+            flushed.get(),
+            rejected.get(),
+            batchCount,
+            lastBatchSize.get(),
+            maxBatchSize.get(),
+            batchCount > 0 ? (double) flushed.get() / batchCount : 0,
+            lag,
+            lastBatchLagMs.get(),
+            lastFlushMs.get(),
+            flushFailures.get()
+        );
+    }
+
+    private void enqueue(WriteBehindEntry entry) {
+        try {
+            if (!capacity.tryAcquire(enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                throw new WriteBehindRejectedException("Write-behind queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WriteBehindRejectedException("Interrupted while waiting for write-behind capacity");
+        }
+
+        entry.setEnqueuedAt(System.currentTimeMillis());
+        try {
+            // Sequence order in the log must match queue order for checkpoints to be safe
+            appendLock.lock();
+            try {
+                writeLog.append(entry);
+                queue.add(entry);
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException e) {
+            capacity.release();
+            throw new UncheckedIOException("Failed to append to write-behind log", e);
+        }
+        enqueued.incrementAndGet();
+        // Outside the append lock, so concurrent writers share one fsync
+        try {
+            writeLog.sync(entry.getSequence());
+        } catch (IOException e) {
+            // Already queued and may still be applied, but it was never acknowledged as durable
+            throw new UncheckedIOException("Failed to sync write-behind log", e);
+        }
+    }
+
+    private void drain() {
+        List<WriteBehindEntry> batch = new ArrayList<>(batchSize);
+        do {
+            batch.clear();
+            queue.drainTo(batch, batchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (!flushWithRetry(batch, Long.MAX_VALUE)) {
+                return;
+            }
+            capacity.release(batch.size());
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Applies a batch, retrying with backoff while the service is running and
+     * the next attempt would start before {@code deadline}. A batch that is
+     * given up on is never checkpointed, so it is replayed from the log on the
+     * next start.
+     */
+    private boolean flushWithRetry(List<WriteBehindEntry> batch, long deadline) {
+        long backoff = flushIntervalMs;
+        while (true) {
+            try {
+                long start = System.currentTimeMillis();
+                apply(batch);
+                writeLog.checkpoint(batch.get(batch.size() - 1).getSequence());
+
+                long now = System.currentTimeMillis();
+                flushed.addAndGet(batch.size());
+                batches.incrementAndGet();
+                lastBatchSize.set(batch.size());
+                maxBatchSize.accumulateAndGet(batch.size(), Math::max);
+                lastBatchLagMs.set(now - batch.get(0).getEnqueuedAt());
+                lastFlushMs.set(now - start);
+                log.debug("Flushed write-behind batch of {} in {}ms", batch.size(), now - start);
+                return true;
+            } catch (Exception e) {
+                flushFailures.incrementAndGet();
+                log.error("Write-behind flush of {} writes failed, retrying in {}ms: {}", batch.size(), backoff, e.getMessage());
+                if (!running || System.currentTimeMillis() + backoff > deadline) {
+                    return false;
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void apply(List<WriteBehindEntry> batch) {
+        Map<String, WriteBehindEntry> likes = new LinkedHashMap<>();
+        List<Comment> comments = new ArrayList<>();
+
+        for (WriteBehindEntry entry : batch) {
+            switch (entry.getType()) {
+                case POST_LIKE, POST_UNLIKE -> likes.put(entry.getPostId() + ':' + entry.getUserId(), entry);
+                case COMMENT -> comments.add(toComment(entry));
+            }
+        }
+
+        if (!likes.isEmpty()) {
+            applyLikes(likes.values());
+        }
+
+        commentBatchWriter.insertAll(comments);
+    }
+
+    /**
+     * Applies the likes that change their post and publishes the events the
+     * synchronous path publishes for them. The flusher is the only writer of
+     * likes while write-behind is enabled, so the like arrays read first tell
+     * which entries change anything; a replayed batch finds itself applied
+     * and publishes nothing twice.
+     */
+    private void applyLikes(Collection<WriteBehindEntry> likes) {
+        List<Object> postIds = likes.stream().map(WriteBehindEntry::getPostId).distinct()
+            .<Object>map(id -> ObjectId.isValid(id) ? new ObjectId(id) : id)
+            .toList();
+        Map<String, String> authors = new HashMap<>();
+        Map<String, Set<String>> likers = new HashMap<>();
+        // Raw documents: the likes are read as DBRefs, without loading the users
+        for (Document post : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Post.class))
+                .find(Filters.in("_id", postIds))
+                .projection(Projections.include("user", "likes"))) {
+            String id = String.valueOf(post.get("_id"));
+            authors.put(id, UserStatsService.ownerId(post.get("user")));
+            Set<String> userIds = new HashSet<>();
+            for (Object like : post.getList("likes", Object.class, List.of())) {
+                userIds.add(UserStatsService.ownerId(like));
+            }
+            likers.put(id, userIds);
+        }
+
+        List<WriteBehindEntry> changed = new ArrayList<>();
+        BulkOperations postOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+        for (WriteBehindEntry like : likes) {
+            Set<String> userIds = likers.get(like.getPostId());
+            boolean liked = like.getType() == WriteBehindEntry.Type.POST_LIKE;
+            // Deleted since it was enqueued, or already in the requested state
+            if (userIds == null || userIds.contains(like.getUserId()) == liked) {
+                continue;
+            }
+            User user = userReference(like.getUserId());
+            Update update = liked ? new Update().addToSet("likes", user) : new Update().pull("likes", user);
+            update.inc("version", 1);
+            postOps.updateOne(new Query(Criteria.where("id").is(like.getPostId())), update);
+            changed.add(like);
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        postOps.execute();
+
+        for (WriteBehindEntry like : changed) {
+            String authorId = authors.get(like.getPostId());
+            if (like.getType() == WriteBehindEntry.Type.POST_LIKE) {
+                eventPublisher.publishEvent(new CounterChanged(authorId, Counter.LIKES_RECEIVED, 1));
+                eventPublisher.publishEvent(new Activity(authorId, NotificationService.Type.POST_LIKED,
+                    like.getPostId(), like.getUserId(), like.getUserName()));
+            } else {
+                eventPublisher.publishEvent(new CounterChanged(authorId, Counter.LIKES_RECEIVED, -1));
+            }
+        }
+        changed.stream().map(WriteBehindEntry::getPostId).distinct()
+            .forEach(postId -> eventPublisher.publishEvent(new CountsChanged(Item.POST, postId)));
+    }
+
+    private Comment toComment(WriteBehindEntry entry) {
+        Post post = new Post();
+        post.setId(entry.getPostId());
+
+        Comment comment = new Comment();
+        comment.setId(entry.getCommentId());
+        comment.setPost(post);
+        comment.setUser(userReference(entry.getUserId()));
+        comment.setUserId(entry.getUserId());
+        comment.setUserName(entry.getUserName());
+        comment.setParentId(entry.getParentId());
+        comment.setPath(entry.getPath());
+        comment.setDepth(entry.getDepth());
+        comment.setContent(entry.getContent());
+        comment.setCreatedAt(entry.getCreatedAt());
+        comment.setUpdatedAt(entry.getCreatedAt());
+        return comment;
+    }
+
+    private User userReference(String userId) {
+        User user = new User();
+        user.setId(userId);
+        return user;
+    }
+}
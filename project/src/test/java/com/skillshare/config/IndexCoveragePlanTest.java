@@ -0,0 +1,116 @@
+package com.skillshare.config;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks how {@link IndexCoverageVerifier} reads explain output, on plans
+ * shaped like the server's, and that every registered query can be served
+ * by its declared index, without a server; {@link IndexCoverageVerifierTest}
+ * runs the same queries against MongoDB where Docker is available.
+ */
+class IndexCoveragePlanTest {
+    private final IndexRegistry registry = new IndexRegistry();
+    private final IndexRegistry.RegisteredQuery query = registry.getQueries().get(0);
+
+    @Test
+    void indexScanIsCovered() {
+        Document plan = stage("FETCH").append("inputStage", stage("IXSCAN").append("indexName", "email"));
+
+        IndexCoverageVerifier.QueryCoverage coverage = IndexCoverageVerifier.coverage(query, explained(plan));
+
+        assertThat(coverage.covered()).isTrue();
+        assertThat(coverage.stages()).containsExactly("FETCH", "IXSCAN");
+        assertThat(coverage.indexesUsed()).containsExactly("email");
+        assertThat(coverage.expectedIndex()).isEqualTo(query.index().name());
+    }
+
+    @Test
+    void collectionScanIsNotCovered() {
+        Document plan = stage("SORT").append("inputStage", stage("COLLSCAN"));
+
+        IndexCoverageVerifier.QueryCoverage coverage = IndexCoverageVerifier.coverage(query, explained(plan));
+
+        assertThat(coverage.covered()).isFalse();
+        assertThat(coverage.stages()).containsExactly("SORT", "COLLSCAN");
+        assertThat(coverage.indexesUsed()).isEmpty();
+    }
+
+    @Test
+    void readsPlansOfTheSlotBasedEngine() {
+        Document plan = new Document("queryPlan",
+            stage("FETCH").append("inputStage", stage("IXSCAN").append("indexName", "user_created_idx")))
+            .append("slotBasedPlan", new Document("stages", "..."));
+
+        IndexCoverageVerifier.QueryCoverage coverage = IndexCoverageVerifier.coverage(query, explained(plan));
+
+        assertThat(coverage.covered()).isTrue();
+        assertThat(coverage.indexesUsed()).containsExactly("user_created_idx");
+    }
+
+    @Test
+    void orIsCoveredOnlyIfEveryBranchUsesAnIndex() {
+        Document indexed = stage("OR").append("inputStages", List.of(
+            stage("IXSCAN").append("indexName", "tags_id_idx"),
+            stage("IXSCAN").append("indexName", "tags_id_idx")));
+        Document partlyScanned = stage("OR").append("inputStages", List.of(
+            stage("IXSCAN").append("indexName", "tags_id_idx"),
+            stage("COLLSCAN")));
+
+        assertThat(IndexCoverageVerifier.coverage(query, explained(indexed)).covered()).isTrue();
+        assertThat(IndexCoverageVerifier.coverage(query, explained(partlyScanned)).covered()).isFalse();
+    }
+
+    @Test
+    void missingPlanIsNotCovered() {
+        assertThat(IndexCoverageVerifier.coverage(query, new Document("ok", 1.0)).covered()).isFalse();
+        assertThat(IndexCoverageVerifier.coverage(query, explained(new Document())).covered()).isFalse();
+    }
+
+    @Test
+    void everyRegisteredQueryCanBeServedByItsIndex() {
+        assertThat(registry.getQueries()).isNotEmpty();
+        for (IndexRegistry.RegisteredQuery registered : registry.getQueries()) {
+            IndexRegistry.RequiredIndex index = registered.index();
+            assertThat(registry.getIndexes()).as(registered.method()).contains(index);
+            assertThat(index.collection()).as(registered.method()).isEqualTo(registered.collection());
+
+            // Fields a partial index filters on are answered by its filter rather than its keys
+            Set<String> served = new HashSet<>(index.keys().keySet());
+            if (index.partialFilter() != null) {
+                served.addAll(index.partialFilter().keySet());
+            }
+            Set<String> used = new HashSet<>(registered.filter().keySet());
+            if (registered.sort() != null) {
+                used.addAll(registered.sort().keySet());
+            }
+            assertThat(served).as("fields of %s in %s", registered.method(), index.name()).containsAll(used);
+
+            // Without its leading key in the filter or sort, the planner would not pick the index
+            String leadingKey = index.keys().keySet().iterator().next();
+            assertThat(used).as("leading key of %s used by %s", index.name(), registered.method()).contains(leadingKey);
+        }
+    }
+
+    @Test
+    void retiredIndexesAreNotDeclared() {
+        for (IndexRegistry.RetiredIndex retired : registry.getRetiredIndexes()) {
+            assertThat(registry.getIndexes())
+                .noneMatch(index -> index.collection().equals(retired.collection()) && index.name().equals(retired.name()));
+        }
+    }
+
+    private static Document stage(String name) {
+        return new Document("stage", name);
+    }
+
+    private static Document explained(Document winningPlan) {
+        return new Document("queryPlanner", new Document("winningPlan", winningPlan)).append("ok", 1.0);
+    }
+}
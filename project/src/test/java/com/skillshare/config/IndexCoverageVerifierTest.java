@@ -0,0 +1,57 @@
+package com.skillshare.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Builds every declared index on a real server and checks that each query in
+ * the {@link IndexRegistry} is planned against an index. Skipped where Docker
+ * is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+    "mongo.index-build.pause-ms=0",
+    "mongo.index-coverage.verify-on-startup=false",
+    "reminder.enabled=false"
+})
+class IndexCoverageVerifierTest {
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> MONGO.getReplicaSetUrl("skillshare"));
+        registry.add("spring.data.mongodb.database", () -> "skillshare");
+    }
+
+    @Autowired
+    private MongoIndexInitializer mongoIndexInitializer;
+
+    @Autowired
+    private IndexCoverageVerifier indexCoverageVerifier;
+
+    @Test
+    void everyRegisteredQueryUsesAnIndex() {
+        await().atMost(Duration.ofMinutes(1)).until(mongoIndexInitializer::isCompleted);
+
+        IndexCoverageVerifier.CoverageReport report = indexCoverageVerifier.verify();
+
+        assertThat(report.results())
+            .filteredOn(coverage -> !coverage.covered())
+            .as("queries planned as a collection scan")
+            .isEmpty();
+        assertThat(report.allCovered()).isTrue();
+    }
+}
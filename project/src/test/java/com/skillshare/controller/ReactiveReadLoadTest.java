@@ -0,0 +1,129 @@
+package com.skillshare.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the blocking and the reactive variant of one read endpoint of a
+ * running server from many concurrent connections, one after the other,
+ * and compares them: both must stay under the error rate, and the reactive
+ * path must reach at least {@code loadtest.min-throughput-ratio} of the
+ * blocking path's throughput with a p99 latency of at most
+ * {@code loadtest.max-p99-ratio} times its p99, e.g.
+ *
+ * <pre>
+ * mvn test -Dtest=ReactiveReadLoadTest -Dloadtest.base-url=http://localhost:8080/api \
+ *     -Dloadtest.connections=5000
+ * </pre>
+ *
+ * The paths default to the resource list ({@code loadtest.blocking-path},
+ * {@code loadtest.reactive-path}). {@code loadtest.token} is sent as a
+ * bearer token for endpoints that need one. Skipped unless
+ * {@code loadtest.base-url} is set.
+ */
+@EnabledIfSystemProperty(named = "loadtest.base-url", matches = ".+")
+class ReactiveReadLoadTest {
+    private static final Logger log = LoggerFactory.getLogger(ReactiveReadLoadTest.class);
+    private static final String BASE_URL = System.getProperty("loadtest.base-url");
+    private static final String BLOCKING_PATH = System.getProperty("loadtest.blocking-path", "/api/resources?page=0&size=20");
+    private static final String REACTIVE_PATH = System.getProperty("loadtest.reactive-path", "/api/reactive/resources?page=0&size=20");
+    private static final String TOKEN = System.getProperty("loadtest.token");
+    private static final int CONNECTIONS = Integer.getInteger("loadtest.connections", 5000);
+    private static final int REQUESTS_PER_CONNECTION = Integer.getInteger("loadtest.requests-per-connection", 10);
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.001"));
+    private static final double MIN_THROUGHPUT_RATIO = Double.parseDouble(System.getProperty("loadtest.min-throughput-ratio", "1.0"));
+    private static final double MAX_P99_RATIO = Double.parseDouble(System.getProperty("loadtest.max-p99-ratio", "1.0"));
+
+    private record Result(String path, double throughput, double p50Ms, double p99Ms, double errorRate) {}
+
+    @Test
+    void reactivePathKeepsUpWithBlockingPath() {
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+        Result blocking = run(client, BLOCKING_PATH);
+        Result reactive = run(client, REACTIVE_PATH);
+
+        assertThat(blocking.errorRate()).as("error rate of %s", blocking.path()).isLessThanOrEqualTo(MAX_ERROR_RATE);
+        assertThat(reactive.errorRate()).as("error rate of %s", reactive.path()).isLessThanOrEqualTo(MAX_ERROR_RATE);
+        assertThat(reactive.throughput())
+            .as("reactive %.0f req/s against blocking %.0f req/s", reactive.throughput(), blocking.throughput())
+            .isGreaterThanOrEqualTo(blocking.throughput() * MIN_THROUGHPUT_RATIO);
+        assertThat(reactive.p99Ms())
+            .as("reactive p99 %.1fms against blocking p99 %.1fms", reactive.p99Ms(), blocking.p99Ms())
+            .isLessThanOrEqualTo(blocking.p99Ms() * MAX_P99_RATIO);
+    }
+
+    private Result run(HttpClient client, String path) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(BASE_URL + path))
+            .timeout(Duration.ofSeconds(60))
+            .GET();
+        if (TOKEN != null) {
+            request.header("Authorization", "Bearer " + TOKEN);
+        }
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger errors = new AtomicInteger();
+        long start = System.nanoTime();
+        // Each chain sends its requests one after another, so there are CONNECTIONS requests in flight
+        List<CompletableFuture<Void>> chains = new ArrayList<>(CONNECTIONS);
+        for (int i = 0; i < CONNECTIONS; i++) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int j = 0; j < REQUESTS_PER_CONNECTION; j++) {
+                chain = chain.thenCompose(ignored -> send(client, request.build(), latencies, errors));
+            }
+            chains.add(chain);
+        }
+        CompletableFuture.allOf(chains.toArray(CompletableFuture[]::new)).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        int total = CONNECTIONS * REQUESTS_PER_CONNECTION;
+        Result result = new Result(path, total / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99),
+            (double) errors.get() / total);
+        log.info("{}: {} requests over {} connections in {}s, {} req/s, {} errors, latency ms p50={} p95={} p99={} max={}",
+            path, total, CONNECTIONS, String.format("%.1f", seconds), String.format("%.0f", result.throughput()), errors.get(),
+            String.format("%.1f", result.p50Ms()), String.format("%.1f", percentile(sorted, 0.95)),
+            String.format("%.1f", result.p99Ms()), String.format("%.1f", percentile(sorted, 1.0)));
+        return result;
+    }
+
+    private static CompletableFuture<Void> send(HttpClient client, HttpRequest request,
+                                                ConcurrentLinkedQueue<Long> latencies, AtomicInteger errors) {
+        long sent = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .handle((response, failure) -> {
+                if (failure != null || response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                } else {
+                    latencies.add(System.nanoTime() - sent);
+                }
+                return null;
+            });
+    }
+
+    private static double percentile(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,101 @@
+package com.skillshare.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+    private static final long TICK_MS = 10;
+    private static final int WHEEL_SIZE = 8;
+    private static final long START_MS = 1_000;
+
+    private final HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, START_MS);
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    void rejectsTimersThatAreAlreadyDue() {
+        assertThat(wheel.add(START_MS - 500, "past")).isFalse();
+        assertThat(wheel.add(START_MS + TICK_MS - 1, "current tick")).isFalse();
+        assertThat(wheel.add(START_MS + TICK_MS, "next tick")).isTrue();
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    void expiresOnTheTickOfItsExpiration() {
+        wheel.add(START_MS + 30, "a");
+        wheel.add(START_MS + 50, "b");
+
+        wheel.advance(START_MS + 29, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(START_MS + 30, expired::add);
+        assertThat(expired).containsExactly("a");
+
+        wheel.advance(START_MS + 60, expired::add);
+        assertThat(expired).containsExactly("a", "b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cascadesTimersFromOverflowWheels() {
+        // The lowest wheel spans 80ms and the first overflow wheel 640ms, so this needs two overflow levels
+        long expiration = START_MS + 1_500;
+        wheel.add(expiration, "far");
+        wheel.add(START_MS + 200, "near");
+        assertThat(wheel.size()).isEqualTo(2);
+
+        wheel.advance(START_MS + 199, expired::add);
+        assertThat(expired).isEmpty();
+        wheel.advance(START_MS + 200, expired::add);
+        assertThat(expired).containsExactly("near");
+        assertThat(wheel.size()).isEqualTo(1);
+
+        wheel.advance(expiration - 1, expired::add);
+        assertThat(expired).containsExactly("near");
+        wheel.advance(expiration, expired::add);
+        assertThat(expired).containsExactly("near", "far");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void expiresEveryTimerOnceAndNeverEarly() {
+        Random random = new Random(42);
+        List<Long> expirations = new ArrayList<>();
+        HierarchicalTimingWheel<Long> timers = new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, START_MS);
+        for (int i = 0; i < 2_000; i++) {
+            long expiration = START_MS + TICK_MS + random.nextInt(20_000);
+            expirations.add(expiration);
+            assertThat(timers.add(expiration, expiration)).isTrue();
+        }
+
+        List<Long> fired = new ArrayList<>();
+        long now = START_MS;
+        while (fired.size() < expirations.size()) {
+            // Uneven steps, as when ticks are late
+            now += 1 + random.nextInt(3 * (int) TICK_MS);
+            long at = now;
+            timers.advance(now, expiration -> {
+                assertThat(expiration - expiration % TICK_MS).isLessThanOrEqualTo(at);
+                // Late by no more than the step, never by a whole tick more
+                assertThat(at - expiration).isLessThan(4 * TICK_MS);
+                fired.add(expiration);
+            });
+            assertThat(timers.size()).isEqualTo(expirations.size() - fired.size());
+        }
+        assertThat(fired).containsExactlyInAnyOrderElementsOf(expirations);
+    }
+
+    @Test
+    void acceptsTimersAddedAfterAdvancing() {
+        wheel.advance(START_MS + 1_000, expired::add);
+        assertThat(wheel.add(START_MS + 1_000, "now")).isFalse();
+        assertThat(wheel.add(START_MS + 1_700, "later")).isTrue();
+
+        wheel.advance(START_MS + 1_700, expired::add);
+        assertThat(expired).containsExactly("later");
+    }
+}
@@ -0,0 +1,106 @@
+package com.skillshare.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RankedScoreboardTest {
+    private final RankedScoreboard scoreboard = new RankedScoreboard();
+
+    @Test
+    void ranksHighestScoreFirst() {
+        scoreboard.add("a", 5);
+        scoreboard.add("b", 20);
+        scoreboard.add("c", 10);
+
+        assertThat(scoreboard.top(10)).extracting(RankedScoreboard.Entry::id).containsExactly("b", "c", "a");
+        assertThat(scoreboard.rank("b")).isEqualTo(1);
+        assertThat(scoreboard.rank("c")).isEqualTo(2);
+        assertThat(scoreboard.rank("a")).isEqualTo(3);
+        assertThat(scoreboard.size()).isEqualTo(3);
+    }
+
+    @Test
+    void breaksTiesById() {
+        scoreboard.add("carol", 7);
+        scoreboard.add("alice", 7);
+        scoreboard.add("bob", 7);
+
+        assertThat(scoreboard.top(3)).extracting(RankedScoreboard.Entry::id).containsExactly("alice", "bob", "carol");
+        assertThat(scoreboard.rank("alice")).isEqualTo(1);
+        assertThat(scoreboard.rank("carol")).isEqualTo(3);
+    }
+
+    @Test
+    void movesAnUpdatedScore() {
+        scoreboard.add("a", 5);
+        scoreboard.add("b", 10);
+
+        assertThat(scoreboard.add("a", 6)).isEqualTo(11);
+
+        assertThat(scoreboard.top(2)).containsExactly(
+            new RankedScoreboard.Entry("a", 11), new RankedScoreboard.Entry("b", 10));
+        assertThat(scoreboard.size()).isEqualTo(2);
+    }
+
+    @Test
+    void removesScoresThatAreNoLongerPositive() {
+        scoreboard.add("a", 5);
+        scoreboard.add("b", 3);
+
+        scoreboard.add("a", -5);
+        assertThat(scoreboard.rank("a")).isZero();
+        assertThat(scoreboard.score("a")).isZero();
+        assertThat(scoreboard.size()).isEqualTo(1);
+
+        // A negative score is kept, so later points are added to it, but it is not ranked
+        scoreboard.add("b", -4);
+        assertThat(scoreboard.score("b")).isEqualTo(-1);
+        assertThat(scoreboard.rank("b")).isZero();
+        assertThat(scoreboard.top(10)).isEmpty();
+
+        scoreboard.add("b", 2);
+        assertThat(scoreboard.top(10)).containsExactly(new RankedScoreboard.Entry("b", 1));
+    }
+
+    @Test
+    void topIsLimitedToTheRequestedCount() {
+        for (int i = 0; i < 10; i++) {
+            scoreboard.add("user" + i, i + 1);
+        }
+
+        assertThat(scoreboard.top(3)).extracting(RankedScoreboard.Entry::score).containsExactly(10L, 9L, 8L);
+        assertThat(scoreboard.top(0)).isEmpty();
+        assertThat(scoreboard.rank("unknown")).isZero();
+    }
+
+    @Test
+    void matchesASortedListUnderRandomUpdates() {
+        Random random = new Random(45);
+        Map<String, Long> expected = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            String id = "user" + random.nextInt(200);
+            long delta = random.nextInt(21) - 8;
+            scoreboard.add(id, delta);
+            expected.merge(id, delta, Long::sum);
+        }
+
+        List<RankedScoreboard.Entry> ranked = expected.entrySet().stream()
+            .filter(entry -> entry.getValue() > 0)
+            .map(entry -> new RankedScoreboard.Entry(entry.getKey(), entry.getValue()))
+            .sorted(Comparator.comparingLong(RankedScoreboard.Entry::score).reversed()
+                .thenComparing(RankedScoreboard.Entry::id))
+            .toList();
+        assertThat(scoreboard.size()).isEqualTo(ranked.size());
+        assertThat(scoreboard.top(ranked.size() + 1)).containsExactlyElementsOf(ranked);
+        for (int i = 0; i < ranked.size(); i++) {
+            assertThat(scoreboard.rank(ranked.get(i).id())).isEqualTo(i + 1);
+        }
+    }
+}
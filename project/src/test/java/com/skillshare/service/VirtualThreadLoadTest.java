@@ -0,0 +1,151 @@
+package com.skillshare.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillshare.config.BackgroundThreads;
+import com.skillshare.model.WriteBehindEntry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the same request-shaped workload on a pool of platform threads the
+ * size of Tomcat's default and on one virtual thread per request, with JFR
+ * recording, and compares throughput, p99 latency, pinned virtual threads
+ * and contended application monitors. A request appends a like to the
+ * write-behind log, waits for its sync, then blocks for
+ * {@code loadtest.io-ms} as a stand-in for a database call, e.g.
+ *
+ * <pre>
+ * mvn test -Dtest=VirtualThreadLoadTest -Dloadtest.requests=20000 -Dloadtest.io-ms=10
+ * </pre>
+ *
+ * The platform baseline runs on any JDK; the comparison needs Java 21.
+ */
+class VirtualThreadLoadTest {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadLoadTest.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String MONITOR_EVENT = "jdk.JavaMonitorEnter";
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 2000);
+    private static final int PLATFORM_THREADS = Integer.getInteger("loadtest.platform-threads", 200);
+    private static final long IO_MS = Long.getLong("loadtest.io-ms", 5);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path directory;
+
+    private record Result(String mode, double throughput, double p99Ms, long pinned, long contendedMonitors) {}
+
+    @Test
+    void platformThreadsServeEveryRequest() throws Exception {
+        Result platform = run("platform", platformPool());
+
+        assertThat(platform.throughput()).as("requests per second").isPositive();
+        assertThat(platform.contendedMonitors()).as("contended application monitors").isZero();
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void virtualThreadsServeMoreRequestsWithoutPinning() throws Exception {
+        Result platform = run("platform", platformPool());
+        Result virtual = run("virtual", Executors.newCachedThreadPool(threads(true).numbered("load-virtual")));
+
+        assertThat(virtual.pinned()).as("virtual threads pinned to their carrier").isZero();
+        assertThat(virtual.contendedMonitors()).as("contended application monitors").isZero();
+        assertThat(virtual.throughput())
+            .as("virtual %.0f req/s against platform %.0f req/s", virtual.throughput(), platform.throughput())
+            .isGreaterThanOrEqualTo(platform.throughput());
+        assertThat(virtual.p99Ms())
+            .as("virtual p99 %.1fms against platform p99 %.1fms", virtual.p99Ms(), platform.p99Ms())
+            .isLessThanOrEqualTo(platform.p99Ms());
+    }
+
+    private Result run(String mode, ExecutorService executor) throws Exception {
+        Path recordingFile = directory.resolve(mode + ".jfr");
+        long[] latencies = new long[REQUESTS];
+        double seconds;
+        try (Recording recording = new Recording();
+             WriteBehindLog writeBehindLog = new WriteBehindLog(directory.resolve(mode), true, objectMapper)) {
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+            recording.enable(MONITOR_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            writeBehindLog.open();
+
+            long start = System.nanoTime();
+            List<Future<?>> requests = new ArrayList<>(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                int request = i;
+                long submitted = System.nanoTime();
+                requests.add(executor.submit(() -> {
+                    serve(writeBehindLog, request);
+                    latencies[request] = System.nanoTime() - submitted;
+                    return null;
+                }));
+            }
+            for (Future<?> request : requests) {
+                request.get();
+            }
+            seconds = (System.nanoTime() - start) / 1e9;
+            executor.shutdown();
+
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        long pinned = events.stream().filter(event -> event.getEventType().getName().equals(PINNED_EVENT)).count();
+        long contended = events.stream()
+            .filter(event -> event.getEventType().getName().equals(MONITOR_EVENT))
+            .filter(VirtualThreadLoadTest::inApplicationCode)
+            .count();
+        Arrays.sort(latencies);
+        Result result = new Result(mode, REQUESTS / seconds, latencies[(int) Math.ceil(REQUESTS * 0.99) - 1] / 1e6,
+            pinned, contended);
+        log.info("{}: {} requests in {}s, {} req/s, p99 {}ms, {} pinned, {} contended application monitors",
+            mode, REQUESTS, String.format("%.2f", seconds), String.format("%.0f", result.throughput()),
+            String.format("%.1f", result.p99Ms()), pinned, contended);
+        return result;
+    }
+
+    private static void serve(WriteBehindLog writeBehindLog, int request) throws Exception {
+        WriteBehindEntry entry = new WriteBehindEntry();
+        entry.setType(WriteBehindEntry.Type.POST_LIKE);
+        entry.setPostId("post-" + request % 100);
+        entry.setUserId("user-" + request);
+        writeBehindLog.append(entry);
+        writeBehindLog.sync(entry.getSequence());
+        Thread.sleep(IO_MS);
+    }
+
+    private static boolean inApplicationCode(RecordedEvent event) {
+        return event.getStackTrace() != null && event.getStackTrace().getFrames().stream()
+            .anyMatch(frame -> frame.getMethod().getType().getName().startsWith("com.skillshare."));
+    }
+
+    private static ExecutorService platformPool() {
+        return Executors.newFixedThreadPool(PLATFORM_THREADS, threads(false).numbered("load-platform"));
+    }
+
+    private static BackgroundThreads threads(boolean virtual) {
+        return new BackgroundThreads(new MockEnvironment()
+            .withProperty("spring.threads.virtual.enabled", String.valueOf(virtual)));
+    }
+}
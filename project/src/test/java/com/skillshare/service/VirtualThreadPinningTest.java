@@ -0,0 +1,94 @@
+package com.skillshare.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillshare.config.BackgroundThreads;
+import com.skillshare.model.WriteBehindEntry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the write-behind log, whose lock is held across file writes and
+ * fsyncs, from many contending virtual threads made by
+ * {@link BackgroundThreads}, and checks with JFR that no virtual thread was
+ * pinned to its carrier. Needs Java 21; on Java 17
+ * {@link VirtualThreadLoadTest} checks the same path for contended
+ * application monitors, which are what would pin.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadPinningTest {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int THREADS = 64;
+    private static final int APPENDS_PER_THREAD = 50;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void backgroundThreadsAreVirtualWhenEnabled() throws Exception {
+        ThreadFactory factory = virtualThreads().named("pinning-check");
+
+        Thread thread = factory.newThread(() -> { });
+
+        assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+    }
+
+    @Test
+    void writeBehindLogDoesNotPinCarrierThreads() throws Exception {
+        Path recordingFile = directory.resolve("pinning.jfr");
+        try (Recording recording = new Recording();
+             WriteBehindLog log = new WriteBehindLog(directory.resolve("log"), true, new ObjectMapper().findAndRegisterModules())) {
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            log.open();
+
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS, virtualThreads().numbered("pinning-check"));
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                tasks.add(pool.submit(() -> {
+                    for (int j = 0; j < APPENDS_PER_THREAD; j++) {
+                        WriteBehindEntry entry = new WriteBehindEntry();
+                        entry.setType(WriteBehindEntry.Type.POST_LIKE);
+                        entry.setPostId("post");
+                        entry.setUserId("user");
+                        log.append(entry);
+                        log.sync(entry.getSequence());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            pool.shutdown();
+
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> pinned = RecordingFile.readAllEvents(recordingFile).stream()
+            .filter(event -> event.getEventType().getName().equals(PINNED_EVENT))
+            .toList();
+        assertThat(pinned).as("virtual threads pinned while appending").isEmpty();
+    }
+
+    private static BackgroundThreads virtualThreads() {
+        return new BackgroundThreads(new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true"));
+    }
+}
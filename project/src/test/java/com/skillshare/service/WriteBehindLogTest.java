@@ -0,0 +1,104 @@
+package com.skillshare.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillshare.model.WriteBehindEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteBehindLogTest {
+    private static final int THREADS = 32;
+    private static final int APPENDS_PER_THREAD = 50;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void concurrentAppendsShareForces() throws Exception {
+        try (WriteBehindLog log = new WriteBehindLog(directory, true, objectMapper)) {
+            assertThat(log.open()).isEmpty();
+
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < APPENDS_PER_THREAD; j++) {
+                        WriteBehindEntry entry = like("post-" + j);
+                        log.append(entry);
+                        log.sync(entry.getSequence());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            pool.shutdown();
+
+            assertThat(log.syncCount()).isPositive().isLessThan(THREADS * APPENDS_PER_THREAD);
+        }
+
+        try (WriteBehindLog reopened = new WriteBehindLog(directory, true, objectMapper)) {
+            List<WriteBehindEntry> pending = reopened.open();
+            assertThat(pending).hasSize(THREADS * APPENDS_PER_THREAD);
+            assertThat(pending).extracting(WriteBehindEntry::getSequence)
+                .isSorted()
+                .doesNotHaveDuplicates();
+        }
+    }
+
+    @Test
+    void syncIsSkippedForEntriesAlreadyForced() throws Exception {
+        try (WriteBehindLog log = new WriteBehindLog(directory, true, objectMapper)) {
+            log.open();
+            WriteBehindEntry first = like("a");
+            WriteBehindEntry second = like("b");
+            log.append(first);
+            log.append(second);
+
+            log.sync(second.getSequence());
+            log.sync(first.getSequence());
+
+            assertThat(log.syncCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void replaysOnlyEntriesAfterTheCheckpoint() throws Exception {
+        try (WriteBehindLog log = new WriteBehindLog(directory, true, objectMapper)) {
+            log.open();
+            WriteBehindEntry applied = like("a");
+            WriteBehindEntry pending = like("b");
+            log.append(applied);
+            log.append(pending);
+            log.sync(pending.getSequence());
+            log.checkpoint(applied.getSequence());
+        }
+
+        try (WriteBehindLog reopened = new WriteBehindLog(directory, true, objectMapper)) {
+            assertThat(reopened.open()).extracting(WriteBehindEntry::getPostId).containsExactly("b");
+        }
+    }
+
+    private static WriteBehindEntry like(String postId) {
+        WriteBehindEntry entry = new WriteBehindEntry();
+        entry.setType(WriteBehindEntry.Type.POST_LIKE);
+        entry.setPostId(postId);
+        entry.setUserId("user");
+        return entry;
+    }
+}